@@ -3,6 +3,7 @@
  */
 package fko.tetris.AI;
 
+import fko.tetris.game.TetrisControlEvents;
 import fko.tetris.game.TetrisGame;
 
 /**
@@ -43,4 +44,17 @@ public abstract class AbstractBot implements Bot, Runnable {
 
 	public abstract void run();
 
+	/**
+	 * Sends a control event to the game - directly to a headless game or through its control queue as the ui 
+	 * would do.
+	 * @param event
+	 */
+	protected void send(TetrisControlEvents event) {
+		if (_game.isHeadless()) {
+			_game.input(event);
+		} else {
+			_game.controlQueueAdd(event);
+		}
+	}
+
 }
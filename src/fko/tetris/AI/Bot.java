@@ -3,12 +3,22 @@
  */
 package fko.tetris.AI;
 
+import fko.tetris.game.GameSnapshot;
+
 /**
  * A Bot is a AI player running in its own thread. It can be started and stopped.<br/> 
  * A real implementation will watch the matrix and the current Tetrimino (and maybe the next queue and hold queue) to calculate its best move.<br/>
  * The best move will be send to the game via the <code>_game.controlQueueAdd()</code> method as a the ui would do when a human player is pressing a key.<br/> 
+ * For headless games the bot is not started but asked for each Tetrimino with <code>move()</code>.<br/>
  */
 public interface Bot {
 	void startBot();
 	void stopBot();
+
+	/**
+	 * Calculates and sends all control events for the current Tetrimino of the snapshot at once on the caller's
+	 * thread. Used to play headless games - e.g. by the <code>TetrisGameHost</code>.
+	 * @param snapshot
+	 */
+	void move(GameSnapshot snapshot);
 }
@@ -1,20 +1,22 @@
 package fko.tetris.AI;
 
-import java.util.ArrayList;
-import java.util.List;
-
+import fko.tetris.game.GameSnapshot;
 import fko.tetris.game.Matrix;
-import fko.tetris.game.TetrisColor;
 import fko.tetris.game.TetrisControlEvents;
 import fko.tetris.game.TetrisGame;
 import fko.tetris.game.TetrisPhase;
-import fko.tetris.tetriminos.Tetrimino;
+import fko.tetris.tetriminos.Piece;
+import fko.tetris.tetriminos.Tetrimino.Facing;
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
+import fko.tetris.tetriminos.TetriminoLayout;
 
 /**
  * A Bot capable of looking several Tetriminos ahead using the NextQueue<br>
  * It evaluates absolute height, aggregated height, unevenness, holes, blocker (Minos over holes).<br>
  * It can't play with a lookahead of 3+ in higher levels (12+) as it takes too long to calculate.<br>
  * 
+ * The search places and undoes Tetriminos on a single copy of the Matrix so it does not create garbage per node.<br>
+ * 
  * TODO: Optimize performance to be able to look ahead more
  * TODO: Use LOCK moves to lose holes (side movements when Tetrimino locks)
  * TODO: Optimize for Score instead only height
@@ -23,7 +25,9 @@ public class LockAheadBot extends AbstractBot {
 
 	private static final int MAX_VISIBLE_NEXTQUEUE = 2;
 
-	private List<Tetrimino> _nextQueue = new ArrayList<Tetrimino>(); 
+	private static final Facing[] FACINGS = Facing.values();
+
+	private TetriminoShape[] _nextQueue = new TetriminoShape[MAX_VISIBLE_NEXTQUEUE+1]; 
 
 	private int _numberOfEvaluations = 0;
 
@@ -42,21 +46,17 @@ public class LockAheadBot extends AbstractBot {
 	public void run() {
 		boolean moveDone = false; // to prevent several calculations during the falling phase
 		while (!Thread.interrupted()) {
-				final TetrisPhase phaseState = _game.getPhaseState();
+				// one consistent state of the game for the whole calculation
+				final GameSnapshot snapshot = _game.getSnapshot();
+				final TetrisPhase phaseState = snapshot.getPhase();
 				switch(phaseState) {
 				// we can only move when we are in FALLING phase
 				case LOCK: // we can still move during LOCK - this is helpful in higher levels when game is really fast
 				case FALLING: {
 					if (!moveDone) {
 						long time = System.nanoTime();
-						_numberOfEvaluations = 0;
-						_nextQueue.clear();
-						// copy the nextQueue into a list
-						for (int i = 0; i <= MAX_VISIBLE_NEXTQUEUE; i++) {
-							_nextQueue.add(_game.getNextQueue().get(i));
-						}
 						// calculate the best position and place Tetrimino
-						placeTetrimino();
+						placeTetrimino(snapshot, true);
 						moveDone = true;
 						System.out.println(String.format("Bot took %,10d ns", (System.nanoTime() - time)));
 						System.out.println();
@@ -71,87 +71,84 @@ public class LockAheadBot extends AbstractBot {
 		}
 	}
 
+	@Override
+	public void move(GameSnapshot snapshot) {
+		final TetrisPhase phase = snapshot.getPhase();
+		if (phase == TetrisPhase.FALLING || phase == TetrisPhase.LOCK) {
+			placeTetrimino(snapshot, false);
+		}
+	}
+
 	/*
 	 * Calculate the control commands for playing Tetris 
 	 */
-	private void placeTetrimino() {
+	private void placeTetrimino(GameSnapshot snapshot, boolean verbose) {
+
+		_numberOfEvaluations = 0;
+		// copy the nextQueue into an array
+		for (int i = 0; i <= MAX_VISIBLE_NEXTQUEUE; i++) {
+			_nextQueue[i] = snapshot.getNext(i);
+		}
 
 		int best_turn = 0;
 		int best_move = 0;
 		int best_score = Integer.MIN_VALUE;
 		
-		// make a copy of the playfield as the game playfield could move on in the meantime
-		// also we do want to change the original Matrix
-		Matrix myMatrix = _game.getMatrix().clone();
+		if (!snapshot.hasCurrentTetrimino()) return; // already locked
+		final TetriminoShape shape = snapshot.getCurrentShape();
+
+		// make a copy of the playfield from the snapshot as we do not want to change the original Matrix
+		// the search itself places and undoes Tetriminos on this one copy  
+		Matrix myMatrix = snapshot.toMatrix();
 
 		// for each relevant permutation of move position and turn position get a score
 		// avoid symmetrical permutations to save some time
-		int turns = 4;
-		switch(myMatrix.getCurrentTetrimino().toString()) {
-			case "O": turns=1; break; // no turns needed - similar for all permutations
-			case "Z":
-			case "S":
-			case "I": turns=2; break; // only needs the base turn and a 90° turn to cover all permutations
-			case "T":
-			case "J":
-			case "L": 
-			default: turns=4; break; // need 4 turns for all permutations
-		}
-		for (int turn=0; turn<turns; turn++) {
-			Matrix myMatrixCopy = myMatrix.clone(); // copy to not change the original
-			for (int i=0; i<turn; i++) myMatrixCopy.turnMove(1); // make the turn
-			// determine max moves right and left
-			int moveR=0;
-			while (!myMatrixCopy.moveSideway(1)) {
-				moveR++;
-			}
-			int moveL=moveR;
-			while (!myMatrixCopy.moveSideway(-1)) {
-				moveL--;
+		// only positions the current Tetrimino can reach from where it is now are tried - the Tetrimino is 
+		// turned and then moved sideways until it is blocked
+		// a turn can kick the Tetrimino sideways so the moves are counted from the turned position 
+		final int turns = turnsNeeded(shape);
+		int turned = snapshot.getCurrentPiece();
+		for (int turn=0; turn<turns && turned != Piece.NONE; turn++) {
+			// go to the leftmost reachable position
+			int piece = turned;
+			while (myMatrix.fits(Piece.move(piece, -1, 0))) {
+				piece = Piece.move(piece, -1, 0);
 			}
-			// now we are on the left - for each position horizontally make the drop a call recursive function
-			for (int m = moveL; m <= moveR; m++) {
-				Matrix myMatrixCopy2 = myMatrixCopy.clone(); // copy to not change the preserve to source copy
-				// move right
-				for (int i=0; i<m-moveL; i++) {
-					myMatrixCopy2.moveSideway(1);
-				}
-				myMatrixCopy2.drop();
-				myMatrixCopy2.merge();
-				myMatrixCopy2.markLinesToBeCleared();
-				myMatrixCopy2.clearMarkedLines();
-				if (myMatrixCopy2.spawn(_nextQueue.get(0).clone())) {
-					return; // game over
-				}
+			// for each reachable position horizontally drop the Tetrimino and call the recursive function
+			for (; myMatrix.fits(piece); piece = Piece.move(piece, 1, 0)) {
+				if (myMatrix.place(piece) < 0) continue;
 				
-				int score = bruteForceTree(myMatrixCopy2, 1);
+				int score = bruteForceTree(myMatrix, 0);
+				myMatrix.undo();
 				
 				if (score > best_score) {
 					best_turn = turn;
-					best_move = m;
+					best_move = Piece.x(piece) - Piece.x(turned);
 					best_score = score;
 				}
 			}
+			turned = turnRight(myMatrix, turned);
 		}
 
 		// now turn to the best position on the real matrix
 		for (int i=0; i<best_turn; i++) {
-			_game.controlQueueAdd(TetrisControlEvents.RTURN);
+			send(TetrisControlEvents.RTURN);
 		}
 
 		// now move to the best position on the real matrix
 		for (int i=0; i < Math.abs(best_move); i++) {
 			if (best_move < 0) {
-				_game.controlQueueAdd(TetrisControlEvents.LEFT);
+				send(TetrisControlEvents.LEFT);
 			} else if (best_move > 0) {
-				_game.controlQueueAdd(TetrisControlEvents.RIGHT);
+				send(TetrisControlEvents.RIGHT);
 			}
 		}
 		
 		// finally drop on the Tetrimino on the real matrix
-		_game.controlQueueAdd(TetrisControlEvents.HARDDOWN);
+		send(TetrisControlEvents.HARDDOWN);
 
-		System.out.println("TETRIMINO: "+myMatrix.getCurrentTetrimino());
+		if (!verbose) return;
+		System.out.println("TETRIMINO: "+shape);
 		System.out.println("BEST TURN: "+best_turn+" BEST MOVE: "+best_move);
 		System.out.println("BEST SCORE: "+best_score);
 		System.out.println(String.format("Evaluations: %,d",_numberOfEvaluations));
@@ -159,50 +156,71 @@ public class LockAheadBot extends AbstractBot {
 		
 	}
 
+	/*
+	 * Places the Tetrimino at nextQueueIndex in all positions and recurses into the next one.
+	 * All placements are undone before returning so the matrix is unchanged afterwards.
+	 */
 	private int bruteForceTree(Matrix myMatrix, int nextQueueIndex) {
 		if (Thread.currentThread().isInterrupted()) return Integer.MIN_VALUE;
 
-		if (nextQueueIndex >= MAX_VISIBLE_NEXTQUEUE) {
+		final TetriminoShape shape = _nextQueue[nextQueueIndex];
+
+		// game over if the next Tetrimino can't spawn
+		if (!myMatrix.fits(shape, Facing.NORTH, Piece.spawnX(shape), Piece.SPAWN_Y)) {
+			return Integer.MIN_VALUE;
+		}
+
+		if (nextQueueIndex >= MAX_VISIBLE_NEXTQUEUE-1) {
 			return evalutation(myMatrix);
 		}
 
 		int best_score = Integer.MIN_VALUE;
 
-		for (int turn=0; turn<4; turn++) {
-			Matrix myMatrixCopy = myMatrix.clone(); // make a copy to preserve the original state
-			for (int i=0; i<turn; i++) myMatrixCopy.turnMove(1); // make the turn
-			// determine max moves right and left
-			int moveR=0;
-			while (!myMatrixCopy.moveSideway(1)) {
-				moveR++;
-			}
-			int moveL=moveR;
-			while (!myMatrixCopy.moveSideway(-1)) {
-				moveL--;
-			}
-			// now we are on the left - for each position horizontally make the drop a call recursive function
-			for (int m = moveL; m <= moveR; m++) {
-				Matrix myMatrixCopy2 = myMatrixCopy.clone(); // make a copy to preserve the original state
-				// move right
-				for (int i=0; i<m-moveL; i++) {
-					myMatrixCopy2.moveSideway(1);
-				}
-				myMatrixCopy2.drop();
-				myMatrixCopy2.merge();
-				myMatrixCopy2.markLinesToBeCleared();
-				myMatrixCopy2.clearMarkedLines();
-				int score = 0;
-				if (myMatrixCopy2.spawn(_nextQueue.get(nextQueueIndex).clone())) {
-					score += Integer.MIN_VALUE; // game_over
-				} else {
-					score += bruteForceTree(myMatrixCopy2, nextQueueIndex+1);
-				};
+		final int turns = turnsNeeded(shape);
+		Facing facing = Facing.NORTH;
+		for (int turn=0; turn<turns; turn++) {
+			final TetriminoLayout layout = TetriminoLayout.get(shape, facing);
+			for (int x = -layout.getMinX(); x < Matrix.MATRIX_WIDTH-layout.getMaxX(); x++) {
+				if (myMatrix.place(shape, facing, x) < 0) continue;
+				int score = bruteForceTree(myMatrix, nextQueueIndex+1);
+				myMatrix.undo();
 				if (score > best_score) best_score = score;
 			}
+			facing = turnRight(facing);
 		}
 		return best_score;
 	}
 
+	/*
+	 * number of facings needed to cover all permutations of a shape
+	 */
+	private static int turnsNeeded(TetriminoShape shape) {
+		switch(shape) {
+			case O: return 1; // no turns needed - similar for all permutations
+			case Z:
+			case S:
+			case I: return 2; // only needs the base turn and a 90° turn to cover all permutations
+			case T:
+			case J:
+			case L: 
+			default: return 4; // need 4 turns for all permutations
+		}
+	}
+
+	/*
+	 * the piece after one turn clockwise as the game turns it - with wall kicks - Piece.NONE if it is blocked
+	 */
+	private static int turnRight(Matrix myMatrix, int piece) {
+		return myMatrix.turn(piece, 1);
+	}
+
+	/*
+	 * the facing after one turn clockwise
+	 */
+	private static Facing turnRight(Facing facing) {
+		return FACINGS[(facing.ordinal()+1) % FACINGS.length];
+	}
+
 	private static final double weightabsolutHeight = -1.0;
 	private static final double weightAggregatedHeight = -1.0;
 	private static final double weightUnevenness = -1.0;
@@ -237,14 +255,14 @@ public class LockAheadBot extends AbstractBot {
 
 		// scan the field once and do all evaluations which need to scan the whole matrix
 		// to avoid scanning the matrix multiple times
+		// column heights are maintained by the matrix so we only need to look below them for holes
 		for (int x=0; x<Matrix.MATRIX_WIDTH;x++) {
 			int possibleHoles = 0;
-			height = 0;
+			height = myMatrix.getColumnHeight(x);
 			int tmpHoles = 0;
 			int tmpBlocker = 0;
-			for (int y=0; y<Matrix.PLAYFIELD_HEIGHT; y++) {
-				if (myMatrix.getCell(x, y) != TetrisColor.EMPTY) {
-					height = y+1; 
+			for (int y=0; y<height; y++) {
+				if (myMatrix.isOccupied(x, y)) {
 					if (possibleHoles > 0) {
 						tmpHoles += possibleHoles;
 						possibleHoles = 0;
@@ -1,7 +1,8 @@
 package fko.tetris.AI;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
+import fko.tetris.game.GameSnapshot;
 import fko.tetris.game.TetrisControlEvents;
 import fko.tetris.game.TetrisGame;
 import fko.tetris.game.TetrisPhase;
@@ -12,9 +13,19 @@ import fko.tetris.game.TetrisPhase;
  */
 public class SimpleBot extends AbstractBot {
 
+	private final SplittableRandom _random;
+
 	public SimpleBot(TetrisGame game) {
 		super(game);
-		System.out.println("SIMPLE BOT CREATED");
+		_random = game.newBotRandom(); // seeded by a TetrisGameHost so hosted games are reproducible
+		if (!game.isHeadless()) System.out.println("SIMPLE BOT CREATED");
+	}
+
+	@Override
+	public void move(GameSnapshot snapshot) {
+		if (snapshot.getPhase() == TetrisPhase.FALLING) {
+			placeTetrimino(0);
+		}
 	}
 
 	@Override
@@ -23,12 +34,12 @@ public class SimpleBot extends AbstractBot {
 		while (!Thread.interrupted()) {
 			try {
 
-				final TetrisPhase phaseState = _game.getPhaseState();
+				final TetrisPhase phaseState = _game.getSnapshot().getPhase();
 				System.out.println(phaseState.toString());
 
 				switch(phaseState) {
 				case FALLING: {
-					placeTetrimino();
+					placeTetrimino(50);
 					break;
 				}
 				case GAMEOVER: Thread.currentThread().interrupt(); break;
@@ -49,30 +60,32 @@ public class SimpleBot extends AbstractBot {
 
 	/*
 	 * Calculate the control commands for playing Tetris 
+	 * pause is the time between moves in ms - 0 for no pause
 	 */
-	private void placeTetrimino() {
+	private void placeTetrimino(long pause) {
 		
-		Random rand = new Random();
-
 		for(int i=0;i<10;i++) { // 5 moves sideways
-			if (rand.nextInt(2) == 1) {
-				_game.controlQueueAdd(TetrisControlEvents.LEFT);
+			if (_random.nextInt(2) == 1) {
+				send(TetrisControlEvents.LEFT);
 			} else {
-				_game.controlQueueAdd(TetrisControlEvents.RIGHT);
+				send(TetrisControlEvents.RIGHT);
 			}
-			if (rand.nextInt(2) == 1) {
-				_game.controlQueueAdd(TetrisControlEvents.LEFT);
+			if (_random.nextInt(2) == 1) {
+				send(TetrisControlEvents.LEFT);
 			} else {
-				_game.controlQueueAdd(TetrisControlEvents.RIGHT);
+				send(TetrisControlEvents.RIGHT);
 			}
-			try {
-				Thread.sleep(50);
-			} catch (InterruptedException e) {
+			if (pause > 0) {
+				try {
+					Thread.sleep(pause);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
 			}
 		}
 
 		// finally a hardrop
-		_game.controlQueueAdd(TetrisControlEvents.HARDDOWN);
+		send(TetrisControlEvents.HARDDOWN);
 	}
 
 }
@@ -23,18 +23,8 @@ SOFTWARE.
  */
 package fko.tetris.game;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
-import fko.tetris.tetriminos.I_Tetrimino;
-import fko.tetris.tetriminos.J_Tetrimino;
-import fko.tetris.tetriminos.L_Tetrimino;
-import fko.tetris.tetriminos.O_Tetrimino;
-import fko.tetris.tetriminos.S_Tetrimino;
-import fko.tetris.tetriminos.T_Tetrimino;
 import fko.tetris.tetriminos.Tetrimino;
-import fko.tetris.tetriminos.Z_Tetrimino;
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
 
 /**
  * This class holds each of the 7 Tetriminos once. The getNext() method retrieves a Tetrimino until each Tetrimino has
@@ -47,19 +37,28 @@ import fko.tetris.tetriminos.Z_Tetrimino;
  * then shuffled into a random order. This order is the sequence that the bag �feeds� the Next Queue. Every time a new 
  * Tetrimino is generated and starts its fall within the Matrix, the Tetrimino at the front of the line in the bag is 
  * placed at the end of the Next Queue, pushing all Tetriminos in the Next Queue forward by one. The bag is refilled 
- * and reshuffled once it is empty. 
+ * and reshuffled once it is empty. <br/>
+ * 
+ * The sequence itself is generated by a pluggable and seedable <code>Randomizer</code> - by default a 7-bag.
  *
  */
 public class Bag {
 	
-	private List<Tetrimino> _elements;
+	private final Randomizer _randomizer;
 	
 	/**
 	 * Creates a bag with all 7 elements
 	 */
 	public Bag() {
-		_elements = new ArrayList<>(7);
-		fillAndShuffle();
+		this(new BagRandomizer());
+	}
+	
+	/**
+	 * Creates a bag which gets its sequence from the given randomizer
+	 * @param randomizer
+	 */
+	public Bag(Randomizer randomizer) {
+		_randomizer = randomizer;
 	}
 	
 	/**
@@ -68,24 +67,22 @@ public class Bag {
 	 * @return the next Tetrimino 
 	 */
 	public Tetrimino getNext() {
-		if (_elements.isEmpty()) {
-			fillAndShuffle();
-		}
-		return _elements.remove(0);
+		return Tetrimino.create(getNextShape());
 	}
 
-	/*
-	 * fills the bag with all 7 Tetriminos and shuffles the order 
+	/**
+	 * Retrieves the shape of the next Tetrimino without creating a Tetrimino object.
+	 * @return the next shape
 	 */
-	private void fillAndShuffle() {
-		_elements.add(new O_Tetrimino());
-		_elements.add(new I_Tetrimino());
-		_elements.add(new T_Tetrimino());
-		_elements.add(new L_Tetrimino());
-		_elements.add(new J_Tetrimino());
-		_elements.add(new S_Tetrimino());
-		_elements.add(new Z_Tetrimino());
-		Collections.shuffle(_elements);
+	public TetriminoShape getNextShape() {
+		return _randomizer.nextShape();
+	}
+
+	/**
+	 * @return the randomizer generating the sequence of this bag
+	 */
+	public Randomizer getRandomizer() {
+		return _randomizer;
 	}
 
 	/**
@@ -93,11 +90,7 @@ public class Bag {
 	 */
 	@Override
 	public String toString() {
-		StringBuilder sb = new StringBuilder();
-		_elements.forEach((q) -> sb.append(q.toString()).append(" "));
-		return sb.toString();
+		return _randomizer.toString();
 	}
 	
-	
-	
 }
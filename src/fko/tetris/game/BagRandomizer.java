@@ -0,0 +1,105 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Bag randomizer - a bag holds each of the 7 shapes once (or several times) and is shuffled. Shapes are taken from 
+ * the bag until it is empty, then the bag is refilled and shuffled again.<br/>
+ * The bag is a fixed int array shuffled in place so no objects are created.
+ */
+public class BagRandomizer implements Randomizer {
+
+	private final SplittableRandom _random;
+	private final int[] _bag;
+	private int _index;
+
+	/**
+	 * Creates a 7-bag with a random seed
+	 */
+	public BagRandomizer() {
+		this(new SplittableRandom(), 1);
+	}
+
+	/**
+	 * @param random the random stream this randomizer uses exclusively
+	 * @param copies how often each shape is in the bag - 1 for a 7-bag, 2 for a 14-bag
+	 */
+	public BagRandomizer(SplittableRandom random, int copies) {
+		if (copies < 1) throw new IllegalArgumentException("BagRandomizer(): copies must be >= 1 but was "+copies);
+		_random = random;
+		_bag = new int[SHAPES.length*copies];
+		for (int i = 0; i < _bag.length; i++) {
+			_bag[i] = i % SHAPES.length;
+		}
+		_index = _bag.length; // empty - shuffled on first use
+	}
+
+	/**
+	 * @see fko.tetris.game.Randomizer#next()
+	 */
+	@Override
+	public int next() {
+		if (_index == _bag.length) {
+			shuffle();
+			_index = 0;
+		}
+		return _bag[_index++];
+	}
+
+	/*
+	 * Fisher-Yates shuffle of the bag 
+	 */
+	private void shuffle() {
+		for (int i = _bag.length-1; i > 0; i--) {
+			final int j = _random.nextInt(i+1);
+			final int tmp = _bag[i];
+			_bag[i] = _bag[j];
+			_bag[j] = tmp;
+		}
+	}
+
+	/**
+	 * @see fko.tetris.game.Randomizer#split()
+	 */
+	@Override
+	public Randomizer split() {
+		return new BagRandomizer(_random.split(), _bag.length/SHAPES.length);
+	}
+
+	/**
+	 * @return the shapes left in the current bag 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = _index; i < _bag.length; i++) {
+			sb.append(SHAPES[_bag[i]]).append(" ");
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,204 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free bounded queue of control events with their time stamps.<br/>
+ * Any number of threads (ui, bots) can add events, only the game thread takes them. The queue is a fixed ring 
+ * buffer of event ids and times so adding and taking events creates no objects.<br/>
+ * The game thread parks while the queue is empty. It is unparked by new events or by <code>wakeUp()</code> - e.g. 
+ * from a timer - which makes <code>take()</code> return <code>NONE</code> without queueing an event.
+ */
+public class ControlQueue {
+
+	private static final TetrisControlEvents[] EVENTS = TetrisControlEvents.values();
+
+	private final int _mask;
+	private final byte[] _events;
+	private final long[] _times;
+
+	// each slot's sequence tells producers and the consumer whose turn it is (bounded MPMC queue by D. Vyukov)
+	// slot i is free for the producer of position p if sequence == p, and filled for the consumer if sequence == p+1
+	private final AtomicLongArray _sequences;
+	private final AtomicLong _tail = new AtomicLong(); // next position to add - claimed by producers with CAS
+	private volatile long _head = 0; // next position to take - only changed by the consumer
+
+	private final GameClock _clock;
+
+	private volatile Thread _consumer; // the thread parked in take() - null if not waiting
+	private volatile boolean _wakeUp = false; // take() should return even if the queue is empty
+
+	private final AtomicLong _dropped = new AtomicLong(); // events lost because the queue was full
+
+	private long _timestamp; // time of the last taken event
+
+	/**
+	 * @param capacity maximum number of waiting events - rounded up to a power of 2
+	 * @param clock to time stamp the events
+	 */
+	public ControlQueue(int capacity, GameClock clock) {
+		if (capacity < 1) throw new IllegalArgumentException("ControlQueue(): capacity must be >= 1 but was "+capacity);
+		final int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+		_mask = size-1;
+		_events = new byte[size];
+		_times = new long[size];
+		_sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			_sequences.set(i, i);
+		}
+		_clock = clock;
+	}
+
+	/**
+	 * Adds an event time stamped with the current time of the clock. Can be called from any thread.
+	 * @param event
+	 * @return false if the queue was full and the event is lost
+	 */
+	public boolean offer(TetrisControlEvents event) {
+		return offer(event, _clock.nanoTime());
+	}
+
+	/**
+	 * Adds an event with the given time stamp - e.g. when replaying recorded events. Can be called from any thread.
+	 * @param event
+	 * @param nanoTime
+	 * @return false if the queue was full and the event is lost
+	 */
+	public boolean offer(TetrisControlEvents event, long nanoTime) {
+		long position = _tail.get();
+		while (true) {
+			final int index = (int) position & _mask;
+			final long sequence = _sequences.get(index);
+			if (sequence == position) { // free - try to claim it
+				if (_tail.compareAndSet(position, position+1)) {
+					_events[index] = (byte) event.ordinal();
+					_times[index] = nanoTime;
+					_sequences.set(index, position+1); // publish to the consumer
+					final Thread consumer = _consumer;
+					if (consumer != null) LockSupport.unpark(consumer);
+					return true;
+				}
+				position = _tail.get();
+			} else if (sequence < position) { // the consumer has not taken this slot yet - full
+				_dropped.incrementAndGet();
+				return false;
+			} else { // another producer has claimed it
+				position = _tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Lets a waiting or the next call to <code>take()</code> return <code>NONE</code>. Can be called from any thread.
+	 */
+	public void wakeUp() {
+		_wakeUp = true;
+		final Thread consumer = _consumer;
+		if (consumer != null) LockSupport.unpark(consumer);
+	}
+
+	/**
+	 * Takes the next event and waits if none is available. Only for the consumer thread.
+	 * @return the next event or <code>NONE</code> if woken up by <code>wakeUp()</code> or an interrupt
+	 */
+	public TetrisControlEvents take() {
+		while (true) {
+			final TetrisControlEvents event = poll();
+			if (event != null) return event;
+			if (_wakeUp) {
+				_wakeUp = false;
+				return TetrisControlEvents.NONE;
+			}
+			_consumer = Thread.currentThread();
+			// check again as an event or wake up might have come before we were visible to the producers
+			if (!isEmpty() || _wakeUp) {
+				_consumer = null;
+				continue;
+			}
+			LockSupport.park(this);
+			_consumer = null;
+			if (Thread.interrupted()) {
+				return TetrisControlEvents.NONE;
+			}
+		}
+	}
+
+	/**
+	 * Takes the next event without waiting. Only for the consumer thread.
+	 * @return the next event or null if the queue is empty
+	 */
+	public TetrisControlEvents poll() {
+		final int index = (int) _head & _mask;
+		if (_sequences.get(index) != _head+1) return null; 
+		final TetrisControlEvents event = EVENTS[_events[index]];
+		_timestamp = _times[index];
+		_sequences.set(index, _head+_mask+1); // free for the producer one round later
+		_head++;
+		return event;
+	}
+
+	/**
+	 * @return the time stamp of the last event taken - only for the consumer thread
+	 */
+	public long getTimestamp() {
+		return _timestamp;
+	}
+
+	/**
+	 * @return true if no event is waiting
+	 */
+	public boolean isEmpty() {
+		return _sequences.get((int) _head & _mask) != _head+1;
+	}
+
+	/**
+	 * Removes all waiting events and a pending wake up. Only for the consumer thread.
+	 */
+	public void clear() {
+		while (poll() != null) { /* discard */ }
+		_wakeUp = false;
+	}
+
+	/**
+	 * Number of waiting events. Can be called from any thread but is only a estimate while events are added or
+	 * taken.
+	 * @return the number of waiting events
+	 */
+	public int size() {
+		final long size = _tail.get() - _head;
+		return (int) Math.max(0, Math.min(size, _mask+1));
+	}
+
+	/**
+	 * @return the number of events lost because the queue was full
+	 */
+	public long getDroppedCount() {
+		return _dropped.get();
+	}
+
+}
@@ -0,0 +1,44 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+/**
+ * The source of time for a game - timers and game statistics read the time from a clock only.<br/>
+ * A clock is monotonic and has nanosecond resolution like <code>System.nanoTime()</code>. The value itself has no 
+ * meaning - only differences between two values are elapsed time.
+ */
+@FunctionalInterface
+public interface GameClock {
+
+	/**
+	 * The real time clock based on <code>System.nanoTime()</code>
+	 */
+	static final GameClock SYSTEM = System::nanoTime;
+
+	/**
+	 * @return the current time in nanoseconds
+	 */
+	long nanoTime();
+
+}
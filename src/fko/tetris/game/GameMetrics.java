@@ -0,0 +1,275 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntToLongFunction;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and timers for the phases of a <code>TetrisGame</code>.<br/>
+ * Only the game thread records. Its writes are single writer updates of preallocated atomic arrays so 
+ * recording never allocates or locks and the numbers can be read from any thread - e.g. through JMX 
+ * (see {@link GameMetricsMXBean}). Phase times are measured with <code>System.nanoTime()</code> even if the 
+ * game runs on another clock as they measure the cost of the engine and not game time. The time the game thread 
+ * waits for input or the falling and lock timers is not counted.
+ */
+public class GameMetrics implements GameMetricsMXBean {
+
+	private static final TetrisPhase[] PHASES = TetrisPhase.values();
+	private static final AtomicInteger NEXT_ID = new AtomicInteger(1);
+
+	private final TetrisGame _game;
+
+	// indexed by the phase ordinal - written only by the game thread
+	private final AtomicLongArray _phaseCounts = new AtomicLongArray(PHASES.length);
+	private final AtomicLongArray _phaseNanos = new AtomicLongArray(PHASES.length);
+	private final AtomicLongArray _phaseMaxNanos = new AtomicLongArray(PHASES.length);
+	private volatile int _maxQueueDepth = 0;
+	private volatile int _linesCleared = 0; // in this game - the line count also has the lines of the start level
+
+	private volatile boolean _resetRequested = false; // reset by the game thread so no update is lost
+
+	private ObjectName _objectName; // null if not registered
+
+	/**
+	 * @param game the game this metrics are recorded for
+	 */
+	GameMetrics(TetrisGame game) {
+		_game = game;
+	}
+
+	/**
+	 * Records one run of a phase. Only for the game thread.
+	 * @param phase
+	 * @param nanos time spent in the phase
+	 */
+	void recordPhase(TetrisPhase phase, long nanos) {
+		if (_resetRequested) clear();
+		final int i = phase.ordinal();
+		_phaseCounts.lazySet(i, _phaseCounts.get(i) + 1);
+		_phaseNanos.lazySet(i, _phaseNanos.get(i) + nanos);
+		if (nanos > _phaseMaxNanos.get(i)) _phaseMaxNanos.lazySet(i, nanos);
+	}
+
+	/**
+	 * Records the number of waiting control events when the game thread takes one. Only for the game thread.
+	 * @param depth
+	 */
+	void recordQueueDepth(int depth) {
+		if (_resetRequested) clear();
+		if (depth > _maxQueueDepth) _maxQueueDepth = depth;
+	}
+
+	/**
+	 * Records cleared lines. Only for the game thread.
+	 * @param lines
+	 */
+	void recordLinesCleared(int lines) {
+		if (_resetRequested) clear();
+		_linesCleared += lines;
+	}
+
+	/**
+	 * Registers this with the platform MBean server. Failures are reported but do not stop the game.
+	 */
+	synchronized void register() {
+		if (_objectName != null) return;
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName name = new ObjectName("fko.tetris:type=TetrisGame,id=" + NEXT_ID.getAndIncrement());
+			server.registerMBean(this, name);
+			_objectName = name;
+		} catch (JMException e) {
+			System.err.println("GameMetrics: could not register MBean: " + e);
+		}
+	}
+
+	/**
+	 * Removes this from the platform MBean server if it was registered.
+	 */
+	synchronized void unregister() {
+		if (_objectName == null) return;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(_objectName);
+		} catch (JMException e) {
+			System.err.println("GameMetrics: could not unregister MBean: " + e);
+		}
+		_objectName = null;
+	}
+
+	/**
+	 * @return the name this is registered under or null if not registered
+	 */
+	public synchronized ObjectName getObjectName() {
+		return _objectName;
+	}
+
+	/**
+	 * @param phase
+	 * @return how often the phase was run
+	 */
+	public long getPhaseCount(TetrisPhase phase) {
+		return _phaseCounts.get(phase.ordinal());
+	}
+
+	/**
+	 * @param phase
+	 * @return total ns spent in the phase
+	 */
+	public long getPhaseNanos(TetrisPhase phase) {
+		return _phaseNanos.get(phase.ordinal());
+	}
+
+	/**
+	 * @param phase
+	 * @return longest run of the phase in ns
+	 */
+	public long getPhaseMaxNanos(TetrisPhase phase) {
+		return _phaseMaxNanos.get(phase.ordinal());
+	}
+
+	@Override
+	public String getPhase() {
+		return _game.getPhaseState().name();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return _game.isRunning();
+	}
+
+	@Override
+	public boolean isPaused() {
+		return _game.isPaused();
+	}
+
+	@Override
+	public long getPlayTimeMillis() {
+		return _game.getPlayTime() / 1_000_000L;
+	}
+
+	@Override
+	public int getPieceCount() {
+		return _game.getPieceCount();
+	}
+
+	@Override
+	public int getLineCount() {
+		return _game.getSnapshot().getLineCount();
+	}
+
+	@Override
+	public double getPiecesPerSecond() {
+		return _game.getPiecesPerSecond();
+	}
+
+	@Override
+	public double getLinesPerSecond() {
+		final long playTime = _game.getPlayTime();
+		return playTime <= 0 ? 0.0 : _linesCleared * 1e9 / playTime;
+	}
+
+	@Override
+	public int getControlQueueDepth() {
+		return _game.getControlQueue().size();
+	}
+
+	@Override
+	public int getMaxControlQueueDepth() {
+		return _maxQueueDepth;
+	}
+
+	@Override
+	public long getDroppedControlEvents() {
+		return _game.getControlQueue().getDroppedCount();
+	}
+
+	@Override
+	public Map<String, Long> getPhaseCounts() {
+		return toMap(_phaseCounts::get);
+	}
+
+	@Override
+	public Map<String, Long> getPhaseTotalNanos() {
+		return toMap(_phaseNanos::get);
+	}
+
+	@Override
+	public Map<String, Long> getPhaseMeanNanos() {
+		return toMap(i -> {
+			final long count = _phaseCounts.get(i);
+			return count == 0 ? 0L : _phaseNanos.get(i) / count;
+		});
+	}
+
+	@Override
+	public Map<String, Long> getPhaseMaxNanos() {
+		return toMap(_phaseMaxNanos::get);
+	}
+
+	/**
+	 * Sets all counters back to 0. With a running game thread this happens before its next recording so no 
+	 * update is lost. Headless games are reset at once and must only be reset by the thread driving them.
+	 */
+	@Override
+	public void reset() {
+		_resetRequested = true;
+		if (_game.isHeadless() || !_game.isRunning()) clear(); // no game thread to do it
+	}
+
+	/*
+	 * Sets all counters to 0 - by the thread driving the game or when no game is running 
+	 */
+	private void clear() {
+		_resetRequested = false;
+		for (int i = 0; i < PHASES.length; i++) {
+			_phaseCounts.set(i, 0L);
+			_phaseNanos.set(i, 0L);
+			_phaseMaxNanos.set(i, 0L);
+		}
+		_maxQueueDepth = 0;
+		_linesCleared = 0;
+	}
+
+	/*
+	 * Map of phase names to values in phase order - only the phases the game actually runs
+	 */
+	private static Map<String, Long> toMap(IntToLongFunction value) {
+		final Map<String, Long> map = new LinkedHashMap<>();
+		for (TetrisPhase phase : PHASES) {
+			if (phase == TetrisPhase.NOTSTARTED || phase == TetrisPhase.GAMEOVER) continue;
+			map.put(phase.name(), value.applyAsLong(phase.ordinal()));
+		}
+		return map;
+	}
+
+}
@@ -0,0 +1,117 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+import java.util.Map;
+
+/**
+ * Management interface of a running <code>TetrisGame</code>. Registered with the platform MBean server under 
+ * <code>fko.tetris:type=TetrisGame,id=&lt;n&gt;</code> so it can be read with jconsole or VisualVM.<br/>
+ * Phase times are the time the game thread works in the phase - without waiting for input or timers.
+ * 
+ * @see GameMetrics
+ */
+public interface GameMetricsMXBean {
+
+	/**
+	 * @return name of the current phase
+	 */
+	String getPhase();
+
+	/**
+	 * @return true if the game is running
+	 */
+	boolean isRunning();
+
+	/**
+	 * @return true if the game is paused
+	 */
+	boolean isPaused();
+
+	/**
+	 * @return play time without pauses in ms
+	 */
+	long getPlayTimeMillis();
+
+	/**
+	 * @return number of locked Tetriminos
+	 */
+	int getPieceCount();
+
+	/**
+	 * @return number of cleared lines
+	 */
+	int getLineCount();
+
+	/**
+	 * @return locked Tetriminos per second of play time
+	 */
+	double getPiecesPerSecond();
+
+	/**
+	 * @return lines cleared in this game per second of play time - without the lines assumed for the start level
+	 */
+	double getLinesPerSecond();
+
+	/**
+	 * @return control events currently waiting for the game thread
+	 */
+	int getControlQueueDepth();
+
+	/**
+	 * @return most control events waiting when the game thread took one
+	 */
+	int getMaxControlQueueDepth();
+
+	/**
+	 * @return control events lost because the queue was full
+	 */
+	long getDroppedControlEvents();
+
+	/**
+	 * @return how often each phase was run
+	 */
+	Map<String, Long> getPhaseCounts();
+
+	/**
+	 * @return total ns spent in each phase
+	 */
+	Map<String, Long> getPhaseTotalNanos();
+
+	/**
+	 * @return mean ns of one run of each phase
+	 */
+	Map<String, Long> getPhaseMeanNanos();
+
+	/**
+	 * @return longest run of each phase in ns
+	 */
+	Map<String, Long> getPhaseMaxNanos();
+
+	/**
+	 * Sets all phase counters and times, the max queue depth and the lines cleared back to 0
+	 */
+	void reset();
+
+}
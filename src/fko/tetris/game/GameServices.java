@@ -0,0 +1,79 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+/**
+ * The services a <code>TetrisGame</code> uses outside of its own state - sounds and the high score list.<br/>
+ * Each game gets its services when it is created so many games in one process do not share any state by 
+ * accident. Services which are null are not used - e.g. a game without sounds is silent. 
+ * 
+ * @see TetrisGameHost
+ */
+public final class GameServices {
+
+	/**
+	 * No sounds and no high score - e.g. for headless games and bots
+	 */
+	public static final GameServices NONE = new GameServices(null, null);
+
+	// the desktop game has one audio player for the whole process - loaded on first use only
+	private static final class DesktopSounds {
+		static final TetrisSounds INSTANCE = new TetrisSounds();
+	}
+
+	private final TetrisSounds _sounds;
+	private final HighScoreData _highScoreData;
+
+	/**
+	 * @param sounds the sounds to play or null for a silent game
+	 * @param highScoreData the high score list to add the result to or null
+	 */
+	public GameServices(TetrisSounds sounds, HighScoreData highScoreData) {
+		_sounds = sounds;
+		_highScoreData = highScoreData;
+	}
+
+	/**
+	 * The services of the desktop game - sounds and the high score file in ./var/
+	 * @return services for a game played in the ui
+	 */
+	public static GameServices desktop() {
+		return new GameServices(DesktopSounds.INSTANCE, HighScoreData.getInstance());
+	}
+
+	/**
+	 * @return the sounds or null
+	 */
+	public TetrisSounds getSounds() {
+		return _sounds;
+	}
+
+	/**
+	 * @return the high score list or null
+	 */
+	public HighScoreData getHighScoreData() {
+		return _highScoreData;
+	}
+
+}
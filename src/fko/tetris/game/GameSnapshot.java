@@ -0,0 +1,334 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+import fko.tetris.tetriminos.Piece;
+import fko.tetris.tetriminos.Tetrimino.Facing;
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
+
+/**
+ * Immutable copy of the state of a <code>TetrisGame</code> at one point in time.<br/>
+ * The game thread creates a new snapshot after each state change and publishes it through a single volatile 
+ * reference (<code>TetrisGame.getSnapshot()</code>). Readers like the UI or bots can use a snapshot from any thread 
+ * without locking and always see a consistent state.<br/>
+ * To keep snapshots cheap the background and the next queue are shared with the previous snapshot as long as they 
+ * have not changed. The shared arrays are never modified.
+ */
+public final class GameSnapshot {
+
+	/**
+	 * Input time of snapshots which do not reflect any control event yet
+	 */
+	public static final long NO_INPUT = Long.MIN_VALUE;
+
+	/**
+	 * Number of the latest inputs whose time is kept in a snapshot. More inputs between two shown snapshots are 
+	 * not measured.
+	 */
+	public static final int INPUT_HISTORY = 32;
+
+	// input times of games without input - never changed
+	static final long[] NO_INPUT_TIMES = new long[INPUT_HISTORY];
+
+	private static final TetrisColor[] COLORS = TetrisColor.values();
+	private static final TetriminoShape[] NO_SHAPES = new TetriminoShape[0];
+
+	/**
+	 * Snapshot of a game which has not been started 
+	 */
+	public static final GameSnapshot EMPTY = new GameSnapshot(); // after the constants the constructor uses
+
+	private final long 				_sequenceNumber;	// increases with every published snapshot
+	private final TetrisPhase 		_phase;
+	private final int 				_backgroundVersion; // Matrix version the background was copied from
+	private final byte[] 			_background;		// TetrisColor ordinals row-major (y*MATRIX_WIDTH+x)
+	private final int 				_currentPiece;		// Piece.NONE if there is no Tetrimino in play
+	private final int 				_ghostY;			// y of the current Tetrimino when dropped 
+	private final TetriminoShape[] 	_nextQueue;
+	private final long 				_queueHash;			// Zobrist hash of the next queue
+	private final TetriminoShape 	_hold;				// null if no Tetrimino in hold
+	private final long 				_hash;				// Zobrist hash of the whole state
+	private final int 				_score;
+	private final int 				_currentLevel;
+	private final int 				_lineCount;
+	private final int 				_tetrisesCount;
+	private final long 				_inputCount;		// number of control events reflected
+	private final long[] 			_inputTimes;		// clock times of the latest control events reflected
+
+	/*
+	 * the empty snapshot
+	 */
+	private GameSnapshot() {
+		_sequenceNumber = 0;
+		_phase = TetrisPhase.NOTSTARTED;
+		_backgroundVersion = -1;
+		_background = new byte[Matrix.MATRIX_WIDTH*Matrix.PLAYFIELD_HEIGHT];
+		_currentPiece = Piece.NONE;
+		_ghostY = 0;
+		_nextQueue = NO_SHAPES;
+		_queueHash = 0L;
+		_hold = null;
+		_hash = 0L;
+		_score = 0;
+		_currentLevel = 1;
+		_lineCount = 0;
+		_tetrisesCount = 0;
+		_inputCount = 0;
+		_inputTimes = NO_INPUT_TIMES;
+	}
+
+	/**
+	 * Copies the current state of a game. Must be called by the thread changing the game.
+	 * @param sequenceNumber
+	 * @param game
+	 * @param previous the last published snapshot of this game - its arrays are reused if unchanged
+	 */
+	GameSnapshot(long sequenceNumber, TetrisGame game, GameSnapshot previous) {
+		final Matrix matrix = game.getMatrix();
+		_sequenceNumber = sequenceNumber;
+		_phase = game.getPhaseState();
+
+		_backgroundVersion = matrix.getBackgroundVersion();
+		if (previous != null && previous._backgroundVersion == _backgroundVersion) {
+			_background = previous._background;
+		} else {
+			_background = matrix.copyBackgroundColors();
+		}
+
+		_currentPiece = matrix.getCurrentPiece();
+		_ghostY = _currentPiece == Piece.NONE ? 0 : Piece.y(_currentPiece) - matrix.dropDistance(_currentPiece);
+
+		final NextQueue nextQueue = game.getNextQueue();
+		final TetriminoShape[] previousQueue = previous == null ? NO_SHAPES : previous._nextQueue;
+		boolean sameQueue = previousQueue.length == nextQueue.size();
+		for (int i = 0; sameQueue && i < previousQueue.length; i++) {
+			sameQueue = previousQueue[i] == nextQueue.peek(i);
+		}
+		if (sameQueue) {
+			_nextQueue = previousQueue;
+			_queueHash = previous._queueHash;
+		} else {
+			_nextQueue = new TetriminoShape[nextQueue.size()];
+			long queueHash = 0L;
+			for (int i = 0; i < _nextQueue.length; i++) {
+				_nextQueue[i] = nextQueue.peek(i);
+				queueHash ^= Zobrist.queue(i, _nextQueue[i]);
+			}
+			_queueHash = queueHash;
+		}
+
+		_hold = game.getHoldShape();
+
+		_hash = matrix.getHash() ^ _queueHash ^ Zobrist.hold(_hold) ^ (game.isHoldAllowed() ? 0L : Zobrist.holdUsed());
+
+		_score = game.getScore();
+		_currentLevel = game.getCurrentLevel();
+		_lineCount = game.getLineCount();
+		_tetrisesCount = game.getTetrisesCount();
+		_inputCount = game.getInputCount();
+		_inputTimes = game.getInputTimes();
+	}
+
+	/**
+	 * Returns the color of a background cell.
+	 * @param x - starts at 0 to width-1
+	 * @param y - starts at 0 to height-1
+	 * @return TetrisColor of the cell
+	 */
+	public TetrisColor getCell(int x, int y) {
+		return COLORS[_background[y*Matrix.MATRIX_WIDTH + x]];
+	}
+
+	/**
+	 * Checks if a background cell is occupied by a Mino.
+	 * @param x - starts at 0 to width-1
+	 * @param y - starts at 0 to height-1
+	 * @return true if cell is occupied
+	 */
+	public boolean isOccupied(int x, int y) {
+		return _background[y*Matrix.MATRIX_WIDTH + x] != 0;
+	}
+
+	/**
+	 * Creates a new Matrix with the background of this snapshot and no current Tetrimino.<br/>
+	 * E.g. for bots to search placements.
+	 * @return new Matrix
+	 */
+	public Matrix toMatrix() {
+		return new Matrix(_background);
+	}
+
+	/**
+	 * Returns the Zobrist hash of the game state - background, current Tetrimino, hold and next queue.<br/>
+	 * Snapshots with different hashes are different. Equal hashes are equal states with very high probability.
+	 * @return hash of the state
+	 */
+	public long getHash() {
+		return _hash;
+	}
+
+	/**
+	 * @return the sequence number - higher numbers are newer snapshots of the same game
+	 */
+	public long getSequenceNumber() {
+		return _sequenceNumber;
+	}
+
+	/**
+	 * @return the phase of the game
+	 */
+	public TetrisPhase getPhase() {
+		return _phase;
+	}
+
+	/**
+	 * @return true if a Tetrimino is in play
+	 */
+	public boolean hasCurrentTetrimino() {
+		return _currentPiece != Piece.NONE;
+	}
+
+	/**
+	 * @return the current piece or <code>Piece.NONE</code> if there is none
+	 */
+	public int getCurrentPiece() {
+		return _currentPiece;
+	}
+
+	/**
+	 * @return the shape of the current Tetrimino or null if there is none
+	 */
+	public TetriminoShape getCurrentShape() {
+		return _currentPiece == Piece.NONE ? null : Piece.shape(_currentPiece);
+	}
+
+	/**
+	 * @return the facing of the current Tetrimino or null if there is none
+	 */
+	public Facing getCurrentFacing() {
+		return _currentPiece == Piece.NONE ? null : Piece.facing(_currentPiece);
+	}
+
+	/**
+	 * @return the column of the upper left corner of the current Tetrimino 
+	 */
+	public int getCurrentX() {
+		return Piece.x(_currentPiece);
+	}
+
+	/**
+	 * @return the row above the upper left corner of the current Tetrimino 
+	 */
+	public int getCurrentY() {
+		return Piece.y(_currentPiece);
+	}
+
+	/**
+	 * @return the y position the current Tetrimino would land on if dropped (the ghost piece)
+	 */
+	public int getGhostY() {
+		return _ghostY;
+	}
+
+	/**
+	 * @return the number of Tetriminos in the next queue
+	 */
+	public int getNextQueueSize() {
+		return _nextQueue.length;
+	}
+
+	/**
+	 * @param i position in the next queue - 0 is the next Tetrimino
+	 * @return the shape at position i of the next queue
+	 */
+	public TetriminoShape getNext(int i) {
+		return _nextQueue[i];
+	}
+
+	/**
+	 * @return the shape of the Tetrimino in hold or null if there is none
+	 */
+	public TetriminoShape getHold() {
+		return _hold;
+	}
+
+	/**
+	 * @return the score
+	 */
+	public int getScore() {
+		return _score;
+	}
+
+	/**
+	 * @return the current level
+	 */
+	public int getCurrentLevel() {
+		return _currentLevel;
+	}
+
+	/**
+	 * @return the number of cleared lines
+	 */
+	public int getLineCount() {
+		return _lineCount;
+	}
+
+	/**
+	 * @return the number of Tetrises
+	 */
+	public int getTetrisesCount() {
+		return _tetrisesCount;
+	}
+
+	/**
+	 * Returns the time the latest control event (e.g. key press) which is reflected in this snapshot was added 
+	 * to the game. Snapshots showing the effect of the same input have the same input time.<br/>
+	 * Together with the time the snapshot is shown this gives the input to screen latency. 
+	 * @return clock time of the game's clock in ns or <code>NO_INPUT</code>
+	 */
+	public long getInputTime() {
+		return _inputCount == 0 ? NO_INPUT : getInputTime(_inputCount-1);
+	}
+
+	/**
+	 * Returns the number of measured control events reflected in this snapshot. A reader which shows only some of 
+	 * the snapshots gets all inputs since the last shown one with <code>getInputTime(n)</code> - not only the 
+	 * latest.
+	 * @return number of inputs since the start of the game
+	 */
+	public long getInputCount() {
+		return _inputCount;
+	}
+
+	/**
+	 * Returns the time input n was added to the game. Only the latest <code>INPUT_HISTORY</code> inputs are kept.
+	 * @param n number of the input starting with 0 - less than <code>getInputCount()</code>
+	 * @return clock time of the game's clock in ns or <code>NO_INPUT</code> if the input is not kept
+	 */
+	public long getInputTime(long n) {
+		if (n < 0 || n >= _inputCount || n < _inputCount - INPUT_HISTORY) return NO_INPUT;
+		return _inputTimes[(int) (n % INPUT_HISTORY)];
+	}
+
+}
@@ -64,7 +64,7 @@ public class HighScoreData {
 	 * Return singleton instance of HighScoreData 
 	 * @return
 	 */
-	static public HighScoreData getInstance() {
+	static public synchronized HighScoreData getInstance() {
 		if (HighScoreData._instance == null) {
 			HighScoreData._instance = new HighScoreData();
 		}
@@ -156,7 +156,7 @@ public class HighScoreData {
 	 * Put a new entry into the highscore table
 	 * @param newEntry
 	 */
-	public void addEntry(HighScoreEntry newEntry) {
+	public synchronized void addEntry(HighScoreEntry newEntry) {
 		_list.add(newEntry);
 		sortList();
 	}
@@ -174,7 +174,7 @@ public class HighScoreData {
 	 * @param newEntry
 	 * @return true if save was successful, false otherwise
 	 */
-	public boolean addEntryAndSave(HighScoreEntry newEntry) {
+	public synchronized boolean addEntryAndSave(HighScoreEntry newEntry) {
 		_list.add(newEntry);
 		sortList();
 		return saveFile();
@@ -184,7 +184,7 @@ public class HighScoreData {
 	 * Save the highscore file
 	 * @return true if success, false if error
 	 */
-	public boolean saveToFile() {
+	public synchronized boolean saveToFile() {
 		return saveFile();
 	}
 	
@@ -0,0 +1,108 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
+
+/**
+ * History randomizer as in Tetris The Grand Master.<br/>
+ * The randomizer remembers the last 4 shapes. A random shape which is in this history is rerolled up to a number of 
+ * times - the last roll is taken in any case. The history starts with 4 Z so S and Z are unlikely at the start 
+ * and the first shape is never S, Z or O.
+ */
+public class HistoryRandomizer implements Randomizer {
+
+	/**
+	 * Number of rolls used by the first Tetris The Grand Master
+	 */
+	public static final int TGM_ROLLS = 4;
+
+	private static final int HISTORY_LENGTH = 4;
+
+	// the first shape is one of these
+	private static final int[] FIRST_SHAPES = { 
+			TetriminoShape.I.ordinal(), 
+			TetriminoShape.J.ordinal(), 
+			TetriminoShape.L.ordinal(), 
+			TetriminoShape.T.ordinal() };
+
+	private final SplittableRandom _random;
+	private final int _rolls;
+	private final int[] _history = new int[HISTORY_LENGTH]; // ring buffer of the last shapes
+	private int _historyIndex = 0;
+	private boolean _first = true;
+
+	/**
+	 * @param random the random stream this randomizer uses exclusively
+	 * @param rolls how often a shape is rolled at most
+	 */
+	public HistoryRandomizer(SplittableRandom random, int rolls) {
+		if (rolls < 1) throw new IllegalArgumentException("HistoryRandomizer(): rolls must be >= 1 but was "+rolls);
+		_random = random;
+		_rolls = rolls;
+		Arrays.fill(_history, TetriminoShape.Z.ordinal());
+	}
+
+	/**
+	 * @see fko.tetris.game.Randomizer#next()
+	 */
+	@Override
+	public int next() {
+		int shape;
+		if (_first) {
+			shape = FIRST_SHAPES[_random.nextInt(FIRST_SHAPES.length)];
+			_first = false;
+		} else {
+			shape = _random.nextInt(SHAPES.length);
+			for (int roll = 1; roll < _rolls && inHistory(shape); roll++) {
+				shape = _random.nextInt(SHAPES.length);
+			}
+		}
+		_history[_historyIndex] = shape;
+		_historyIndex = (_historyIndex+1) % HISTORY_LENGTH;
+		return shape;
+	}
+
+	/*
+	 * true if the shape is one of the last shapes 
+	 */
+	private boolean inHistory(int shape) {
+		for (int i = 0; i < HISTORY_LENGTH; i++) {
+			if (_history[i] == shape) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @see fko.tetris.game.Randomizer#split()
+	 */
+	@Override
+	public Randomizer split() {
+		return new HistoryRandomizer(_random.split(), _rolls);
+	}
+
+}
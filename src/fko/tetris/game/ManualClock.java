@@ -0,0 +1,73 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+/**
+ * A clock which only advances when told so - for tests and headless games where time is logical instead of real 
+ * time.
+ */
+public class ManualClock implements GameClock {
+
+	private volatile long _nanoTime;
+
+	/**
+	 * Creates a clock starting at 0
+	 */
+	public ManualClock() {
+		this(0L);
+	}
+
+	/**
+	 * @param nanoTime the start time in nanoseconds
+	 */
+	public ManualClock(long nanoTime) {
+		_nanoTime = nanoTime;
+	}
+
+	/**
+	 * @see fko.tetris.game.GameClock#nanoTime()
+	 */
+	@Override
+	public long nanoTime() {
+		return _nanoTime;
+	}
+
+	/**
+	 * Advances the clock. Only one thread should advance a clock.
+	 * @param nanos time to advance in nanoseconds - must not be negative as clocks are monotonic
+	 */
+	public void advance(long nanos) {
+		if (nanos < 0) throw new IllegalArgumentException("advance(): time must not go backwards but was "+nanos);
+		_nanoTime += nanos;
+	}
+
+	/**
+	 * Advances the clock.
+	 * @param millis time to advance in milliseconds
+	 */
+	public void advanceMillis(long millis) {
+		advance(millis * 1_000_000L);
+	}
+
+}
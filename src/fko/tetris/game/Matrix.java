@@ -23,15 +23,25 @@ SOFTWARE.
  */
 package fko.tetris.game;
 
+import java.util.Arrays;
+
+import fko.tetris.tetriminos.Piece;
+import fko.tetris.tetriminos.SuperRotationSystem;
 import fko.tetris.tetriminos.Tetrimino;
-import fko.tetris.util.Coordinates;
+import fko.tetris.tetriminos.Tetrimino.Facing;
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
+import fko.tetris.tetriminos.TetriminoLayout;
 import fko.tetris.util.SimpleIntList;
 
 /**
  * This represent the internal playfield which basically consists of a background matrices of 10 columns and 40 rows
  * and a current Tetrimino.
  * The matrix coordinates start at 0,0 at the lower left cell and 9,39 with the upper right cell.
- * The background matrix contains all settled Tetriminos.
+ * The background matrix contains all settled Tetriminos.<br/>
+ * 
+ * The background is stored as a bitboard - one int per row where bit x represents column x. All collision checks are
+ * done with AND operations on these row masks. The colors of settled Minos are kept in a separate plane which is 
+ * only used for rendering.
  * 
  * From Tetris Guideline
  * Playfield is 10:22, where rows above 20 are hidden or obstructed by the field frame to trick the player into thinking
@@ -58,26 +68,96 @@ public class Matrix {
 	// convenience field for SKYLINE+BUFFERZONE
 	public static final int PLAYFIELD_HEIGHT = SKYLINE + BUFFERZONE;
 
-	// The internal data structure for the background matrix.
+	/**
+	 * Row mask of a completely filled row
+	 */
+	public static final int FULL_ROW = (1 << MATRIX_WIDTH) - 1;
+
+	// cached to avoid the array copy of TetrisColor.values() 
+	private static final TetrisColor[] COLORS = TetrisColor.values();
+
+	// The internal data structure for the background matrix - one bit mask per row, bit x is column x.
 	// All Tetriminos which are locked in place are merged into the background as Minos.
-	private TetrisColor[][] _backgroundMatrix;
+	private int[] _backgroundRows;
+
+	// The colors of the background Minos as TetrisColor ordinals - row-major (y*MATRIX_WIDTH+x).
+	// Only used for rendering. Collision checks only use _backgroundRows.
+	private byte[] _backgroundColors;
+
+	// Height of each column (row index of the highest Mino + 1, 0 if empty) - kept up to date with each change
+	private int[] _columnHeights;
+
+	// Number of Minos in each row - kept up to date with each change 
+	private int[] _rowFillCounts;
+
+	// range of rows changed since the last line clear - only these rows can have become full
+	private int _changedRowsLow = PLAYFIELD_HEIGHT;
+	private int _changedRowsHigh = -1;
+
+	// incremented with every change of the background - lets snapshots share an unchanged background
+	private int _backgroundVersion = 0;
+
+	// Zobrist hash of the background - kept up to date with each change
+	private long _backgroundHash = 0L;
+
+	// the last calculated drop distance - valid as long as background version and piece are the same
+	private int _dropCacheVersion = -1;
+	private int _dropCachePiece = Piece.NONE;
+	private int _dropCacheDistance;
+
+	// Undo stack for place() / undo(). All arrays are indexed by the stack depth and grow on demand so placing 
+	// and undoing does not allocate once the maximum search depth has been reached.
+	private int _undoDepth = 0;
+	private TetriminoLayout[] _undoLayout = new TetriminoLayout[UNDO_INITIAL_DEPTH];
+	private int[] _undoX = new int[UNDO_INITIAL_DEPTH];
+	private int[] _undoY = new int[UNDO_INITIAL_DEPTH];
+	private int[] _undoChangedRowsLow = new int[UNDO_INITIAL_DEPTH];
+	private int[] _undoChangedRowsHigh = new int[UNDO_INITIAL_DEPTH];
+	private long[] _undoHash = new long[UNDO_INITIAL_DEPTH];
+	private int[] _undoHeights = new int[UNDO_INITIAL_DEPTH*MATRIX_WIDTH];
+	private int[] _undoClearedCount = new int[UNDO_INITIAL_DEPTH];
+	private int[] _undoClearedRows = new int[UNDO_INITIAL_DEPTH*TetriminoLayout.MINOS];
+	private byte[] _undoClearedColors = new byte[UNDO_INITIAL_DEPTH*TetriminoLayout.MINOS*MATRIX_WIDTH];
+	private static final int UNDO_INITIAL_DEPTH = 8;
 
 	// The current Tetrimino
-	private Tetrimino _currentTetrimino;
+	private int _currentPiece = Piece.NONE;
 
 	// The last Tetrimino before the last merge
-	private Tetrimino _lastTetrimino;
+	private int _lastPiece = Piece.NONE;
 
 	// lines marked for clearing - call clearMarkedLines() to delete these lines
 	private SimpleIntList _markedLineClears;
 
 	/**
 	 * Generates a new Playfield with default width and height
-	 * @param _backgroundMatrix
 	 */
 	public Matrix() {
-		this._backgroundMatrix = new TetrisColor[MATRIX_WIDTH][PLAYFIELD_HEIGHT];
-		clearMatrix(_backgroundMatrix);
+		this._backgroundRows = new int[PLAYFIELD_HEIGHT];
+		this._backgroundColors = new byte[MATRIX_WIDTH*PLAYFIELD_HEIGHT];
+		this._columnHeights = new int[MATRIX_WIDTH];
+		this._rowFillCounts = new int[PLAYFIELD_HEIGHT];
+		this._markedLineClears = new SimpleIntList(PLAYFIELD_HEIGHT);
+		clearMatrix();
+	}
+
+	/**
+	 * Generates a new Matrix with the given background and no current Tetrimino.
+	 * @param colors TetrisColor ordinals of the background - row-major (y*MATRIX_WIDTH+x) as in 
+	 * <code>copyBackgroundColors()</code> 
+	 */
+	Matrix(byte[] colors) {
+		this();
+		System.arraycopy(colors, 0, _backgroundColors, 0, _backgroundColors.length);
+		for (int y = 0; y < PLAYFIELD_HEIGHT; y++) {
+			for (int x = 0; x < MATRIX_WIDTH; x++) {
+				if (colors[y*MATRIX_WIDTH + x] == 0) continue;
+				_backgroundRows[y] |= 1 << x;
+				_rowFillCounts[y]++;
+				_columnHeights[x] = y+1;
+			}
+		}
+		_backgroundHash = hashRows(0, PLAYFIELD_HEIGHT);
 	}
 
 	/**
@@ -88,245 +168,220 @@ public class Matrix {
 	 * S-Tetrimino and Z-Tetrimino. The I-Tetrimino and O-Tetrimino are exactly centered horizontally at generation. 
 	 * The I-Tetrimino is generated on the 21st row (not 22nd), stretching from the 4th to 7th cells (4, 21) - (7, 21),
 	 * and the O-Tetrimino is generated on the 5th and 6th cell (5, 21) - (6, 21).
-	 * @param next
+	 * @param piece the Tetrimino to spawn with its start position (see <code>Piece.spawn()</code>)
 	 * @return true if collision detected - false otherwise
 	 */
-	public synchronized boolean spawn(Tetrimino next) {
-		int[][] tMatrix = next.getMatrix(next.getCurrentOrientation());
-		// define spawn point - Tetrimino have a defined starting point which should be placed on 5:21
-		Coordinates startPoint = next.getCurrentPosition();
-		// loop through the Tetrimino matrix and check for collision 
-		for (int yi = 0; yi < tMatrix.length; yi++) {
-			for (int xi = 0; xi < tMatrix[yi].length; xi++) {
-				// check for collision
-				if (tMatrix[yi][xi] == 1 
-						&& _backgroundMatrix[startPoint.x+xi][startPoint.y-yi-1] != TetrisColor.EMPTY) {
-					return true; // collision
-				}
-			}
+	public synchronized boolean spawn(int piece) {
+		if (collides(piece)) {
+			return true; // collision
 		}
 		// no collision so set this as new current Tetrimino
-		_currentTetrimino = next;
+		_currentPiece = piece;
 		return false; // no collision
 	}
 
 	/**
-	 * Move the current Tetrimino down one cell and checks if it has landed on a surface.<br/>
-	 * @return true if landed on surface
+	 * Spawns a new Tetrimino at the position of the given Tetrimino.<br/>
+	 * Only shape, facing and position are used - later changes to the Tetrimino object do not change the Matrix.
+	 * @param next
+	 * @return true if collision detected - false otherwise
 	 */
-	public boolean moveDown() {
-		return moveDown(_currentTetrimino);
+	public boolean spawn(Tetrimino next) {
+		return spawn(next.toPiece());
 	}
-	
+
 	/**
-	 * Move a Tetrimino down one cell and checks if it has landed on a surface.<br/>
+	 * Move the current Tetrimino down one cell and checks if it has landed on a surface.<br/>
 	 * @return true if landed on surface
 	 */
-	public boolean moveDown(Tetrimino tetrimino) {
-		if (!canMoveDown(tetrimino)) return true; // check if move is possible or return true for collision 
-		doMoveDown(tetrimino); // do the actual move
+	public synchronized boolean moveDown() {
+		if (!canMoveDown()) return true; // check if move is possible or return true for collision 
+		_currentPiece = Piece.move(_currentPiece, 0, -1); // do the actual move
 		return false;
 	}
 
 	/**
-	 * Check if the current Tetrimino can move down
-	 * @return
-	 */
-	public boolean canMoveDown() {
-		return canMoveDown(_currentTetrimino);
+	 * Moves the current Tetrimino down several rows at once - e.g. for high gravity - but not further than it can 
+	 * fall.
+	 * @param rows
+	 * @return the number of rows the Tetrimino has moved
+	 */
+	public synchronized int moveDown(int rows) {
+		if (_currentPiece == Piece.NONE) return 0;
+		final int distance = Math.min(rows, dropDistance(_currentPiece));
+		_currentPiece = Piece.move(_currentPiece, 0, -distance);
+		return distance;
 	}
 
 	/**
-	 * Check if a Tetrimino can move down one cell<br/>
-	 * @param _currentTetrimino2 
+	 * Check if the current Tetrimino can move down
 	 * @return true if move is possible, false if landed on surface
 	 */
-	public boolean canMoveDown(Tetrimino tetrimino) {
-		int[][] tMatrix = tetrimino.getMatrix(tetrimino.getCurrentOrientation());
-		// loop through the Tetrimino matrix and check for surface below 
-		for (int yi = 0; yi < tMatrix.length; yi++) {
-			for (int xi = 0; xi < tMatrix[yi].length; xi++) {
-				// check for collision in cell below => -2 instead of -1
-				if (tMatrix[yi][xi] == 1 
-						&& (tetrimino.getCurrentPosition().y-yi-2 < 0 
-						|| _backgroundMatrix[tetrimino.getCurrentPosition().x+xi][tetrimino.getCurrentPosition().y-yi-2] != TetrisColor.EMPTY)) {
-					return false; // collision
-				}
-			}
-		}
-		return true; // no collisions so we can move down
-	}
-
-	/*
-	 * actually commit the move
-	 */
-	private synchronized void doMoveDown(Tetrimino tetrimino) {
-		tetrimino.getCurrentPosition().y -= 1;
+	public boolean canMoveDown() {
+		return _currentPiece != Piece.NONE && dropDistance(_currentPiece) > 0;
 	}
 
 	/**
 	 * Drops the Tetrimino and returns the lines dropped.
 	 * @return number of lines the Tetrimino was dropped
 	 */
-	public int drop() {
-		int counter = 0;
-		while (!moveDown()) {
-			counter++;
-		}
-		return counter;
+	public synchronized int drop() {
+		final int distance = dropDistance(_currentPiece);
+		_currentPiece = Piece.move(_currentPiece, 0, -distance);
+		return distance;
 	}
 
 	/**
-	 * Move the current Tetrimino left (-1) or right (1) one cell, If blocked does not move and returns true<br/>
-	 * @return true if surface on the left or right
-	 * @param direction
-	 */
-	public boolean moveSideway(int direction) {
-		return moveSideway(direction, _currentTetrimino);
+	 * Calculates how many rows a Tetrimino can fall until it lands on a surface - e.g. for hard drops and the 
+	 * ghost piece.<br/>
+	 * For each column of the Tetrimino the distance between its lowest Mino and the column height is the free fall 
+	 * in this column - the smallest of these is the drop distance. If the Tetrimino is below the surface of a column 
+	 * (e.g. it was moved under an overhang) we fall back to moving it down row by row.<br/>
+	 * The result is cached until the background or the piece changes.
+	 * @param piece
+	 * @return number of rows the piece can fall
+	 */
+	public synchronized int dropDistance(int piece) {
+		if (_dropCacheVersion != _backgroundVersion || _dropCachePiece != piece) {
+			_dropCacheDistance = dropDistance(Piece.layout(piece), Piece.x(piece), Piece.y(piece));
+			_dropCacheVersion = _backgroundVersion;
+			_dropCachePiece = piece;
+		}
+		return _dropCacheDistance;
 	}
 
-	/**
-	 * Move a Tetrimino left (-1) or right (1) one cell, If blocked does not move and returns true<br/>
-	 * @param direction
-	 * @param tetrimino
- 	 * @return true if surface on the left or right
-	 */
-	public boolean moveSideway(int direction, Tetrimino tetrimino) {
-		if (!canMoveSideways(direction, tetrimino)) return true; // check if move is possible or return true for collision 
-		doMoveSideways(direction, tetrimino); // do the actual move
-		return false;
-	}
-	
-	/**
-	 * Check of the Tetrimino can move left or right one cell<br/>
-	 * @param direction 
-	 * @return true if move is possible, false if landed on surface
-	 */
-	public boolean canMoveSideways(int direction, Tetrimino tetrimino) {
-		int[][] tMatrix = tetrimino.getMatrix(tetrimino.getCurrentOrientation());
-		// loop through the Tetrimino matrix and check for surface on the left
-		for (int yi = 0; yi < tMatrix.length; yi++) {
-			for (int xi = 0; xi < tMatrix[yi].length; xi++) {
-				// check for collision in cell left 
-				if (tMatrix[yi][xi] == 1) { // check for all filled parts of the matrix
-					if (direction < 0) { // left wall
-						if (tetrimino.getCurrentPosition().x+xi  <= 0) {
-							return false;
-						}
-					} else if (direction > 0) { // right wall
-						if (tetrimino.getCurrentPosition().x+xi  >= MATRIX_WIDTH-1) {
-							return false;
-						}
-					}
-					// other piece is blocking the way
-					if (_backgroundMatrix[tetrimino.getCurrentPosition().x+xi+direction][tetrimino.getCurrentPosition().y-yi-1] != TetrisColor.EMPTY) {
-						return false;
-					}
+	private int dropDistance(TetriminoLayout layout, int x, int y) {
+		int distance = PLAYFIELD_HEIGHT;
+		for (int xi = layout.getMinX(); xi <= layout.getMaxX(); xi++) {
+			if (layout.getBottom(xi) < 0) continue;
+			final int d = y-layout.getBottom(xi)-1 - _columnHeights[x+xi];
+			if (d < 0) { // under the surface of this column 
+				distance = 0;
+				while (!collides(layout, x, y-distance-1)) {
+					distance++;
 				}
+				return distance;
 			}
+			if (d < distance) distance = d;
 		}
-		return true; // no collisions so we can move down
+		return distance;
 	}
-	
-	/*
-	 * actually commit the move
+
+	/**
+	 * Move the current Tetrimino left (-1) or right (1) one cell, If blocked does not move and returns true<br/>
+	 * @return true if surface on the left or right
+	 * @param direction
 	 */
-	private synchronized void doMoveSideways(int direction, Tetrimino tetrimino) {
-		tetrimino.getCurrentPosition().x += direction;
+	public synchronized boolean moveSideway(int direction) {
+		final int moved = Piece.move(_currentPiece, direction, 0);
+		if (collides(moved)) return true; // check if move is possible or return true for collision 
+		_currentPiece = moved; // do the actual move
+		return false;
 	}
 	
 	/**
-	 * Turns a Tetrimino after collision checks.<br/> 
-	 * Uses Classic Rotation System. 
+	 * Turns the current Tetrimino after collision checks.<br/> 
+	 * Uses the Super Rotation System - if the plain rotation collides up to 4 wall kicks are tried. 
 	 * @param direction
 	 * @return true if turn would cause collision - Tetrimino is then not turned
 	 */
-	public boolean turnMove(int direction) {
-		return turnMove(direction, _currentTetrimino);
+	public synchronized boolean turnMove(int direction) {
+		final int turned = turn(_currentPiece, direction);
+		if (turned == Piece.NONE) return true;
+		_currentPiece = turned;
+		return false;
 	}
 
 	/**
-	 * Turns a Tetrimino after collision checks.<br/> 
-	 * Uses Classic Rotation System. 
-	 * TODO: Implement Super Rotation System
-	 * @param direction
-	 * @param tetrimino
-	 * @return true if turn would cause collision - Tetrimino is then not turned
-	 */
-	public boolean turnMove(int direction, Tetrimino tetrimino) {
-		// first create a temp copy of the current Tetrimino we can test turns with
-		Tetrimino tmp = tetrimino.clone();
-		if (canTurn(tmp, direction)) {
-			doTurn(direction, tetrimino);
+	 * Tests turning a piece with the Super Rotation System against the background without changing anything.<br/>
+	 * The candidate positions from the kick table are tested in order and the first one without collision is 
+	 * returned.
+	 * @param piece
+	 * @param direction >0 turn right/clockwise, <0 left/counter clockwise
+	 * @return the turned (and maybe kicked) piece or <code>Piece.NONE</code> if all positions collide
+	 */
+	public int turn(int piece, int direction) {
+		final int tests = SuperRotationSystem.tests(Piece.shape(piece));
+		for (int test = 0; test < tests; test++) {
+			final int turned = SuperRotationSystem.kick(piece, direction, test);
+			if (!collides(turned)) return turned;
 		}
-		return false;
+		return Piece.NONE;
 	}
 
-	/**
-	 * @param tmp 
-	 * @param direction
-	 * @return
-	 */
-	private boolean canTurn(Tetrimino tmp, int direction) {
-		doTurn(direction, tmp);
-		// check for collisions
-		int[][] tMatrix = tmp.getMatrix(tmp.getCurrentOrientation());
-		for (int yi = 0; yi < tMatrix.length; yi++) {
-			for (int xi = 0; xi < tMatrix[yi].length; xi++) {
-				// check for collision in cell left 
-				if (tMatrix[yi][xi] == 1) { // check for all filled parts of the matrix
-					if (tmp.getCurrentPosition().x+xi  < 0) { // outside left wall
-						return false;
-					}
-					if (tmp.getCurrentPosition().x+xi  > MATRIX_WIDTH-1) { // outside right wall
-						return false;
-					}
-					if (tmp.getCurrentPosition().y-yi-1  < 0) { // below base line
-						return false;
-					}
-					// other piece is blocking the cell
-					if (_backgroundMatrix[tmp.getCurrentPosition().x+xi][tmp.getCurrentPosition().y-yi-1] != TetrisColor.EMPTY) {
-						return false;
-					}
-				}
+	/*
+	 * Checks if a piece would overlap a wall, the floor or any Mino in the background.
+	 */
+	private boolean collides(int piece) {
+		return collides(Piece.layout(piece), Piece.x(piece), Piece.y(piece));
+	}
+
+	/*
+	 * Checks if a Tetrimino layout placed with its upper left corner at x,y would overlap a wall, the floor or 
+	 * any Mino in the background.
+	 * Walls and floor are checked against the bounding box, then each filled row mask of the Tetrimino is ANDed 
+	 * with its background row.
+	 */
+	private boolean collides(TetriminoLayout layout, int x, int y) {
+		if (x+layout.getMinX() < 0 || x+layout.getMaxX() >= MATRIX_WIDTH) return true; // outside left or right wall
+		if (y-layout.getMaxY()-1 < 0) return true; // below base line
+		if (y-layout.getMinY()-1 >= PLAYFIELD_HEIGHT) return true; // above the buffer zone
+		for (int yi = layout.getMinY(); yi <= layout.getMaxY(); yi++) {
+			if ((_backgroundRows[y-yi-1] & shiftRowMask(layout.getRowMask(yi), x)) != 0) {
+				return true; // other piece is blocking the cell
 			}
 		}
-		return true; // no collisions so we can move down
+		return false;
 	}
 
-	/**
-	 * @param direction
-	 * @param tetrimino
+	/*
+	 * Shifts a Tetrimino row mask to column x of the matrix.
+	 * The caller has to make sure that no Mino ends up outside of the walls. 
 	 */
-	private synchronized void doTurn(int direction, Tetrimino tetrimino) {
-		tetrimino.turn(direction);
+	private static int shiftRowMask(int rowMask, int x) {
+		return x >= 0 ? rowMask << x : rowMask >>> -x;
 	}
 
 	/**
 	 * Merges the current Tetrimino in play into the background
 	 */
-	public void merge() {
-		merge(_currentTetrimino);
-		_lastTetrimino = _currentTetrimino; // save the last 
-		_currentTetrimino = null; // erase the current tetrimino
+	public synchronized void merge() {
+		final int piece = _currentPiece;
+		merge(Piece.layout(piece), Piece.x(piece), Piece.y(piece), (byte) TetrisColor.of(Piece.shape(piece)).ordinal());
+		_lastPiece = piece; // save the last 
+		_currentPiece = Piece.NONE; // erase the current tetrimino
 	}
 
-	/**
-	 * Merges a Tetrimino in play into the background
-	 */
-	public synchronized void merge(Tetrimino tetrimino) {
-		int[][] tMatrix = tetrimino.getMatrix(tetrimino.getCurrentOrientation());
-		// loop through the Tetrimino matrix and check for surface on the left
-		for (int yi = 0; yi < tMatrix.length; yi++) {
-			for (int xi = 0; xi < tMatrix[yi].length; xi++) {
-				// check for collision in cell left 
-				if (tMatrix[yi][xi] == 1) { // check for all filled parts of the matrix
-					assert _backgroundMatrix[tetrimino.getCurrentPosition().x+xi][tetrimino.getCurrentPosition().y-yi-1] == TetrisColor.EMPTY;
-					// write to background
-					_backgroundMatrix[tetrimino.getCurrentPosition().x+xi][tetrimino.getCurrentPosition().y-yi-1] = tetrimino.getColor(); 
-				}
-			}
+	/*
+	 * Merges the Minos of a layout at the given position into the background 
+	 */
+	private void merge(TetriminoLayout layout, int x, int y, byte color) {
+		// write the row masks to the background
+		for (int yi = layout.getMinY(); yi <= layout.getMaxY(); yi++) {
+			final int mask = shiftRowMask(layout.getRowMask(yi), x);
+			assert (_backgroundRows[y-yi-1] & mask) == 0;
+			_backgroundRows[y-yi-1] |= mask;
+			_rowFillCounts[y-yi-1] += Integer.bitCount(mask);
+		}
+		// and the colors and heights of the 4 Minos
+		for (int i = 0; i < TetriminoLayout.MINOS; i++) {
+			final int mx = x+layout.getMinoX(i);
+			final int my = y-layout.getMinoY(i)-1;
+			_backgroundColors[my*MATRIX_WIDTH + mx] = color;
+			_backgroundHash ^= Zobrist.cell(mx, my, color);
+			if (my >= _columnHeights[mx]) _columnHeights[mx] = my+1;
 		}
+		// remember the rows we touched for markLinesToBeCleared()
+		markRowsChanged(y-layout.getMaxY()-1, y-layout.getMinY()-1);
+		_backgroundVersion++;
+	}
+
+	/*
+	 * extends the range of rows which might have become full 
+	 */
+	private void markRowsChanged(int low, int high) {
+		if (low < _changedRowsLow) _changedRowsLow = low;
+		if (high > _changedRowsHigh) _changedRowsHigh = high;
 	}
 
 	/**
@@ -334,17 +389,10 @@ public class Matrix {
 	 * @return number of lines which have been marked
 	 */
 	public synchronized int markLinesToBeCleared() {
-		// loop through the Tetrimino matrix and check for full lines
-		_markedLineClears = new SimpleIntList(PLAYFIELD_HEIGHT);
-		for (int yi = 0; yi < PLAYFIELD_HEIGHT; yi++) {
-			boolean foundHole = false;
-			for (int xi = 0; xi < MATRIX_WIDTH; xi++) {
-				if (_backgroundMatrix[xi][yi] == TetrisColor.EMPTY) {
-					foundHole = true;
-					break;
-				}
-			}
-			if (!foundHole) _markedLineClears.add(yi);
+		// only rows changed since the last line clear can be full - usually the <=4 rows of the last merge
+		_markedLineClears.clear();
+		for (int yi = _changedRowsLow; yi <= _changedRowsHigh; yi++) {
+			if (_rowFillCounts[yi] == MATRIX_WIDTH) _markedLineClears.add(yi);
 		}
 		return _markedLineClears.size();
 	}
@@ -354,34 +402,256 @@ public class Matrix {
 	 * @return number of lines which have been deleted
 	 */
 	public synchronized int clearMarkedLines() {
-		// iterate upwards through the marked lines and shift all Minos above the lines one down
-		// as we created the list upwards the list should be correctly sorted
-		int clearedCounter = 0; // as we delete rows the rows of minos shift down and the index in the 
-								// _markedLinesCleares need to be decreased by 1
-		for (int i : _markedLineClears) {
-			for (int y=i-clearedCounter;y<PLAYFIELD_HEIGHT-1;y++) {
-				for(int x=0;x<MATRIX_WIDTH;x++) {
-					// copy the cell above to the current cell
-					_backgroundMatrix[x][y] = _backgroundMatrix[x][y+1];
+		// collect the marked lines as a bit mask (bit y = row y) and remove them all in one pass
+		int clearedRows = 0;
+		for (int i = 0; i < _markedLineClears.size(); i++) {
+			clearedRows |= 1 << _markedLineClears.get(i);
+		}
+		final int clearedCounter = clearedRows == 0 ? 0 : removeRows(clearedRows);
+		updateHeightsAfterClear(clearedCounter);
+		if (clearedCounter > 0) _backgroundVersion++;
+		_markedLineClears.clear();
+		return clearedCounter;		
+	}
+
+	/*
+	 * @return the row index of the highest Mino + 1 - 0 if the background is empty 
+	 */
+	private int getStackHeight() {
+		int top = 0;
+		for (int x = 0; x < MATRIX_WIDTH; x++) {
+			if (_columnHeights[x] > top) top = _columnHeights[x];
+		}
+		return top;
+	}
+
+	/*
+	 * XOR of the Zobrist keys of all Minos in the rows from (inclusive) to (exclusive)
+	 */
+	private long hashRows(int from, int to) {
+		long hash = 0L;
+		for (int y = from; y < to; y++) {
+			int mask = _backgroundRows[y];
+			while (mask != 0) {
+				final int x = Integer.numberOfTrailingZeros(mask);
+				hash ^= Zobrist.cell(x, y, _backgroundColors[y*MATRIX_WIDTH + x]);
+				mask &= mask-1;
+			}
+		}
+		return hash;
+	}
+
+	/*
+	 * Removes all rows set in the bit mask (bit y = row y) in a single pass from the lowest cleared row upwards.
+	 * Each remaining row is moved down at most once and only rows up to the top of the stack are touched.
+	 * The moved rows are rehashed.  
+	 * Returns the number of removed rows.
+	 */
+	private int removeRows(int clearedRows) {
+		final int low = Integer.numberOfTrailingZeros(clearedRows);
+		final int top = getStackHeight();
+		_backgroundHash ^= hashRows(low, top);
+		int dst = low;
+		for (int src = low; src < top; src++) {
+			if ((clearedRows & (1 << src)) != 0) continue;
+			moveRow(src, dst++);
+		}
+		// the rows between the new and the old top are empty now
+		Arrays.fill(_backgroundRows, dst, top, 0);
+		Arrays.fill(_rowFillCounts, dst, top, 0);
+		Arrays.fill(_backgroundColors, dst*MATRIX_WIDTH, top*MATRIX_WIDTH, (byte) 0);
+		_backgroundHash ^= hashRows(low, dst);
+		return top-dst;
+	}
+
+	/*
+	 * copies a row of the background to another row 
+	 */
+	private void moveRow(int from, int to) {
+		_backgroundRows[to] = _backgroundRows[from];
+		_rowFillCounts[to] = _rowFillCounts[from];
+		System.arraycopy(_backgroundColors, from*MATRIX_WIDTH, _backgroundColors, to*MATRIX_WIDTH, MATRIX_WIDTH);
+	}
+
+	/*
+	 * All cleared rows were below the top of every column - so each column shrinks by the number of cleared 
+	 * rows unless its top Mino was in a cleared row. 
+	 */
+	private void updateHeightsAfterClear(int clearedCounter) {
+		if (clearedCounter > 0) {
+			for (int x = 0; x < MATRIX_WIDTH; x++) {
+				int h = _columnHeights[x] - clearedCounter;
+				while (h > 0 && (_backgroundRows[h-1] & (1 << x)) == 0) h--;
+				_columnHeights[x] = h;
+			}
+		}
+		_changedRowsLow = PLAYFIELD_HEIGHT;
+		_changedRowsHigh = -1;
+	}
+
+	/**
+	 * Places a Tetrimino directly into the background - used by bots to search placements without copying the 
+	 * Matrix.<br/>
+	 * The Tetrimino is dropped straight down from the top of the buffer zone at column x, merged and all full lines 
+	 * are cleared. The current Tetrimino is not touched. Whether the position can actually be reached by moving the 
+	 * Tetrimino is not checked.<br/>
+	 * Each successful call must be reverted with <code>undo()</code> in reverse order. The changes are recorded on an 
+	 * internal stack which does not allocate once it has grown to the maximum search depth.
+	 * @param shape
+	 * @param orientation
+	 * @param x column of the upper left corner of the Tetrimino matrix
+	 * @return number of cleared lines or -1 if the Tetrimino does not fit at column x (nothing is recorded then) 
+	 */
+	public synchronized int place(TetriminoShape shape, Facing orientation, int x) {
+		return place(TetriminoLayout.get(shape, orientation), shape, x, PLAYFIELD_HEIGHT);
+	}
+
+	/**
+	 * Like <code>place(shape, orientation, x)</code> but the piece is dropped straight down from its own position - 
+	 * e.g. a position the current Tetrimino has reached by turning and moving.<br/>
+	 * Each successful call must be reverted with <code>undo()</code>.
+	 * @param piece
+	 * @return number of cleared lines or -1 if the piece does not fit at its position (nothing is recorded then) 
+	 */
+	public synchronized int place(int piece) {
+		return place(Piece.layout(piece), Piece.shape(piece), Piece.x(piece), Piece.y(piece));
+	}
+
+	private int place(TetriminoLayout layout, TetriminoShape shape, int x, int y) {
+		if (collides(layout, x, y)) return -1;
+		y -= dropDistance(layout, x, y);
+
+		// record everything we need to revert this
+		ensureUndoCapacity();
+		final int d = _undoDepth++;
+		_undoLayout[d] = layout;
+		_undoX[d] = x;
+		_undoY[d] = y;
+		_undoChangedRowsLow[d] = _changedRowsLow;
+		_undoChangedRowsHigh[d] = _changedRowsHigh;
+		_undoHash[d] = _backgroundHash;
+		System.arraycopy(_columnHeights, 0, _undoHeights, d*MATRIX_WIDTH, MATRIX_WIDTH);
+
+		merge(layout, x, y, (byte) TetrisColor.of(shape).ordinal());
+
+		// clear full lines - only the rows of the Tetrimino can have become full
+		// the full rows are recorded bottom up with their index before any row was removed  
+		int cleared = 0;
+		int clearedRows = 0;
+		for (int yi = layout.getMaxY(); yi >= layout.getMinY(); yi--) {
+			final int row = y-yi-1;
+			if (_rowFillCounts[row] != MATRIX_WIDTH) continue;
+			final int slot = d*TetriminoLayout.MINOS + cleared;
+			_undoClearedRows[slot] = row;
+			System.arraycopy(_backgroundColors, row*MATRIX_WIDTH, _undoClearedColors, slot*MATRIX_WIDTH, MATRIX_WIDTH);
+			clearedRows |= 1 << row;
+			cleared++;
+		}
+		_undoClearedCount[d] = cleared;
+		if (cleared > 0) {
+			removeRows(clearedRows);
+			updateHeightsAfterClear(cleared);
+		}
+		return cleared;
+	}
+
+	/**
+	 * Reverts the last <code>place()</code> exactly - including all cleared lines.
+	 * @throws IllegalStateException if there is nothing to undo
+	 */
+	public synchronized void undo() {
+		if (_undoDepth == 0) throw new IllegalStateException("undo(): Nothing to undo");
+		final int d = --_undoDepth;
+
+		// re-insert the cleared rows in one pass from the top down - each row above the lowest cleared row 
+		// moves up by the number of cleared rows below it
+		final int cleared = _undoClearedCount[d];
+		if (cleared > 0) {
+			final int base = d*TetriminoLayout.MINOS;
+			final int low = _undoClearedRows[base];
+			int k = cleared-1; // the highest cleared row not yet re-inserted
+			for (int row = getStackHeight()-1+cleared; row >= low; row--) {
+				if (k >= 0 && _undoClearedRows[base+k] == row) {
+					_backgroundRows[row] = FULL_ROW;
+					_rowFillCounts[row] = MATRIX_WIDTH;
+					System.arraycopy(_undoClearedColors, (base+k)*MATRIX_WIDTH, _backgroundColors, row*MATRIX_WIDTH, 
+							MATRIX_WIDTH);
+					k--;
+				} else {
+					moveRow(row-k-1, row);
 				}
 			}
-			clearedCounter++;
 		}
-		int counter = _markedLineClears.size();
-		_markedLineClears.clear();
-		return counter;		
+
+		// remove the Minos of the placed Tetrimino
+		final TetriminoLayout layout = _undoLayout[d];
+		final int x = _undoX[d];
+		final int y = _undoY[d];
+		for (int yi = layout.getMinY(); yi <= layout.getMaxY(); yi++) {
+			final int mask = shiftRowMask(layout.getRowMask(yi), x);
+			_backgroundRows[y-yi-1] &= ~mask;
+			_rowFillCounts[y-yi-1] -= Integer.bitCount(mask);
+		}
+		for (int i = 0; i < TetriminoLayout.MINOS; i++) {
+			_backgroundColors[(y-layout.getMinoY(i)-1)*MATRIX_WIDTH + x+layout.getMinoX(i)] = 0;
+		}
+
+		System.arraycopy(_undoHeights, d*MATRIX_WIDTH, _columnHeights, 0, MATRIX_WIDTH);
+		_changedRowsLow = _undoChangedRowsLow[d];
+		_changedRowsHigh = _undoChangedRowsHigh[d];
+		_backgroundHash = _undoHash[d];
+		_undoLayout[d] = null;
+		_backgroundVersion++;
+	}
+
+	/**
+	 * Checks if a Tetrimino fits at the given position without overlapping walls, floor or background.
+	 * @param shape
+	 * @param orientation
+	 * @param x column of the upper left corner of the Tetrimino matrix
+	 * @param y row above the upper left corner of the Tetrimino matrix (as in <code>Tetrimino.getCurrentPosition()</code>)
+	 * @return true if the Tetrimino fits
+	 */
+	public boolean fits(TetriminoShape shape, Facing orientation, int x, int y) {
+		return !collides(TetriminoLayout.get(shape, orientation), x, y);
+	}
+
+	/**
+	 * Checks if a piece fits at its position without overlapping walls, floor or background.
+	 * @param piece
+	 * @return true if the piece fits
+	 */
+	public boolean fits(int piece) {
+		return piece != Piece.NONE && !collides(piece);
+	}
+
+	/*
+	 * grows the undo stack if it is full
+	 */
+	private void ensureUndoCapacity() {
+		if (_undoDepth < _undoLayout.length) return;
+		final int depth = _undoLayout.length*2;
+		_undoLayout = Arrays.copyOf(_undoLayout, depth);
+		_undoX = Arrays.copyOf(_undoX, depth);
+		_undoY = Arrays.copyOf(_undoY, depth);
+		_undoChangedRowsLow = Arrays.copyOf(_undoChangedRowsLow, depth);
+		_undoChangedRowsHigh = Arrays.copyOf(_undoChangedRowsHigh, depth);
+		_undoHash = Arrays.copyOf(_undoHash, depth);
+		_undoHeights = Arrays.copyOf(_undoHeights, depth*MATRIX_WIDTH);
+		_undoClearedCount = Arrays.copyOf(_undoClearedCount, depth);
+		_undoClearedRows = Arrays.copyOf(_undoClearedRows, depth*TetriminoLayout.MINOS);
+		_undoClearedColors = Arrays.copyOf(_undoClearedColors, depth*TetriminoLayout.MINOS*MATRIX_WIDTH);
 	}
 
 	/**
 	 * Initializes all fields with EMPTY 
 	 */
-	private synchronized void clearMatrix(TetrisColor[][] m) {
-		// iterate through all cells and initialize with zero
-		for (int yi = 0; yi < PLAYFIELD_HEIGHT; yi++) {
-			for (int xi = 0; xi < MATRIX_WIDTH; xi++) {
-				m[xi][yi] = TetrisColor.EMPTY;
-			}
-		}
+	private synchronized void clearMatrix() {
+		Arrays.fill(_backgroundRows, 0);
+		Arrays.fill(_backgroundColors, (byte) TetrisColor.EMPTY.ordinal());
+		Arrays.fill(_columnHeights, 0);
+		Arrays.fill(_rowFillCounts, 0);
+		_backgroundHash = 0L;
 	}
 
 	/**
@@ -391,7 +661,107 @@ public class Matrix {
 	 * @return TetrisCOlor of cell
 	 */
 	public TetrisColor getCell(int x, int y) {
-		return _backgroundMatrix[x][y];
+		return COLORS[_backgroundColors[y*MATRIX_WIDTH + x]];
+	}
+
+	/**
+	 * Sets a single cell of the background. Setting EMPTY removes the Mino.<br/>
+	 * Used to set up a Matrix for puzzles or tests - regular game play only uses merge(). 
+	 * @param x - starts at 0 to width-1
+	 * @param y - starts at 0 to height-1
+	 * @param color
+	 */
+	public synchronized void setCell(int x, int y, TetrisColor color) {
+		final boolean wasOccupied = isOccupied(x, y);
+		if (color == TetrisColor.EMPTY) {
+			_backgroundRows[y] &= ~(1 << x);
+			if (wasOccupied) _rowFillCounts[y]--;
+			if (y+1 == _columnHeights[x]) { // removed the top Mino - find the next one below 
+				int h = y;
+				while (h > 0 && (_backgroundRows[h-1] & (1 << x)) == 0) h--;
+				_columnHeights[x] = h;
+			}
+		} else {
+			_backgroundRows[y] |= 1 << x;
+			if (!wasOccupied) _rowFillCounts[y]++;
+			if (y >= _columnHeights[x]) _columnHeights[x] = y+1;
+			markRowsChanged(y, y);
+		}
+		_backgroundHash ^= Zobrist.cell(x, y, _backgroundColors[y*MATRIX_WIDTH + x]) ^ Zobrist.cell(x, y, color.ordinal());
+		_backgroundColors[y*MATRIX_WIDTH + x] = (byte) color.ordinal();
+		_backgroundVersion++;
+	}
+
+	/**
+	 * Checks if a cell of the background is occupied by a Mino.
+	 * @param x - starts at 0 to width-1
+	 * @param y - starts at 0 to height-1
+	 * @return true if cell is occupied
+	 */
+	public boolean isOccupied(int x, int y) {
+		return (_backgroundRows[y] & (1 << x)) != 0;
+	}
+
+	/**
+	 * Returns the bit mask of a background row. Bit x is set when column x is occupied.
+	 * @param y - starts at 0 to height-1
+	 * @return row mask
+	 */
+	public int getRowMask(int y) {
+		return _backgroundRows[y];
+	}
+
+	/**
+	 * Returns the height of a column - the row index of its highest Mino + 1 or 0 if the column is empty.<br/>
+	 * Kept up to date incrementally so this is free for evaluations. 
+	 * @param x - starts at 0 to width-1
+	 * @return column height
+	 */
+	public int getColumnHeight(int x) {
+		return _columnHeights[x];
+	}
+
+	/**
+	 * Returns the number of Minos in a row of the background.
+	 * @param y - starts at 0 to height-1
+	 * @return number of Minos in the row
+	 */
+	public int getRowFillCount(int y) {
+		return _rowFillCounts[y];
+	}
+
+	/**
+	 * Returns the Zobrist hash of the background. Equal backgrounds (including the colors) have equal hashes.
+	 * @return hash of the background
+	 */
+	public long getBackgroundHash() {
+		return _backgroundHash;
+	}
+
+	/**
+	 * Returns the Zobrist hash of the background and the current Tetrimino.<br/>
+	 * The key of the current Tetrimino only depends on its shape, facing and position so it is simply 
+	 * combined with the background hash when asked for.
+	 * @return hash of background and current Tetrimino
+	 */
+	public synchronized long getHash() {
+		final int piece = _currentPiece;
+		if (piece == Piece.NONE) return _backgroundHash;
+		return _backgroundHash ^ Zobrist.piece(Piece.shape(piece), Piece.facing(piece), Piece.x(piece), Piece.y(piece));
+	}
+
+	/**
+	 * @return counter which changes whenever the background changes
+	 */
+	int getBackgroundVersion() {
+		return _backgroundVersion;
+	}
+
+	/**
+	 * @return a copy of the background colors as TetrisColor ordinals - row-major (y*MATRIX_WIDTH+x)
+	 */
+	synchronized byte[] copyBackgroundColors() {
+		return _backgroundColors.clone();
 	}
 
 	/**
@@ -414,21 +784,39 @@ public class Matrix {
 	 * @return returns the <code>TetrisColor</code> of the given cell
 	 */
 	public TetrisColor getBackgroundColor(int xi, int yi) {
-		return _backgroundMatrix[xi][yi];
+		return getCell(xi, yi);
+	}
+
+	/**
+	 * @return the current piece or <code>Piece.NONE</code> 
+	 */
+	public int getCurrentPiece() {
+		return _currentPiece;
+	}
+
+	/**
+	 * @return the piece before the last merge or <code>Piece.NONE</code>
+	 */
+	public int getLastPiece() {
+		return _lastPiece;
 	}
 
 	/**
-	 * @return the currentTetrimino
+	 * Creates a Tetrimino view of the current piece - e.g. for the UI.
+	 * @return new Tetrimino or null if there is no current piece 
 	 */
 	public Tetrimino getCurrentTetrimino() {
-		return _currentTetrimino;
+		final int piece = _currentPiece;
+		return piece == Piece.NONE ? null : Tetrimino.of(piece);
 	}
 	
 	/**
-	 * @return the Tetrimino before the last merge
+	 * Creates a Tetrimino view of the piece before the last merge.
+	 * @return new Tetrimino or null if nothing has been merged yet
 	 */
 	public Tetrimino getLastTetrimino() {
-		return _lastTetrimino;
+		final int piece = _lastPiece;
+		return piece == Piece.NONE ? null : Tetrimino.of(piece);
 	}
 	
 	
@@ -441,10 +829,10 @@ public class Matrix {
 		StringBuffer sb = new StringBuffer();
 		for (int yi = PLAYFIELD_HEIGHT-1; yi >= 0; yi--) {
 			for (int xi = 0; xi < MATRIX_WIDTH; xi++) {
-				if (_backgroundMatrix[xi][yi] == TetrisColor.EMPTY) {
+				if (!isOccupied(xi, yi)) {
 					sb.append("- ");
 				} else {
-					sb.append(_backgroundMatrix[xi][yi].ordinal()+" ");
+					sb.append(getCell(xi, yi).ordinal()+" ");
 				}
 			}
 			sb.append(System.lineSeparator());
@@ -466,14 +854,17 @@ public class Matrix {
 	public synchronized Matrix clone() {
 		Matrix newP = new Matrix();
 		// copy the matrix
-		TetrisColor[][] newM = new TetrisColor[MATRIX_WIDTH][PLAYFIELD_HEIGHT];
-		for(int x=0; x < _backgroundMatrix.length;x++) {
-			System.arraycopy(_backgroundMatrix[x], 0, newM[x], 0, _backgroundMatrix[x].length);
-		}
-		newP._backgroundMatrix = newM;
-		newP._currentTetrimino = _currentTetrimino == null ? null : _currentTetrimino.clone();
-		newP._lastTetrimino = _lastTetrimino == null ? null : _lastTetrimino.clone();
-		newP._markedLineClears = _markedLineClears == null ? null : _markedLineClears.clone();
+		System.arraycopy(_backgroundRows, 0, newP._backgroundRows, 0, _backgroundRows.length);
+		System.arraycopy(_backgroundColors, 0, newP._backgroundColors, 0, _backgroundColors.length);
+		System.arraycopy(_columnHeights, 0, newP._columnHeights, 0, _columnHeights.length);
+		System.arraycopy(_rowFillCounts, 0, newP._rowFillCounts, 0, _rowFillCounts.length);
+		newP._changedRowsLow = _changedRowsLow;
+		newP._changedRowsHigh = _changedRowsHigh;
+		newP._backgroundVersion = _backgroundVersion;
+		newP._backgroundHash = _backgroundHash;
+		newP._currentPiece = _currentPiece;
+		newP._lastPiece = _lastPiece;
+		newP._markedLineClears = _markedLineClears.clone();
 		return newP;
 	}
 }
@@ -23,20 +23,27 @@ SOFTWARE.
  */
 package fko.tetris.game;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.concurrent.locks.StampedLock;
 
-import fko.tetris.tetriminos.Tetrimino;
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
 
 /**
- * Simple FIFO Queue which is always back-filled with elements from a given Bag.
+ * Simple FIFO Queue which is always back-filled with elements from a given Bag.<br/>
+ * The queue is a fixed ring buffer of shape ids so taking the next Tetrimino is O(1) and does not create 
+ * objects.<br/>
+ * The queue is changed only by the game thread. Other threads (ui, bots) can take a consistent copy with 
+ * <code>snapshot()</code> which uses an optimistic read and retries if the game changed the queue meanwhile.
  */
 public class NextQueue {
 
-	private List<Tetrimino> _queue;
-	private Bag _bag; // the bag object to refill the queue
-	private int _length; // the length of the queue
+	private static final TetriminoShape[] SHAPES = TetriminoShape.values();
+
+	private final byte[] _queue; // ring buffer of shape ids
+	private final Bag _bag; // the bag object to refill the queue
+	private int _head = 0; // index of the next Tetrimino in the ring buffer
+
+	// guards _queue and _head for readers in other threads
+	private final StampedLock _lock = new StampedLock();
 
 	/**
 	 * Creates a queue with length elements which is back-filled from the given Bag
@@ -44,46 +51,90 @@ public class NextQueue {
 	 * @param length
 	 */
 	public NextQueue(Bag bag, int length) {
+		if (length < 1) throw new IllegalArgumentException("NextQueue(): length must be >= 1 but was "+length);
 		this._bag = bag;
-		this._length = length;
-		_queue = new ArrayList<>(_length);
-		fillQueue();
+		_queue = new byte[length];
+		for (int i = 0; i < length; i++) {
+			_queue[i] = (byte) bag.getNextShape().ordinal();
+		}
 	}
 	
 	/**
 	 * Retrieves the next Tetrimino from the queue and back-fills the queue from the give Bag.
-	 * @return the next Tetrimino
+	 * @return the shape of the next Tetrimino
 	 */
-	public Tetrimino getNext() {
-		Tetrimino next = _queue.remove(0);
-		fillQueue();
-		return next;
+	public TetriminoShape getNext() {
+		final byte nextShape = (byte) _bag.getNextShape().ordinal();
+		final long stamp = _lock.writeLock();
+		final byte next = _queue[_head];
+		_queue[_head] = nextShape; // the freed slot is the new end of the queue
+		_head = _head+1 == _queue.length ? 0 : _head+1;
+		_lock.unlockWrite(stamp);
+		return SHAPES[next];
 	}
 	
 	/**
-	 * Retrieves the Tetrimino at position i 
-	 * @return the next Tetrimino
+	 * Retrieves the shape at position i without removing it.<br/>
+	 * Only for the game thread - other threads use <code>snapshot()</code>.
+	 * @param i position in the queue - 0 is the next Tetrimino
+	 * @return the shape at position i
 	 */
-	public Tetrimino get(int i) {
-		return _queue.get(i);
+	public TetriminoShape peek(int i) {
+		return SHAPES[peekId(i)];
 	}
-	
+
+	/**
+	 * Retrieves the shape id at position i without removing it.<br/>
+	 * Only for the game thread - other threads use <code>snapshot()</code>.
+	 * @param i position in the queue - 0 is the next Tetrimino
+	 * @return the shape id (<code>TetriminoShape.ordinal()</code>) at position i
+	 */
+	public int peekId(int i) {
+		if (i < 0 || i >= _queue.length) {
+			throw new IndexOutOfBoundsException("peek(): "+i+" not in queue of length "+_queue.length);
+		}
+		final int index = _head+i;
+		return _queue[index < _queue.length ? index : index-_queue.length];
+	}
+
 	/**
-	 * Iterator over all elements in correct order.
-	 * @return the ListIterator for the queued elements
+	 * Copies a consistent state of the queue into the given array. Can be called from any thread.
+	 * @param dst receives the shape ids (<code>TetriminoShape.ordinal()</code>) in queue order - at most 
+	 * <code>dst.length</code> elements are copied
+	 * @return the number of copied elements
 	 */
-	public ListIterator<Tetrimino> getListIterator() {
-		return _queue.listIterator();
+	public int snapshot(int[] dst) {
+		final int n = Math.min(dst.length, _queue.length);
+		long stamp = _lock.tryOptimisticRead();
+		copy(dst, n);
+		if (!_lock.validate(stamp)) {
+			stamp = _lock.readLock();
+			try {
+				copy(dst, n);
+			} finally {
+				_lock.unlockRead(stamp);
+			}
+		}
+		return n;
 	}
 
 	/*
-	 *	back-fills the queue from the Bag until it is full 
+	 * copies the first n shape ids in queue order 
 	 */
-	private void fillQueue() {
-		while (_queue.size() < _length) {
-			_queue.add(_bag.getNext());
+	private void copy(int[] dst, int n) {
+		int index = _head;
+		for (int i = 0; i < n; i++) {
+			dst[i] = _queue[index];
+			if (++index == _queue.length) index = 0;
 		}
 	}
+	
+	/**
+	 * @return the number of Tetriminos in the queue
+	 */
+	public int size() {
+		return _queue.length;
+	}
 
 	/**
 	 * @see java.lang.Object#toString()
@@ -91,10 +142,10 @@ public class NextQueue {
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
-		_queue.forEach((q) -> sb.append(q.toString()).append(" "));
+		for (int i = 0; i < _queue.length; i++) {
+			sb.append(peek(i)).append(" ");
+		}
 		return sb.toString();
 	}
-	
-	
 
 }
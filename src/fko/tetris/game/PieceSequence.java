@@ -0,0 +1,237 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
+
+/**
+ * A fixed sequence of shape ids - e.g. generated up front for large headless simulations.<br/>
+ * A sequence can be written to a compact binary file (a small header and one byte per shape) and memory mapped 
+ * from it, so many simulation workers can share one file instead of generating pieces each.<br/>
+ * A sequence is immutable and can be read by several threads. Each thread uses its own <code>randomizer()</code>.
+ */
+public final class PieceSequence {
+
+	private static final int MAGIC = 0x54534551; // "TSEQ"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 3 * Integer.BYTES; // magic, version, count
+
+	// buffer size when streaming a sequence to a file
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	private final ByteBuffer _shapes; // the shape ids from index 0 to size-1
+
+	private PieceSequence(ByteBuffer shapes) {
+		_shapes = shapes;
+	}
+
+	/**
+	 * Generates a sequence in memory.
+	 * @param randomizer
+	 * @param count number of shapes
+	 * @return the new sequence
+	 */
+	public static PieceSequence generate(Randomizer randomizer, int count) {
+		final byte[] shapes = new byte[count];
+		randomizer.fill(shapes, 0, count);
+		return new PieceSequence(ByteBuffer.wrap(shapes));
+	}
+
+	/**
+	 * Streams a new sequence directly into a file without holding it in memory.
+	 * @param file the file to create or overwrite
+	 * @param randomizer
+	 * @param count number of shapes
+	 * @throws IOException
+	 */
+	public static void write(Path file, Randomizer randomizer, int count) throws IOException {
+		try (FileChannel channel = openForWrite(file)) {
+			final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+			writeHeader(channel, count);
+			int remaining = count;
+			while (remaining > 0) {
+				buffer.clear().limit(Math.min(remaining, CHUNK_SIZE));
+				randomizer.fill(buffer);
+				buffer.flip();
+				remaining -= buffer.remaining();
+				writeFully(channel, buffer);
+			}
+		}
+	}
+
+	/**
+	 * Writes this sequence to a file.
+	 * @param file the file to create or overwrite
+	 * @throws IOException
+	 */
+	public void write(Path file) throws IOException {
+		try (FileChannel channel = openForWrite(file)) {
+			writeHeader(channel, size());
+			writeFully(channel, _shapes.duplicate());
+		}
+	}
+
+	/**
+	 * Memory maps a sequence file written by <code>write()</code>.
+	 * @param file
+	 * @return the mapped sequence
+	 * @throws IOException if the file can't be read, is not a sequence file or contains an unknown shape id
+	 */
+	public static PieceSequence map(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining()) {
+				if (channel.read(header) < 0) {
+					throw new IOException("map(): "+file+" is too short for a sequence file");
+				}
+			}
+			header.flip();
+			if (header.getInt() != MAGIC) {
+				throw new IOException("map(): "+file+" is not a sequence file");
+			}
+			final int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException("map(): "+file+" has unknown version "+version);
+			}
+			final int count = header.getInt();
+			if (count < 0 || channel.size() < HEADER_SIZE + (long) count) {
+				throw new IOException("map(): "+file+" is truncated");
+			}
+			// the mapping stays valid after the channel is closed
+			final ByteBuffer shapes = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, count);
+			// reject corrupt files here instead of failing somewhere in a game
+			for (int i = 0; i < count; i++) {
+				final int id = shapes.get(i);
+				if (id < 0 || id >= Randomizer.SHAPES.length) {
+					throw new IOException("map(): "+file+" has unknown shape id "+id+" at position "+i);
+				}
+			}
+			return new PieceSequence(shapes);
+		}
+	}
+
+	/**
+	 * @return the number of shapes in the sequence
+	 */
+	public int size() {
+		return _shapes.limit();
+	}
+
+	/**
+	 * @param i
+	 * @return the shape id (<code>TetriminoShape.ordinal()</code>) at position i
+	 */
+	public int get(int i) {
+		return _shapes.get(i);
+	}
+
+	/**
+	 * @param i
+	 * @return the shape at position i
+	 */
+	public TetriminoShape getShape(int i) {
+		return Randomizer.SHAPES[get(i)];
+	}
+
+	/**
+	 * Creates a randomizer which returns the shapes of this sequence starting at the given position, e.g. to feed a 
+	 * <code>Bag</code>. Several randomizers can read the same sequence independently.
+	 * @param start
+	 * @return a new randomizer reading this sequence
+	 */
+	public Randomizer randomizer(int start) {
+		if (start < 0 || start > size()) {
+			throw new IndexOutOfBoundsException("randomizer(): "+start+" not in sequence of size "+size());
+		}
+		return new SequenceRandomizer(start);
+	}
+
+	/*
+	 * Writes the file header 
+	 */
+	private static void writeHeader(FileChannel channel, int count) throws IOException {
+		final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).putInt(count).flip();
+		writeFully(channel, header);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private static FileChannel openForWrite(Path file) throws IOException {
+		return FileChannel.open(file, 
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	/**
+	 * Reads the shapes of the sequence one by one
+	 */
+	private final class SequenceRandomizer implements Randomizer {
+
+		private int _index;
+
+		private SequenceRandomizer(int start) {
+			_index = start;
+		}
+
+		@Override
+		public int next() {
+			if (_index == size()) {
+				throw new IllegalStateException("next(): end of sequence reached after "+_index+" shapes");
+			}
+			return get(_index++);
+		}
+
+		/**
+		 * A fixed sequence has no random stream to split. The new randomizer reads the same shared sequence from the 
+		 * current position on independently of this one - so all parallel simulations get the same shapes.
+		 */
+		@Override
+		public Randomizer split() {
+			return new SequenceRandomizer(_index);
+		}
+
+		@Override
+		public void fill(byte[] dst, int offset, int length) {
+			if (length > size() - _index) {
+				throw new IllegalStateException("fill(): only "+(size()-_index)+" shapes left in sequence");
+			}
+			final ByteBuffer shapes = _shapes.duplicate();
+			shapes.position(_index);
+			shapes.get(dst, offset, length);
+			_index += length;
+		}
+
+	}
+
+}
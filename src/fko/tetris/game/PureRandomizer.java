@@ -0,0 +1,58 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Pure random randomizer - each shape has the same probability independent of all previous shapes.
+ */
+public class PureRandomizer implements Randomizer {
+
+	private final SplittableRandom _random;
+
+	/**
+	 * @param random the random stream this randomizer uses exclusively
+	 */
+	public PureRandomizer(SplittableRandom random) {
+		_random = random;
+	}
+
+	/**
+	 * @see fko.tetris.game.Randomizer#next()
+	 */
+	@Override
+	public int next() {
+		return _random.nextInt(SHAPES.length);
+	}
+
+	/**
+	 * @see fko.tetris.game.Randomizer#split()
+	 */
+	@Override
+	public Randomizer split() {
+		return new PureRandomizer(_random.split());
+	}
+
+}
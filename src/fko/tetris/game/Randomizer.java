@@ -0,0 +1,125 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
+
+/**
+ * A Randomizer generates the sequence of Tetriminos for a game.<br/>
+ * Shapes are returned as primitive ids (the ordinal of <code>TetriminoShape</code>) so generating pieces does not 
+ * create objects. All implementations use a <code>SplittableRandom</code> so a randomizer created with the same 
+ * seed always produces the same sequence - e.g. to replay or benchmark identical games.<br/>
+ * Randomizers are not thread safe. Use <code>split()</code> to get independent randomizers for parallel 
+ * simulations.
+ */
+public interface Randomizer {
+
+	/**
+	 * @return the id of the next shape (<code>TetriminoShape.ordinal()</code>)
+	 */
+	int next();
+
+	/**
+	 * Creates a new randomizer of the same type with a new random stream split off from this one.
+	 * The new randomizer starts with a fresh state (e.g. an empty bag). Splitting is deterministic - the same 
+	 * randomizer always splits into the same sequences.
+	 * @return a new independent randomizer
+	 */
+	Randomizer split();
+
+	/**
+	 * Fills a part of the array with the next shape ids in one call.
+	 * @param dst
+	 * @param offset index of the first element to fill
+	 * @param length number of shape ids to generate
+	 */
+	default void fill(byte[] dst, int offset, int length) {
+		final int end = offset+length;
+		for (int i = offset; i < end; i++) {
+			dst[i] = (byte) next();
+		}
+	}
+
+	/**
+	 * Fills the remaining space of the buffer with the next shape ids in one call.
+	 * @param dst
+	 */
+	default void fill(ByteBuffer dst) {
+		while (dst.hasRemaining()) {
+			dst.put((byte) next());
+		}
+	}
+
+	/**
+	 * @return the next shape
+	 */
+	default TetriminoShape nextShape() {
+		return SHAPES[next()];
+	}
+
+	/**
+	 * All shapes indexed by shape id
+	 */
+	static final TetriminoShape[] SHAPES = TetriminoShape.values();
+
+	/**
+	 * The available randomizer strategies 
+	 */
+	public enum Type {
+		/** 7-bag - each shape once per bag (Tetris Guideline) */
+		BAG7,
+		/** 14-bag - each shape twice per bag */
+		BAG14,
+		/** TGM style - rerolls shapes which are in the history of the last 4 shapes */
+		HISTORY,
+		/** every shape with the same probability independent of the history */
+		RANDOM;
+
+		/**
+		 * @param seed
+		 * @return a new randomizer of this type
+		 */
+		public Randomizer create(long seed) {
+			return create(new SplittableRandom(seed));
+		}
+
+		/**
+		 * @param random the random stream the randomizer will use exclusively
+		 * @return a new randomizer of this type
+		 */
+		public Randomizer create(SplittableRandom random) {
+			switch (this) {
+			case BAG7: return new BagRandomizer(random, 1);
+			case BAG14: return new BagRandomizer(random, 2);
+			case HISTORY: return new HistoryRandomizer(random, HistoryRandomizer.TGM_ROLLS);
+			case RANDOM: return new PureRandomizer(random);
+			default: throw new IllegalArgumentException("create(): Unknown randomizer type "+this);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,303 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A replay read from a file written by a <code>ReplayRecorder</code>.<br/>
+ * The records are decoded once into flat arrays so a replay can be played many times - e.g. by a 
+ * <code>ReplayPlayer</code>. A replay which was cut off (e.g. by a crash) contains all complete records and is 
+ * not complete. A replay is immutable and can be used by several threads.
+ * 
+ * @see ReplayRecorder
+ */
+public final class Replay {
+
+	/**
+	 * Types of records
+	 */
+	public enum RecordType { 
+		/** an accepted control event */
+		INPUT, 
+		/** the falling or lock time ran out */
+		TICK, 
+		/** a Tetrimino was locked - with the checksum */
+		PIECE, 
+		/** the game ended */
+		END 
+	}
+
+	private static final RecordType[] TYPES = RecordType.values();
+	private static final TetrisControlEvents[] EVENTS = TetrisControlEvents.values();
+	private static final Randomizer.Type[] RANDOMIZERS = Randomizer.Type.values();
+
+	private final long _seed;
+	private final Randomizer.Type _type;
+	private final int _startLevel;
+	private final int _nextQueueSize;
+	private final long _startTimeMillis;
+
+	private final int _size;
+	private final byte[] _types;	// RecordType ordinals
+	private final byte[] _events;	// event ordinals of INPUT records
+	private final long[] _values;	// play time (INPUT, TICK), Matrix hash (PIECE) or score (END)
+	private final int[] _ints;		// score (PIECE) or number of Tetriminos (END)
+	private final boolean _complete;
+
+	private Replay(ByteBuffer buffer) throws IOException {
+		if (buffer.remaining() < ReplayRecorder.HEADER_SIZE || buffer.getInt() != ReplayRecorder.MAGIC) {
+			throw new IOException("Not a replay file");
+		}
+		final short version = buffer.getShort();
+		if (version != ReplayRecorder.VERSION) {
+			throw new IOException("Unsupported replay version " + version);
+		}
+		final int type = buffer.get();
+		if (type < 0 || type >= RANDOMIZERS.length) {
+			throw new IOException("Unknown randomizer " + type);
+		}
+		_type = RANDOMIZERS[type];
+		buffer.get(); // reserved
+		_seed = buffer.getLong();
+		_startLevel = buffer.getInt();
+		_nextQueueSize = buffer.getInt();
+		_startTimeMillis = buffer.getLong();
+
+		// first pass counts the complete records so the arrays have the exact size
+		_size = countRecords(buffer.duplicate());
+		_types = new byte[_size];
+		_events = new byte[_size];
+		_values = new long[_size];
+		_ints = new int[_size];
+		long time = 0;
+		for (int i = 0; i < _size; i++) {
+			final int tag = buffer.get() & 0xFF;
+			switch (tag & 0xF0) {
+			case ReplayRecorder.TAG_INPUT:
+				if ((tag & 0x0F) >= EVENTS.length) throw new IOException("Unknown event " + (tag & 0x0F));
+				time += getVarLong(buffer);
+				_types[i] = (byte) RecordType.INPUT.ordinal();
+				_events[i] = (byte) (tag & 0x0F);
+				_values[i] = time;
+				break;
+			case ReplayRecorder.TAG_TICK:
+				time += getVarLong(buffer);
+				_types[i] = (byte) RecordType.TICK.ordinal();
+				_values[i] = time;
+				break;
+			case ReplayRecorder.TAG_PIECE:
+				_types[i] = (byte) RecordType.PIECE.ordinal();
+				_values[i] = buffer.getLong();
+				_ints[i] = buffer.getInt();
+				break;
+			default: // TAG_END - always the last record
+				_types[i] = (byte) RecordType.END.ordinal();
+				_values[i] = buffer.getInt();
+				_ints[i] = buffer.getInt();
+				break;
+			}
+		}
+		_complete = _size > 0 && _types[_size - 1] == RecordType.END.ordinal();
+	}
+
+	/*
+	 * Counts the complete records up to and including an END record. 
+	 * A record cut off in the middle (e.g. by a crash) is not counted.
+	 */
+	private static int countRecords(ByteBuffer buffer) throws IOException {
+		int size = 0;
+		try {
+			while (buffer.hasRemaining()) {
+				final int tag = buffer.get() & 0xFF;
+				switch (tag & 0xF0) {
+				case ReplayRecorder.TAG_INPUT:
+				case ReplayRecorder.TAG_TICK:
+					getVarLong(buffer);
+					break;
+				case ReplayRecorder.TAG_PIECE:
+					buffer.getLong();
+					buffer.getInt();
+					break;
+				case ReplayRecorder.TAG_END:
+					buffer.getInt();
+					buffer.getInt();
+					return size + 1;
+				default:
+					throw new IOException("Unknown record " + tag);
+				}
+				size++;
+			}
+		} catch (BufferUnderflowException e) {
+			// cut off in the middle of the last record - it is dropped
+		}
+		return size;
+	}
+
+	/**
+	 * Reads a replay file.
+	 * @param path
+	 * @return the replay
+	 * @throws IOException if the file can't be read or is not a replay
+	 */
+	public static Replay read(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return new Replay(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * @return a new randomizer which creates the Tetriminos of the recorded game
+	 */
+	public Randomizer newRandomizer() {
+		return _type.create(_seed);
+	}
+
+	/**
+	 * @return the seed of the randomizer
+	 */
+	public long getSeed() {
+		return _seed;
+	}
+
+	/**
+	 * @return the type of the randomizer
+	 */
+	public Randomizer.Type getType() {
+		return _type;
+	}
+
+	/**
+	 * @return the start level of the game
+	 */
+	public int getStartLevel() {
+		return _startLevel;
+	}
+
+	/**
+	 * @return the size of the next queue of the game
+	 */
+	public int getNextQueueSize() {
+		return _nextQueueSize;
+	}
+
+	/**
+	 * @return when the game was recorded in ms since epoch
+	 */
+	public long getStartTimeMillis() {
+		return _startTimeMillis;
+	}
+
+	/**
+	 * @return number of records
+	 */
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * @return true if the replay ends with an END record
+	 */
+	public boolean isComplete() {
+		return _complete;
+	}
+
+	/**
+	 * @param i 
+	 * @return type of record i
+	 */
+	public RecordType getType(int i) {
+		return TYPES[_types[i]];
+	}
+
+	/**
+	 * @param i 
+	 * @return the control event of INPUT record i
+	 */
+	public TetrisControlEvents getEvent(int i) {
+		return EVENTS[_events[i]];
+	}
+
+	/**
+	 * @param i 
+	 * @return play time in ns of INPUT or TICK record i
+	 */
+	public long getTime(int i) {
+		return _values[i];
+	}
+
+	/**
+	 * @param i 
+	 * @return Matrix hash of PIECE record i
+	 */
+	public long getHash(int i) {
+		return _values[i];
+	}
+
+	/**
+	 * @param i 
+	 * @return score of PIECE or END record i
+	 */
+	public int getScore(int i) {
+		return getType(i) == RecordType.END ? (int) _values[i] : _ints[i];
+	}
+
+	/**
+	 * @param i 
+	 * @return number of Tetriminos of END record i
+	 */
+	public int getPieceCount(int i) {
+		return _ints[i];
+	}
+
+	/**
+	 * @return play time in ns of the last INPUT or TICK record
+	 */
+	public long getDuration() {
+		for (int i = _size - 1; i >= 0; i--) {
+			final RecordType type = getType(i);
+			if (type == RecordType.INPUT || type == RecordType.TICK) return _values[i];
+		}
+		return 0;
+	}
+
+	/*
+	 * unsigned LEB128 varint
+	 */
+	private static long getVarLong(ByteBuffer buffer) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			final byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new IOException("Bad time in replay");
+	}
+
+}
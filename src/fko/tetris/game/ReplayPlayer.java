@@ -0,0 +1,410 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import fko.tetris.game.Replay.RecordType;
+
+/**
+ * Plays a replay through a headless game.<br/>
+ * Each recorded input and tick is applied to the game and after each Tetrimino the Matrix and the score are 
+ * compared to the recording. A rolling checksum over all Matrix hashes identifies the whole game. Playing stops at 
+ * the first divergence.<br/>
+ * <code>verify()</code> plays a replay at maximum speed. <code>advanceTo()</code> plays it along the recorded 
+ * time - e.g. in the UI. A player must only be used by one thread.
+ * <pre>
+ * java fko.tetris.game.ReplayPlayer var/replays [threads]
+ * </pre>
+ * plays all stored replays as a regression test and benchmark of the engine.
+ */
+public class ReplayPlayer {
+
+	private static final long CHECKSUM_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	private final Replay _replay;
+	private final TetrisGame _game;
+
+	private int _next = 0; 		// next record
+	private int _pieces = 0;	// PIECE records played
+	private long _checksum = 0;
+	private String _divergence = null;
+
+	/**
+	 * Creates a player and starts the headless game of the replay.
+	 * @param replay
+	 */
+	public ReplayPlayer(Replay replay) {
+		_replay = replay;
+		_game = new TetrisGame(replay.getStartLevel(), replay.newRandomizer(), replay.getNextQueueSize(), true, 
+				new ManualClock(), GameServices.NONE);
+		_game.startHeadless();
+	}
+
+	/**
+	 * Plays the next record.
+	 * @return false if the replay is finished
+	 */
+	public boolean step() {
+		if (isFinished()) {
+			return false;
+		}
+		final int i = _next++;
+		final RecordType type = _replay.getType(i);
+		switch (type) {
+		case INPUT:
+			if (advance(i)) _game.input(_replay.getEvent(i));
+			break;
+		case TICK:
+			if (advance(i)) _game.tick();
+			break;
+		case PIECE:
+			_pieces++;
+			_checksum = _checksum * CHECKSUM_MULTIPLIER + _replay.getHash(i);
+			if (_game.getPieceCount() != _pieces) {
+				diverged(i, "Tetriminos", _pieces, _game.getPieceCount());
+			} else if (_game.getMatrix().getHash() != _replay.getHash(i)) {
+				diverged(i, "Matrix", Long.toHexString(_replay.getHash(i)), 
+						Long.toHexString(_game.getMatrix().getHash()));
+			} else if (_game.getScore() != _replay.getScore(i)) {
+				diverged(i, "score", _replay.getScore(i), _game.getScore());
+			}
+			break;
+		case END:
+			while (_game.isRunning() && !isFallingOrLock()) {
+				_game.tick();
+			}
+			if (!_game.isRunning()) {
+				// the game ended by itself - the recorded game must have ended the same way 
+				if (_game.getScore() != _replay.getScore(i)) {
+					diverged(i, "score", _replay.getScore(i), _game.getScore());
+				} else if (_game.getPieceCount() != _replay.getPieceCount(i)) {
+					diverged(i, "Tetriminos", _replay.getPieceCount(i), _game.getPieceCount());
+				}
+			} else if (_replay.getPieceCount(i) != _pieces) {
+				// the recorded game was stopped - maybe in the middle of the last step so only the Tetriminos count
+				diverged(i, "Tetriminos", _replay.getPieceCount(i), _pieces);
+			}
+			break;
+		}
+		if (isFinished() && _game.isRunning()) {
+			_game.stopTetrisGame();
+		}
+		return !isFinished();
+	}
+
+	/**
+	 * Plays all records up to the given play time.
+	 * @param playTime in ns since the start of the recorded game
+	 * @return false if the replay is finished
+	 */
+	public boolean advanceTo(long playTime) {
+		while (!isFinished()) {
+			final RecordType type = _replay.getType(_next);
+			if ((type == RecordType.INPUT || type == RecordType.TICK) && _replay.getTime(_next) > playTime) {
+				return true;
+			}
+			step();
+		}
+		return false;
+	}
+
+	/**
+	 * Plays the rest of the replay at maximum speed.
+	 * @return true if the game was the same as the recorded game
+	 */
+	public boolean playToEnd() {
+		while (step()) {
+			// next record
+		}
+		return _divergence == null;
+	}
+
+	/*
+	 * Inputs and ticks only happen in FALLING and LOCK phase - runs the phases in between
+	 */
+	private boolean advance(int i) {
+		while (_game.isRunning() && !isFallingOrLock()) {
+			_game.tick();
+		}
+		if (!_game.isRunning()) {
+			diverged(i, "game over", "running", _game.getPhaseState());
+			return false;
+		}
+		return true;
+	}
+
+	private boolean isFallingOrLock() {
+		final TetrisPhase phase = _game.getPhaseState();
+		return phase == TetrisPhase.FALLING || phase == TetrisPhase.LOCK;
+	}
+
+	private void diverged(int i, String what, Object expected, Object actual) {
+		_divergence = String.format("Record %d (Tetrimino %d): %s expected %s but was %s", 
+				i, _pieces, what, expected, actual);
+	}
+
+	/**
+	 * @return true if all records were played or the game diverged
+	 */
+	public boolean isFinished() {
+		return _next >= _replay.size() || _divergence != null;
+	}
+
+	/**
+	 * @return true if all records were played without divergence
+	 */
+	public boolean isVerified() {
+		return _next >= _replay.size() && _divergence == null;
+	}
+
+	/**
+	 * @return description of the first divergence or null if there was none so far
+	 */
+	public String getDivergence() {
+		return _divergence;
+	}
+
+	/**
+	 * @return rolling checksum of the Matrix hashes of all Tetriminos played so far
+	 */
+	public long getChecksum() {
+		return _checksum;
+	}
+
+	/**
+	 * @return number of Tetriminos played so far
+	 */
+	public int getPieceCount() {
+		return _pieces;
+	}
+
+	/**
+	 * @return the replay
+	 */
+	public Replay getReplay() {
+		return _replay;
+	}
+
+	/**
+	 * @return the headless game the replay is played in 
+	 */
+	public TetrisGame getGame() {
+		return _game;
+	}
+
+	/**
+	 * Plays a replay file at maximum speed.
+	 * @param path
+	 * @return the result
+	 * @throws IOException if the file can't be read or is not a replay
+	 */
+	public static Result verify(Path path) throws IOException {
+		final Replay replay = Replay.read(path);
+		final long start = System.nanoTime();
+		final ReplayPlayer player = new ReplayPlayer(replay);
+		player.playToEnd();
+		return new Result(path, player, System.nanoTime() - start);
+	}
+
+	/**
+	 * Plays many replay files at maximum speed.
+	 * @param paths
+	 * @param threads number of threads to play on
+	 * @return the results in the order of the paths
+	 * @throws IOException if a file can't be read or is not a replay
+	 */
+	public static List<Result> verifyAll(List<Path> paths, int threads) throws IOException {
+		final ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Future<Result>> futures = new ArrayList<>(paths.size());
+			for (Path path : paths) {
+				futures.add(pool.submit(() -> verify(path)));
+			}
+			final List<Result> results = new ArrayList<>(paths.size());
+			for (Future<Result> future : futures) {
+				try {
+					results.add(future.get());
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+					throw new RuntimeException(e.getCause());
+				}
+			}
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("verifyAll(): interrupted", e);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Plays all replays in the given files and directories and prints the failed ones and the throughput.
+	 * @param args replay files or directories [number of threads]
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		final List<Path> paths = new ArrayList<>();
+		int threads = Runtime.getRuntime().availableProcessors();
+		for (String arg : args) {
+			if (arg.matches("\\d+")) {
+				threads = Integer.parseInt(arg);
+				continue;
+			}
+			final Path path = Paths.get(arg);
+			if (Files.isDirectory(path)) {
+				try (DirectoryStream<Path> stream = Files.newDirectoryStream(path, "*.trpl")) {
+					stream.forEach(paths::add);
+				}
+			} else {
+				paths.add(path);
+			}
+		}
+		if (paths.isEmpty()) {
+			System.err.println("Usage: ReplayPlayer <replay files or directories> [threads]");
+			System.exit(2);
+		}
+
+		final long start = System.nanoTime();
+		final List<Result> results = verifyAll(paths, threads);
+		final long time = System.nanoTime() - start;
+
+		int failed = 0;
+		long pieces = 0;
+		for (Result result : results) {
+			pieces += result.getPieceCount();
+			if (!result.isVerified()) {
+				failed++;
+				System.out.println(result);
+			}
+		}
+		System.out.printf("%d replays, %d failed, %d Tetriminos in %.3f s (%.0f Tetriminos/s) on %d threads%n", 
+				results.size(), failed, pieces, time / 1e9, pieces * 1e9 / Math.max(1, time), threads);
+		System.exit(failed == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Result of playing a replay at maximum speed
+	 */
+	public static final class Result {
+
+		private final Path _path;
+		private final boolean _verified;
+		private final boolean _complete;
+		private final String _divergence;
+		private final int _pieceCount;
+		private final int _score;
+		private final long _checksum;
+		private final long _nanos;
+
+		private Result(Path path, ReplayPlayer player, long nanos) {
+			_path = path;
+			_verified = player.isVerified();
+			_complete = player.getReplay().isComplete();
+			_divergence = player.getDivergence();
+			_pieceCount = player.getPieceCount();
+			_score = player.getGame().getScore();
+			_checksum = player.getChecksum();
+			_nanos = nanos;
+		}
+
+		/**
+		 * @return the replay file
+		 */
+		public Path getPath() {
+			return _path;
+		}
+
+		/**
+		 * @return true if all records were played without divergence
+		 */
+		public boolean isVerified() {
+			return _verified;
+		}
+
+		/**
+		 * @return true if the replay ends with an END record
+		 */
+		public boolean isComplete() {
+			return _complete;
+		}
+
+		/**
+		 * @return description of the first divergence or null
+		 */
+		public String getDivergence() {
+			return _divergence;
+		}
+
+		/**
+		 * @return number of Tetriminos played
+		 */
+		public int getPieceCount() {
+			return _pieceCount;
+		}
+
+		/**
+		 * @return score of the played game
+		 */
+		public int getScore() {
+			return _score;
+		}
+
+		/**
+		 * @return rolling checksum of the Matrix hashes of all Tetriminos
+		 */
+		public long getChecksum() {
+			return _checksum;
+		}
+
+		/**
+		 * @return time to play the replay in ns
+		 */
+		public long getNanos() {
+			return _nanos;
+		}
+
+		/**
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return String.format("%s: %s%s, %d Tetriminos, score %d, checksum %016x, %.1f ms", _path, 
+					_verified ? "verified" : _divergence, _complete ? "" : " (incomplete)", 
+					_pieceCount, _score, _checksum, _nanos / 1e6);
+		}
+	}
+
+}
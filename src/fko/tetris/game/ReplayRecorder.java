@@ -0,0 +1,308 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records a <code>TetrisGame</code> to a compact append-only binary file so it can be replayed exactly.<br/>
+ * The game is deterministic for a given randomizer seed and order of engine steps. So a replay holds the seed 
+ * and settings and every step the game thread took - each accepted control event and each time the falling or
+ * lock timer ran out - with its offset in play time. After each locked Tetrimino a checksum of the Matrix and 
+ * the score is added to find where a replay goes a different way.<br/>
+ * <br/>
+ * File format (big endian):
+ * <pre>
+ * header  int magic "TRPL", short version, byte randomizer type, byte reserved, long seed, int start level, 
+ *         int next queue size, long start time (ms since epoch) 
+ * INPUT   byte 0x10 | event ordinal, varint ns since the last INPUT or TICK
+ * TICK    byte 0x20, varint ns since the last INPUT or TICK
+ * PIECE   byte 0x30, long Matrix hash, int score - after each locked Tetrimino
+ * END     byte 0x40, int score, int number of Tetriminos - when the game has ended
+ * </pre>
+ * The game thread never waits for the file. It encodes records into a small buffer which is handed to a shared 
+ * writer thread after each Tetrimino. A replay of a crashed process is readable up to its last complete record.
+ */
+public final class ReplayRecorder implements AutoCloseable {
+
+	/** "TRPL" */
+	public static final int MAGIC = 0x5452504C;
+	/** current version of the file format */
+	public static final short VERSION = 1;
+	/** bytes before the first record */
+	public static final int HEADER_SIZE = 32;
+
+	/** record tags - the low 4 bits of INPUT hold the event */
+	public static final int TAG_INPUT = 0x10;
+	public static final int TAG_TICK = 0x20;
+	public static final int TAG_PIECE = 0x30;
+	public static final int TAG_END = 0x40;
+
+	private static final int CHUNK_SIZE = 4096;
+	private static final int MAX_RECORD_SIZE = 13; // PIECE
+
+	// one writer for all recorders - writes of one recorder are done in order
+	private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "ReplayWriter");
+		t.setDaemon(true);
+		return t;
+	});
+
+	private final Path _path;
+	private final long _seed;
+	private final Randomizer.Type _type;
+	private final int _startLevel;
+	private final int _nextQueueSize;
+
+	private final FileChannel _channel;
+	private final CountDownLatch _closed = new CountDownLatch(1);
+	private volatile boolean _failed = false;
+	private boolean _ended = false; // closing was requested - guarded by this
+
+	// only used by the game thread
+	private ByteBuffer _chunk = ByteBuffer.allocate(CHUNK_SIZE);
+	private long _lastTime = 0;
+
+	// written chunks to be reused by the game thread
+	private final ConcurrentLinkedQueue<ByteBuffer> _free = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Creates the replay file and writes its header. The game to record must use a randomizer from 
+	 * <code>newRandomizer()</code> and the same start level and next queue size.
+	 * @param path the file - replaced if it exists
+	 * @param seed
+	 * @param type
+	 * @param startLevel
+	 * @param nextQueueSize
+	 * @throws IOException
+	 */
+	public ReplayRecorder(Path path, long seed, Randomizer.Type type, int startLevel, int nextQueueSize) 
+			throws IOException {
+		_path = path;
+		_seed = seed;
+		_type = type;
+		_startLevel = startLevel;
+		_nextQueueSize = nextQueueSize;
+		_channel = FileChannel.open(path, 
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putShort(VERSION).put((byte) type.ordinal()).put((byte) 0)
+		.putLong(seed).putInt(startLevel).putInt(nextQueueSize).putLong(System.currentTimeMillis()).flip();
+		try {
+			while (header.hasRemaining()) _channel.write(header);
+		} catch (IOException e) {
+			_channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return a new randomizer for the recorded game
+	 */
+	public Randomizer newRandomizer() {
+		return _type.create(_seed);
+	}
+
+	/**
+	 * Records an accepted control event. Only for the game thread.
+	 * @param event
+	 * @param playTime play time of the game in ns
+	 */
+	void input(TetrisControlEvents event, long playTime) {
+		ensure(MAX_RECORD_SIZE);
+		_chunk.put((byte) (TAG_INPUT | event.ordinal()));
+		putTime(playTime);
+	}
+
+	/**
+	 * Records that the falling or lock time ran out. Only for the game thread.
+	 * @param playTime play time of the game in ns
+	 */
+	void tick(long playTime) {
+		ensure(MAX_RECORD_SIZE);
+		_chunk.put((byte) TAG_TICK);
+		putTime(playTime);
+	}
+
+	/**
+	 * Records the checksum after a Tetrimino was locked and hands the records so far to the writer. 
+	 * Only for the game thread.
+	 * @param hash hash of the Matrix
+	 * @param score
+	 */
+	void piece(long hash, int score) {
+		ensure(MAX_RECORD_SIZE);
+		_chunk.put((byte) TAG_PIECE).putLong(hash).putInt(score);
+		flush();
+	}
+
+	/**
+	 * Records the end of the game and closes the file when everything is written. Only for the game thread.
+	 * @param score
+	 * @param pieceCount
+	 */
+	void end(int score, int pieceCount) {
+		ensure(MAX_RECORD_SIZE);
+		_chunk.put((byte) TAG_END).putInt(score).putInt(pieceCount);
+		flush();
+		close();
+	}
+
+	/**
+	 * Closes the file after all records handed to the writer are written. Records of the game thread which have 
+	 * not been handed over yet are lost.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (_ended) return;
+			_ended = true;
+		}
+		WRITER.execute(() -> {
+			try {
+				_channel.close();
+			} catch (IOException e) {
+				fail(e);
+			}
+			_closed.countDown();
+		});
+	}
+
+	/**
+	 * Waits until the file is closed.
+	 * @param timeout
+	 * @param unit
+	 * @return true if the file is closed
+	 * @throws InterruptedException
+	 */
+	public boolean awaitClosed(long timeout, TimeUnit unit) throws InterruptedException {
+		return _closed.await(timeout, unit);
+	}
+
+	/**
+	 * @return true if writing the file failed - the replay is incomplete
+	 */
+	public boolean isFailed() {
+		return _failed;
+	}
+
+	/**
+	 * @return the replay file
+	 */
+	public Path getPath() {
+		return _path;
+	}
+
+	/**
+	 * @return the seed of the randomizer
+	 */
+	public long getSeed() {
+		return _seed;
+	}
+
+	/**
+	 * @return the type of the randomizer
+	 */
+	public Randomizer.Type getType() {
+		return _type;
+	}
+
+	/**
+	 * @return the start level of the game
+	 */
+	public int getStartLevel() {
+		return _startLevel;
+	}
+
+	/**
+	 * @return the size of the next queue of the game
+	 */
+	public int getNextQueueSize() {
+		return _nextQueueSize;
+	}
+
+	/*
+	 * Time since the last timed record as unsigned LEB128 varint - mostly 3 or 4 bytes
+	 */
+	private void putTime(long playTime) {
+		long delta = Math.max(0, playTime - _lastTime);
+		_lastTime = Math.max(_lastTime, playTime);
+		while ((delta & ~0x7FL) != 0) {
+			_chunk.put((byte) ((delta & 0x7F) | 0x80));
+			delta >>>= 7;
+		}
+		_chunk.put((byte) delta);
+	}
+
+	/*
+	 * Makes room for a record in the current chunk
+	 */
+	private void ensure(int size) {
+		if (_chunk.remaining() < size) flush();
+	}
+
+	/*
+	 * Hands the current chunk to the writer and continues with a free one - never waits
+	 */
+	private void flush() {
+		if (_chunk.position() == 0) return;
+		final ByteBuffer full = _chunk;
+		full.flip();
+		final ByteBuffer free = _free.poll();
+		_chunk = free != null ? free : ByteBuffer.allocate(CHUNK_SIZE);
+		WRITER.execute(() -> write(full));
+	}
+
+	/*
+	 * Writes a chunk - on the writer thread 
+	 */
+	private void write(ByteBuffer chunk) {
+		if (!_failed && _channel.isOpen()) {
+			try {
+				while (chunk.hasRemaining()) _channel.write(chunk);
+			} catch (IOException e) {
+				fail(e);
+			}
+		}
+		chunk.clear();
+		_free.offer(chunk);
+	}
+
+	private void fail(IOException e) {
+		if (!_failed) {
+			_failed = true;
+			System.err.println("ReplayRecorder: could not write " + _path + ": " + e);
+		}
+	}
+
+}
@@ -23,6 +23,7 @@ SOFTWARE.
  */
 package fko.tetris.game;
 
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
 import javafx.scene.paint.Color;
 
 /**
@@ -39,6 +40,23 @@ public enum TetrisColor {
 	GREEN,		// S
 	RED;		// Z
 
+    /**
+     * @param shape
+     * @return the color of a Tetrimino shape
+     */
+    public static TetrisColor of(TetriminoShape shape) {
+        switch (shape) {
+            case O	: return YELLOW;
+            case I	: return LBLUE;
+            case T	: return PURPLE;
+            case L	: return ORANGE;
+            case J	: return BLUE;
+            case S	: return GREEN;
+            case Z	: return RED;
+        }
+        return EMPTY;
+    }
+
     public Color toColor() {
         switch (this) {
             case EMPTY	: return Color.BLACK;
@@ -0,0 +1,205 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+import fko.tetris.tetriminos.Piece;
+
+/**
+ * Base of all events a TetrisGame sends to its listeners.<br/>
+ * Each event carries the snapshot of the game right after the event so listeners never have to read the game 
+ * itself.<br/>
+ * Events which only describe a new state (e.g. a moved Tetrimino) are coalescable - if a listener has not received 
+ * such an event yet when the next event of the same type arrives only the newer one is delivered.
+ */
+public abstract class TetrisEvent {
+
+	private final GameSnapshot _snapshot;
+
+	/**
+	 * @param snapshot the state of the game after the event
+	 */
+	protected TetrisEvent(GameSnapshot snapshot) {
+		_snapshot = snapshot;
+	}
+
+	/**
+	 * @return the state of the game after the event
+	 */
+	public GameSnapshot getSnapshot() {
+		return _snapshot;
+	}
+
+	/**
+	 * @return true if an undelivered event of the same type can be replaced by this event
+	 */
+	public boolean isCoalescable() {
+		return false;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return getClass().getSimpleName();
+	}
+
+	/**
+	 * The game thread has started
+	 */
+	public static final class GameStarted extends TetrisEvent {
+		public GameStarted(GameSnapshot snapshot) {
+			super(snapshot);
+		}
+	}
+
+	/**
+	 * The game thread has stopped - after game over or if the game was stopped
+	 */
+	public static final class GameStopped extends TetrisEvent {
+		public GameStopped(GameSnapshot snapshot) {
+			super(snapshot);
+		}
+	}
+
+	/**
+	 * A new Tetrimino could not be spawned 
+	 */
+	public static final class GameOver extends TetrisEvent {
+		public GameOver(GameSnapshot snapshot) {
+			super(snapshot);
+		}
+	}
+
+	/**
+	 * The game was paused or resumed
+	 */
+	public static final class Paused extends TetrisEvent {
+		private final boolean _paused;
+		public Paused(GameSnapshot snapshot, boolean paused) {
+			super(snapshot);
+			_paused = paused;
+		}
+		/**
+		 * @return true if the game is paused now
+		 */
+		public boolean isPaused() {
+			return _paused;
+		}
+		@Override
+		public String toString() {
+			return super.toString()+" "+_paused;
+		}
+	}
+
+	/**
+	 * The game has entered a new phase
+	 */
+	public static final class PhaseChanged extends TetrisEvent {
+		public PhaseChanged(GameSnapshot snapshot) {
+			super(snapshot);
+		}
+		/**
+		 * @return the new phase
+		 */
+		public TetrisPhase getPhase() {
+			return getSnapshot().getPhase();
+		}
+		@Override
+		public boolean isCoalescable() {
+			return true;
+		}
+		@Override
+		public String toString() {
+			return super.toString()+" "+getPhase();
+		}
+	}
+
+	/**
+	 * A new Tetrimino has been spawned into the Matrix - either from the next queue or from hold
+	 */
+	public static final class PieceSpawned extends TetrisEvent {
+		public PieceSpawned(GameSnapshot snapshot) {
+			super(snapshot);
+		}
+		@Override
+		public String toString() {
+			return super.toString()+" "+Piece.toString(getSnapshot().getCurrentPiece());
+		}
+	}
+
+	/**
+	 * The current Tetrimino has moved, turned or dropped
+	 */
+	public static final class PieceMoved extends TetrisEvent {
+		public PieceMoved(GameSnapshot snapshot) {
+			super(snapshot);
+		}
+		@Override
+		public boolean isCoalescable() {
+			return true;
+		}
+		@Override
+		public String toString() {
+			return super.toString()+" "+Piece.toString(getSnapshot().getCurrentPiece());
+		}
+	}
+
+	/**
+	 * The current Tetrimino was locked down and is now part of the background
+	 */
+	public static final class PieceLocked extends TetrisEvent {
+		public PieceLocked(GameSnapshot snapshot) {
+			super(snapshot);
+		}
+	}
+
+	/**
+	 * One or more lines were cleared
+	 */
+	public static final class LinesCleared extends TetrisEvent {
+		private final int _lines;
+		public LinesCleared(GameSnapshot snapshot, int lines) {
+			super(snapshot);
+			_lines = lines;
+		}
+		/**
+		 * @return the number of cleared lines
+		 */
+		public int getLines() {
+			return _lines;
+		}
+		/**
+		 * @return true if 4 lines were cleared
+		 */
+		public boolean isTetris() {
+			return _lines == 4;
+		}
+		@Override
+		public String toString() {
+			return super.toString()+" "+_lines;
+		}
+	}
+
+}
@@ -0,0 +1,139 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Registry of the listeners of a TetrisGame which delivers the game's events.<br/>
+ * Synchronous listeners are called directly by the game thread and should return quickly.<br/>
+ * Asynchronous listeners get their events through an executor, e.g. <code>Platform::runLater</code> for the ui. 
+ * The game thread never waits for them. Events are delivered in order. Coalescable events which have not been 
+ * delivered yet are replaced by the next event of the same type so a burst of inputs results in only one event.
+ */
+public class TetrisEventBus {
+
+	private final CopyOnWriteArrayList<Registration> _listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Adds a listener which is called by the game thread
+	 * @param listener
+	 */
+	public void addListener(TetrisEventListener listener) {
+		_listeners.add(new Registration(listener));
+	}
+
+	/**
+	 * Adds a listener which is called by the given executor
+	 * @param listener
+	 * @param executor
+	 */
+	public void addAsyncListener(TetrisEventListener listener, Executor executor) {
+		_listeners.add(new AsyncRegistration(listener, executor));
+	}
+
+	/**
+	 * Removes a listener
+	 * @param listener
+	 */
+	public void removeListener(TetrisEventListener listener) {
+		_listeners.removeIf(r -> r._listener == listener);
+	}
+
+	/**
+	 * @return true if at least one listener is registered - events need not be created otherwise
+	 */
+	public boolean hasListeners() {
+		return !_listeners.isEmpty();
+	}
+
+	/**
+	 * Sends an event to all listeners
+	 * @param event
+	 */
+	public void fire(TetrisEvent event) {
+		for (Registration r : _listeners) {
+			r.deliver(event);
+		}
+	}
+
+	/*
+	 * A synchronous listener 
+	 */
+	private static class Registration {
+		final TetrisEventListener _listener;
+		Registration(TetrisEventListener listener) {
+			_listener = listener;
+		}
+		void deliver(TetrisEvent event) {
+			_listener.onEvent(event);
+		}
+	}
+
+	/*
+	 * An asynchronous listener with its own queue of undelivered events.
+	 * At most one drain task is waiting in the executor at any time.
+	 */
+	private static final class AsyncRegistration extends Registration {
+		private final Executor _executor;
+		private final ArrayDeque<TetrisEvent> _pending = new ArrayDeque<>();
+		private boolean _scheduled = false;
+
+		AsyncRegistration(TetrisEventListener listener, Executor executor) {
+			super(listener);
+			_executor = executor;
+		}
+
+		@Override
+		void deliver(TetrisEvent event) {
+			synchronized (_pending) {
+				final TetrisEvent last = _pending.peekLast();
+				if (last != null && event.isCoalescable() && last.getClass() == event.getClass()) {
+					_pending.pollLast(); // replaced by the newer state
+				}
+				_pending.addLast(event);
+				if (_scheduled) return;
+				_scheduled = true;
+			}
+			_executor.execute(this::drain);
+		}
+
+		private void drain() {
+			while (true) {
+				final TetrisEvent event;
+				synchronized (_pending) {
+					event = _pending.pollFirst();
+					if (event == null) {
+						_scheduled = false;
+						return;
+					}
+				}
+				_listener.onEvent(event);
+			}
+		}
+	}
+
+}
@@ -26,62 +26,128 @@ package fko.tetris.game;
 import java.time.LocalDateTime;
 import java.util.Observable;
 import java.util.Observer;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import fko.tetris.game.TetrisSounds.Clips;
-import fko.tetris.tetriminos.Tetrimino;
+import fko.tetris.tetriminos.Piece;
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
 
 /**
  * This represents the state of a Tetris game. It holds all information necessary to represent a Tetris game at any 
- * point in time.
+ * point in time.<br/>
+ * Changes are sent as typed <code>TetrisEvent</code>s to the listeners registered at the game's 
+ * <code>TetrisEventBus</code>.
  */
-public class TetrisGame extends Observable implements Runnable, Observer {
+public class TetrisGame implements Runnable, Observer {
 
 	/**
-	 * Sets how many Tetriminos are in the next queue. Not necessarily the same as how 
+	 * Sets how many Tetriminos are in the next queue by default. Not necessarily the same as how 
 	 * many are shown in the ui.
 	 */
 	public static final int NEXTQUEUE_SIZE = 7;
 
-	// sounds are play at certain points ==> should this be in model or view??
-	private static final TetrisSounds _sounds = new TetrisSounds();
-
 	// Tetris state
 	private Matrix 		_playfield;		// matrix with all cells
 	private Bag			_bag;			// bag with all 7 Tetriminos - randomly shuffled to the next queue
 	private NextQueue	_nextQueue;		// holds a list the next Tetriminos
-	private Tetrimino	_holdQueue; 		// holds one Tetrimino to be used later
+	private TetriminoShape _holdQueue; 	// holds one Tetrimino to be used later
 	private int			_startLevel; 	// start level can be set differently by the UI
 	private int			_currentLevel; 	// current level while playing
 	private int			_score;			// current score
 	private int			_lineCount;		// who many line have been eliminated since start
 	private int			_tetrisesCount;	// number of Tetrises since start
+	private volatile int _pieceCount;	// number of locked Tetriminos since start - read by other threads (JMX)
 
 	// application fields
+	private final boolean _headless;			// no thread, timers, sounds, high scores or observers
 	private Thread		_gameThread; 			// the thread where the Tetris game will run in
-	private boolean 		_gameStopped = true; 	// flag to stop a running game
-	private boolean 		_isPaused = false;		// flag to pause a running game
+	private volatile boolean _gameStopped = true; 	// flag to stop a running game
+	private volatile boolean _isPaused = false;		// flag to pause a running game
+
+	// play time statistics in clock time - written by the game thread (start, stop) or the ui (pause) 
+	private static final long NOT_SET = Long.MIN_VALUE;
+	private volatile long _startTime = NOT_SET;
+	private volatile long _stopTime = NOT_SET;
+	private volatile long _pauseStartTime = 0;
+	private volatile long _pausedTime = 0;
+
+	// the latest published state for readers in other threads (ui, bots) 
+	private volatile GameSnapshot _snapshot;
+	private long _snapshotSequenceNumber = 0;
+	private boolean _snapshotStale = false; // headless games publish snapshots only when asked for
+
+	// input latency - clock time of the control event being handled and the times of the latest inputs in a 
+	// published snapshot - the history is copied on write as snapshots share it
+	private long _pendingInputTime = GameSnapshot.NO_INPUT;
+	private long _inputCount = 0;
+	private long[] _inputTimes = GameSnapshot.NO_INPUT_TIMES;
+
+	// records the engine steps of this game to a replay file - null if not recorded
+	private ReplayRecorder _recorder = null;
+
+	// source of the random decisions of bots playing this game - null if the bots are not seeded
+	private SplittableRandom _botRandom = null;
+
+	// phase timers and counters - also available through JMX while the game thread runs
+	private final GameMetrics _metrics = new GameMetrics(this);
+	private long _waitNanos = 0; // time the game thread waited for input in the current phase - not engine cost
+
+	// listeners for the events of this game
+	private final TetrisEventBus _eventBus = new TetrisEventBus();
+	private TetrisPhase _lastFiredPhase = TetrisPhase.NOTSTARTED; // to send PhaseChanged only for real changes
 
 	private TetrisPhase _phaseState = TetrisPhase.NOTSTARTED; // the state/phase the engine is currently in
 	// this determines what inputs and actions are allowed and 
 	// which states can follow
 
+	// maximum number of control inputs waiting for the game thread
+	private static final int CONTROL_QUEUE_SIZE = 64;
+
+	// the lock down time is always 500ms
+	private static final long LOCK_TIME = 500;
+
+	/**
+	 * Gravity is applied in ticks of this length (one frame at 60Hz)
+	 */
+	public static final long GRAVITY_TICK_NANOS = 1_000_000_000L / 60;
+
+	/**
+	 * Fixed point representation of one cell for gravity - gravity is measured in cells per tick 
+	 */
+	public static final int CELL = 1 << 16;
+
+	/**
+	 * Maximum gravity - 20G moves a Tetrimino from the top to the bottom of the Matrix in one tick 
+	 */
+	public static final int MAX_GRAVITY = 20 * CELL;
+
+	// all timing of the game is done with this clock
+	private final GameClock _clock;
+
 	// Timers to control falling and locking time
-	private TetrisTimer _fallingTimer	= new TetrisTimer(1000); 
-	private TetrisTimer _lockTimer 		= new TetrisTimer(500); 
+	private final TetrisTimer _fallingTimer; 
+	private final TetrisTimer _lockTimer; 
 
 	// queues control inputs from the ui
-	private LinkedBlockingQueue<TetrisControlEvents> _controlQueue = new LinkedBlockingQueue<>();
+	private final ControlQueue _controlQueue;
 
 	private boolean _holdAllowed = true; // using hold is only allowed once between LOCK phases
 
+	private int _gravityAccumulator = 0; // fraction of a cell the current Tetrimino has fallen (in CELL units)
+
 	// game statistics
 	private int _lastClearedLinesCount = 0;
 	private int _lastHardDropLineCount = 0;
 	private int _lastSoftDropLineCount = 0;
 
+	// sounds are play at certain points ==> should this be in model or view??
+	private final TetrisSounds _sounds;	// null if the game is silent
+	private volatile boolean _soundOn = true;
+
 	// Contains a List of high scores
-	private HighScoreData _highScoreData; 
+	private final HighScoreData _highScoreData; // null if the result is not saved
 
 	// current player's name
 	private String _playerName = "Unknown Player"; 
@@ -98,17 +164,90 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 	 * @param startLevel
 	 */
 	public TetrisGame(int startLevel) {
+		this(startLevel, new BagRandomizer());
+	}
+
+	/**
+	 * Creates a Tetris game with a specified start level and randomizer.<br/>
+	 * A seeded randomizer makes the sequence of Tetriminos reproducible.
+	 * @param startLevel
+	 * @param randomizer
+	 */
+	public TetrisGame(int startLevel, Randomizer randomizer) {
+		this(startLevel, randomizer, NEXTQUEUE_SIZE);
+	}
+
+	/**
+	 * Creates a Tetris game with a specified start level, randomizer and next queue length.<br/>
+	 * A longer next queue allows bots to look further ahead. The ui shows only the first Tetriminos.
+	 * @param startLevel
+	 * @param randomizer
+	 * @param nextQueueSize
+	 */
+	public TetrisGame(int startLevel, Randomizer randomizer, int nextQueueSize) {
+		this(startLevel, randomizer, nextQueueSize, false);
+	}
+
+	/**
+	 * Creates a Tetris game which is either run by its own thread in real time or headless.<br/>
+	 * A headless game is driven by the caller's thread with <code>startHeadless()</code>, <code>input()</code>, 
+	 * <code>tick()</code> and <code>stepPiece()</code>. It uses no timers, sounds, high scores or observers so it 
+	 * runs as fast as possible - e.g. to simulate many bot games.<br/>
+	 * Other games use the sounds and high score of the desktop game.
+	 * @param startLevel
+	 * @param randomizer
+	 * @param nextQueueSize
+	 * @param headless
+	 */
+	public TetrisGame(int startLevel, Randomizer randomizer, int nextQueueSize, boolean headless) {
+		this(startLevel, randomizer, nextQueueSize, headless, headless ? new ManualClock() : GameClock.SYSTEM);
+	}
+
+	/**
+	 * Creates a Tetris game with the given clock for all timing.<br/>
+	 * If a headless game uses a <code>ManualClock</code> each <code>tick()</code> advances it by the falling or 
+	 * lock time so play time statistics are in logical game time.
+	 * @param startLevel
+	 * @param randomizer
+	 * @param nextQueueSize
+	 * @param headless
+	 * @param clock
+	 */
+	public TetrisGame(int startLevel, Randomizer randomizer, int nextQueueSize, boolean headless, GameClock clock) {
+		this(startLevel, randomizer, nextQueueSize, headless, clock, headless ? GameServices.NONE : GameServices.desktop());
+	}
+
+	/**
+	 * Creates a Tetris game with its own services - e.g. by a <code>TetrisGameHost</code> running many games.
+	 * @param startLevel
+	 * @param randomizer
+	 * @param nextQueueSize
+	 * @param headless
+	 * @param clock
+	 * @param services sounds and high score of this game
+	 */
+	public TetrisGame(int startLevel, Randomizer randomizer, int nextQueueSize, boolean headless, GameClock clock, 
+			GameServices services) {
+		_headless		= headless;
+		_clock			= clock;
+		_fallingTimer	= new TetrisTimer(1000, clock);
+		_lockTimer		= new TetrisTimer(LOCK_TIME, clock);
+		_controlQueue	= new ControlQueue(CONTROL_QUEUE_SIZE, clock);
 		_playfield 		= new Matrix();
-		_bag 			= new Bag();
-		_nextQueue		= new NextQueue(_bag, NEXTQUEUE_SIZE);
+		_bag 			= new Bag(randomizer);
+		_nextQueue		= new NextQueue(_bag, nextQueueSize);
 		_holdQueue 		= null;
 		_startLevel 	= startLevel;
 		_currentLevel 	= startLevel;
 		_score 			= 0;
 		_lineCount 		= (startLevel-1) * 10; // if started with a higher level assume appropriate line count 
 		_tetrisesCount 	= 0;
+		_pieceCount		= 0;
+
+		_sounds			= services.getSounds();
+		_highScoreData	= services.getHighScoreData();
 
-		_highScoreData = HighScoreData.getInstance();
+		publishSnapshot();
 	}
 
 	/**
@@ -116,11 +255,16 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 	 * The thread then calls run() to actually do the work.
 	 */
 	public void startTetrisGame() {
+		if (_headless) {
+			throw new IllegalStateException("startTetrisGame(): A headless game is started with startHeadless().");
+		}
 		// Now start the thread
 		if (_gameThread == null) {
+			// the game thread must see the game running from its first phase on
+			_gameStopped = false; 
+			_metrics.register();
 			_gameThread = new Thread(this, "TetrisGame");
 			_gameThread.start();
-			_gameStopped = false; 
 		} else {
 			throw new IllegalStateException("startTetrisGame(): Game thread already exists.");
 		}
@@ -128,8 +272,19 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 
 	/**
 	 * Stops the current game.<br/>
+	 * A headless game is stopped at once and must only be stopped by the thread driving it.
 	 */
 	public void stopTetrisGame() {
+		if (_headless) {
+			if (!_gameStopped) {
+				_phaseState = TetrisPhase.GAMEOVER;
+				_gameStopped = true;
+				_stopTime = _clock.nanoTime();
+				recordEnd();
+				_snapshotStale = true;
+			}
+			return;
+		}
 		if (_gameThread==null || !_gameThread.isAlive()) {
 			throw new IllegalStateException("stopTetrisGame(): Game thread is not running");
 		}
@@ -139,6 +294,136 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 		_gameThread.interrupt();
 	}
 
+	/**
+	 * Starts a headless game on the caller's thread and advances it until the first Tetrimino is falling.<br/>
+	 * The game is then driven by <code>input()</code>, <code>tick()</code> and <code>stepPiece()</code>.
+	 */
+	public void startHeadless() {
+		if (!_headless) {
+			throw new IllegalStateException("startHeadless(): Game is not headless.");
+		}
+		if (_phaseState != TetrisPhase.NOTSTARTED) {
+			throw new IllegalStateException("startHeadless(): Game already started.");
+		}
+		_gameStopped = false;
+		_startTime = _clock.nanoTime();
+		// run completion phase one time to set level 
+		// completion will the go to generation phase
+		completionPhase();
+		tickUntilFalling();
+	}
+
+	/**
+	 * Applies a control event to the current Tetrimino of a headless game as the game thread would during the 
+	 * FALLING and LOCK phase. Ignored in all other phases.
+	 * @param event
+	 */
+	public void input(TetrisControlEvents event) {
+		checkHeadless();
+		switch (_phaseState) {
+		case FALLING:
+			recordInput(event);
+			if (fallingInput(event)) {
+				fallingDown(0);
+			}
+			break;
+		case LOCK:
+			recordInput(event);
+			if (lockInput(event)) {
+				lockDown();
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Advances a headless game by one logical tick. In FALLING and LOCK phase a tick is the falling or lock time 
+	 * running out, in all other phases the phase is run once.
+	 */
+	public void tick() {
+		checkHeadless();
+		final long start = System.nanoTime(); // engine cost - not game time
+		switch (_phaseState) {
+		case FALLING: {
+			final int ticks = ticksToNextRow(calculateGravity());
+			advanceClock(ticks * GRAVITY_TICK_NANOS);
+			recordTick();
+			fallingDown(applyGravity(ticks));
+			_metrics.recordPhase(TetrisPhase.FALLING, System.nanoTime() - start);
+			break;
+		}
+		case LOCK:
+			advanceClock(TimeUnit.MILLISECONDS.toNanos(LOCK_TIME));
+			recordTick();
+			lockDown();
+			_metrics.recordPhase(TetrisPhase.LOCK, System.nanoTime() - start);
+			break;
+		default:
+			runPhase();
+			break;
+		}
+		if (_phaseState == TetrisPhase.GAMEOVER && !_gameStopped) {
+			_gameStopped = true;
+			_stopTime = _clock.nanoTime();
+			saveHighScore();
+			recordEnd();
+		}
+		_snapshotStale = true;
+	}
+
+	/**
+	 * Hard drops the current Tetrimino of a headless game and advances the game until the next Tetrimino is falling 
+	 * or the game is over.
+	 * @return true if the game is still running
+	 */
+	public boolean stepPiece() {
+		input(TetrisControlEvents.HARDDOWN);
+		return tickUntilFalling();
+	}
+
+	/**
+	 * Advances a headless game without any input until the next Tetrimino is falling or the game is over. The 
+	 * current Tetrimino falls and locks by gravity and the lock timer - e.g. after a bot has sent all its moves 
+	 * and the hard drop for it.
+	 * @return true if the game is still running
+	 */
+	public boolean advanceToNextPiece() {
+		checkHeadless();
+		final int pieces = _pieceCount;
+		while (_pieceCount == pieces && !_gameStopped) {
+			tick();
+		}
+		return tickUntilFalling();
+	}
+
+	/*
+	 * Ticks until a Tetrimino is falling or the game is over
+	 * Returns true if the game is still running
+	 */
+	private boolean tickUntilFalling() {
+		while (_phaseState != TetrisPhase.FALLING && !_gameStopped) {
+			tick();
+		}
+		return !_gameStopped;
+	}
+
+	/*
+	 * In logical time the timer runs out exactly at a tick 
+	 */
+	private void advanceClock(long nanos) {
+		if (_clock instanceof ManualClock) {
+			((ManualClock) _clock).advance(nanos);
+		}
+	}
+
+	private void checkHeadless() {
+		if (!_headless) {
+			throw new IllegalStateException("Only a headless game can be driven by the caller.");
+		}
+	}
+
 	/**
 	 * Implements the Runnable interface
 	 * @see java.lang.Runnable#run()
@@ -147,9 +432,9 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 	public void run() {
 		
 		// -- tell the view that model has changed
-		setChanged();
-		notifyObservers("Game Thread started");
-		_sounds.playClip(Clips.GAME_START);
+		_startTime = _clock.nanoTime();
+		fire(TetrisEvent.GameStarted::new);
+		playClip(Clips.GAME_START);
 
 		// run completion phase one time to set level 
 		// completion will the go to generation phase
@@ -160,129 +445,141 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 
 		do { // loop as long as game is running
 
-			/* ******************************************************
-			 * TETRIS STATE MACHINE 
-			 ********************************************************/
-			switch (_phaseState) {
-			case GENERATION:
-				/*
-				 * Random Generation
-				 * Tetris uses a "bag" system to determine the sequence of Tetriminos that appear during game play. 
-				 * This system allows for equal distribution among the seven Tetriminos.
-				 * The seven different Tetriminos are placed into a virtual bag, then shuffled into a random order. 
-				 * This order is the sequence that the bag "feeds" the Next Queue. Every time a new Tetrimino is 
-				 * generated and starts its fall within the Matrix, the Tetrimino at the front of the line in the bag 
-				 * is placed at the end of the Next Queue, pushing all Tetriminos in the Next Queue forward by one. 
-				 * The bag is refilled and re-shuffled once it is empty.
-				 */
-				generationPhase();
-				break;
-			case FALLING:
-				/*
-				 * Throughout the Falling Phase, the player can move, rotate, Soft Drop, Hard Drop, and Hold a 
-				 * Tetrimino. The Tetrimino enters the Lock Phase once it lands on a Surface.
-				 */
-				fallingPhase(); 
-				break;
-			case LOCK:
-				/*
-				 * The player can perform the same actions on a Tetrimino in this phase as he/she can in the 
-				 * Falling Phase, as long as the Tetrimino is not yet Locked down. A Tetrimino that is Hard Dropped 
-				 * Locks Down immediately. However, if a Tetrimino naturally falls or Soft Drops onto a landing 
-				 * Surface, it is given 0.5 seconds on a Lock Down Timer before it actually Locks Down.
-				 * Three rule sets "Infinite Placement, Extended, and Classic" dictate the conditions for Lock Down 
-				 * 
-				 * Note: Using the Super Rotation System, rotating a Tetrimino often causes the y-coordinate of the 
-				 * Tetrimino to increase, i.e., it "lifts up" off the Surface it landed on. The Lock Down Timer does 
-				 * not reset in this case, but it does stop counting down until the Tetrimino lands again on a Surface
-				 * that has the same (or higher) y-coordinate as it did before it was rotated. Only if it lands on a 
-				 * Surface with a lower y-coordinate will the timer reset.
-				 * 
-				 * If moving or rotating a Tetrimino causes it to fall again, it re-enters the Falling Phase. Once the 
-				 * Tetrimino is fully Locked Down, it enters the Pattern Phase.
-				 */
-				lockPhase();
-				break;
-			case PATTERN:
-				/*
-				 * In this phase, the engine looks for patterns made from Locked Down Blocks in the Matrix. Once a 
-				 * pattern has been matched, it can trigger any number of Tetris variant-related effects.
-				 * The classic pattern is the Line Clear pattern. This pattern is matched when one or more rows of 
-				 * 10 horizontally aligned Matrix cells are occupied by Blocks. The matching Blocks are then marked
-				 * for removal on a hit list. Blocks on the hit list are cleared from the Matrix at a later time in 
-				 * the Eliminate Phase.
-				 */
-				patternPhase();
-				break;
-			case ITERATE:
-				/*
-				 * In this phase, the engine is given a chance to scan through all cells in the Matrix and evaluate or 
-				 * manipulate them according to an editor-defined iteration script. This phase consumes no apparent 
-				 * game time.
-				 * Note: This phase is included in the engine to allow for more complicated variants in the future, 
-				 * and has thus far not been used.
-				 */
-				_phaseState = TetrisPhase.ANIMATE;
-				break;
-			case ANIMATE:
-				/*
-				 * Here, any animation scripts are executed within the Matrix. The Tetris Engine moves on to the 
-				 * Eliminate Phase once all animation scripts have been run.
-				 */
-				_phaseState = TetrisPhase.ELIMINATE; // not implemented
-				break;
-			case ELIMINATE:
-				/*
-				 * Any Minos marked for removal, i.e., on the hit list, are cleared from the Matrix in this phase. If 
-				 * this results in one or more complete 10-cell rows in the Matrix becoming unoccupied by Minos, then 
-				 * all Minos above that row(s) collapse, or fall by the number of complete rows cleared from the 
-				 * Matrix. Points are awarded to the player according to the Tetris Scoring System, as seen in the 
-				 * Scoring section.
-				 * 
-				 * Game Statistics
-				 * Statistics such as the number of Singles, Doubles, Triples, Tetrises, and T-Spins can also be 
-				 * tracked in the Eliminate Phase. Ideally, some sort of High Score Table should record the player�s
-				 * name, the highest level reached, his total score, and other statistics that can be tracked in 
-				 * this phase.
-				 */
-				eliminatePhase();
-				break;
-			case COMPLETION:
-				/*
-				 * This is where any updates to information fields on the Tetris playfield are updated, such as the 
-				 * Score and Time. The Level Up condition is also checked to see if it is necessary to advance the 
-				 * game level.
-				 * Whether the player Levels Up or not, control flows back into the Generation Phase of the 
-				 * Next Tetrimino.
-				 */
-				completionPhase();
-				break;
-			case GAMEOVER:
-				_gameStopped=true;
-				break;
-			case NOTSTARTED:
-				// do nothings
-				break;
-			default:
-				break;
-			}
+			runPhase();
 
 			// -- tell the view that model has changed
-			setChanged();
-			notifyObservers("After PHASE loop");
+			firePhaseChanged();
 
 			waitIfPaused();
 
 		} while (_gameStopped == false);
 
 		// game stopped
+		_stopTime = _clock.nanoTime();
 		
-		// save highscore 
-		_highScoreData.addEntryAndSave(_playerName, _score, _currentLevel, _tetrisesCount, _lineCount, LocalDateTime.now());
+		saveHighScore();
+		recordEnd();
 
 		// -- tell the view that model has changed
-		setChanged();
-		notifyObservers("Game Thread stopped");
+		fire(TetrisEvent.GameStopped::new);
+
+		_metrics.unregister();
+	}
+
+	/**
+	 * Runs the current phase of the Tetris state machine once 
+	 */
+	private void runPhase() {
+		final TetrisPhase phase = _phaseState;
+		final long start = System.nanoTime(); // engine cost - not game time
+		_waitNanos = 0;
+		/* ******************************************************
+		 * TETRIS STATE MACHINE 
+		 ********************************************************/
+		switch (_phaseState) {
+		case GENERATION:
+			/*
+			 * Random Generation
+			 * Tetris uses a "bag" system to determine the sequence of Tetriminos that appear during game play. 
+			 * This system allows for equal distribution among the seven Tetriminos.
+			 * The seven different Tetriminos are placed into a virtual bag, then shuffled into a random order. 
+			 * This order is the sequence that the bag "feeds" the Next Queue. Every time a new Tetrimino is 
+			 * generated and starts its fall within the Matrix, the Tetrimino at the front of the line in the bag 
+			 * is placed at the end of the Next Queue, pushing all Tetriminos in the Next Queue forward by one. 
+			 * The bag is refilled and re-shuffled once it is empty.
+			 */
+			generationPhase();
+			break;
+		case FALLING:
+			/*
+			 * Throughout the Falling Phase, the player can move, rotate, Soft Drop, Hard Drop, and Hold a 
+			 * Tetrimino. The Tetrimino enters the Lock Phase once it lands on a Surface.
+			 */
+			fallingPhase(); 
+			break;
+		case LOCK:
+			/*
+			 * The player can perform the same actions on a Tetrimino in this phase as he/she can in the 
+			 * Falling Phase, as long as the Tetrimino is not yet Locked down. A Tetrimino that is Hard Dropped 
+			 * Locks Down immediately. However, if a Tetrimino naturally falls or Soft Drops onto a landing 
+			 * Surface, it is given 0.5 seconds on a Lock Down Timer before it actually Locks Down.
+			 * Three rule sets "Infinite Placement, Extended, and Classic" dictate the conditions for Lock Down 
+			 * 
+			 * Note: Using the Super Rotation System, rotating a Tetrimino often causes the y-coordinate of the 
+			 * Tetrimino to increase, i.e., it "lifts up" off the Surface it landed on. The Lock Down Timer does 
+			 * not reset in this case, but it does stop counting down until the Tetrimino lands again on a Surface
+			 * that has the same (or higher) y-coordinate as it did before it was rotated. Only if it lands on a 
+			 * Surface with a lower y-coordinate will the timer reset.
+			 * 
+			 * If moving or rotating a Tetrimino causes it to fall again, it re-enters the Falling Phase. Once the 
+			 * Tetrimino is fully Locked Down, it enters the Pattern Phase.
+			 */
+			lockPhase();
+			break;
+		case PATTERN:
+			/*
+			 * In this phase, the engine looks for patterns made from Locked Down Blocks in the Matrix. Once a 
+			 * pattern has been matched, it can trigger any number of Tetris variant-related effects.
+			 * The classic pattern is the Line Clear pattern. This pattern is matched when one or more rows of 
+			 * 10 horizontally aligned Matrix cells are occupied by Blocks. The matching Blocks are then marked
+			 * for removal on a hit list. Blocks on the hit list are cleared from the Matrix at a later time in 
+			 * the Eliminate Phase.
+			 */
+			patternPhase();
+			break;
+		case ITERATE:
+			/*
+			 * In this phase, the engine is given a chance to scan through all cells in the Matrix and evaluate or 
+			 * manipulate them according to an editor-defined iteration script. This phase consumes no apparent 
+			 * game time.
+			 * Note: This phase is included in the engine to allow for more complicated variants in the future, 
+			 * and has thus far not been used.
+			 */
+			_phaseState = TetrisPhase.ANIMATE;
+			break;
+		case ANIMATE:
+			/*
+			 * Here, any animation scripts are executed within the Matrix. The Tetris Engine moves on to the 
+			 * Eliminate Phase once all animation scripts have been run.
+			 */
+			_phaseState = TetrisPhase.ELIMINATE; // not implemented
+			break;
+		case ELIMINATE:
+			/*
+			 * Any Minos marked for removal, i.e., on the hit list, are cleared from the Matrix in this phase. If 
+			 * this results in one or more complete 10-cell rows in the Matrix becoming unoccupied by Minos, then 
+			 * all Minos above that row(s) collapse, or fall by the number of complete rows cleared from the 
+			 * Matrix. Points are awarded to the player according to the Tetris Scoring System, as seen in the 
+			 * Scoring section.
+			 * 
+			 * Game Statistics
+			 * Statistics such as the number of Singles, Doubles, Triples, Tetrises, and T-Spins can also be 
+			 * tracked in the Eliminate Phase. Ideally, some sort of High Score Table should record the player�s
+			 * name, the highest level reached, his total score, and other statistics that can be tracked in 
+			 * this phase.
+			 */
+			eliminatePhase();
+			break;
+		case COMPLETION:
+			/*
+			 * This is where any updates to information fields on the Tetris playfield are updated, such as the 
+			 * Score and Time. The Level Up condition is also checked to see if it is necessary to advance the 
+			 * game level.
+			 * Whether the player Levels Up or not, control flows back into the Generation Phase of the 
+			 * Next Tetrimino.
+			 */
+			completionPhase();
+			break;
+		case GAMEOVER:
+			_gameStopped=true;
+			break;
+		case NOTSTARTED:
+			// do nothings
+			break;
+		default:
+			break;
+		}
+		_metrics.recordPhase(phase, System.nanoTime() - start - _waitNanos);
 	}
 
 	/**
@@ -290,15 +587,15 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 	 */
 	private void generationPhase() {
 		// get next Tetrimino from nextQueue
-		Tetrimino next = _nextQueue.getNext();
+		TetriminoShape next = _nextQueue.getNext();
+		_gravityAccumulator = 0;
 		// spawn it on the playfield
-		if (_playfield.spawn(next)) {
+		if (_playfield.spawn(Piece.spawn(next))) {
 			// collision detected - "BLOCK OUT" GAME OVER CONDITION
 			_phaseState = TetrisPhase.GAMEOVER;
 			// -- tell the view that model has changed
-			setChanged();
-			notifyObservers("Game Over");
-			_sounds.playClip(Clips.GAME_OVER);
+			fire(TetrisEvent.GameOver::new);
+			playClip(Clips.GAME_OVER);
 		} else {
 			// Immediately fall into visible area and check for collision
 			if (_playfield.moveDown()) {
@@ -307,8 +604,7 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 			}
 			_phaseState = TetrisPhase.FALLING;
 			// -- tell the view that model has changed
-			setChanged();
-			notifyObservers("Generation finished");
+			fire(TetrisEvent.PieceSpawned::new);
 		}
 	}
 
@@ -317,9 +613,10 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 	 */
 	private void fallingPhase() {
 
-		// Start falling timer
+		// Start falling timer - it wakes us only when gravity has accumulated at least one full row
+		final int ticks = ticksToNextRow(calculateGravity());
 		_fallingTimer.addObserver(this);
-		_fallingTimer.setTimer(calculateFallingTime());
+		_fallingTimer.setTimerNanos(ticks * GRAVITY_TICK_NANOS);
 		_fallingTimer.start();
 
 		// While timer is >0 allow movements
@@ -330,99 +627,143 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 		do {
 			// handle movement events
 			// Take next control event or wait until available
-			TetrisControlEvents event = TetrisControlEvents.NONE;
-			try { 
-				event = _controlQueue.take(); // blocks until an event is available
-			} catch (InterruptedException e) { /* empty*/ }
+			// blocks until an event is available - the timer wakes us up with NONE
+			final long wait = System.nanoTime();
+			TetrisControlEvents event = _controlQueue.take();
+			final boolean waited = waitIfPaused();
+			_waitNanos += System.nanoTime() - wait;
 
-			waitIfPaused();
+			startInput(event, waited);
 
-			// event handling
-			switch(event) {
-			case LEFT:	
-				if(_playfield.moveSideway(-1)) {
-					_sounds.playClip(Clips.TOUCH_LR);
-				} else {
-					_sounds.playClip(Clips.MOVE_LR);
-				}; 
-
-				break;
-			case RIGHT:
-				if(_playfield.moveSideway(1)) {
-					_sounds.playClip(Clips.TOUCH_LR);
-				} else {
-					_sounds.playClip(Clips.MOVE_LR);
-				}; 
-				break;
-			case RTURN:
-				if(_playfield.turnMove(1)) {
-					_sounds.playClip(Clips.ROTATE_FAIL);
-				} else {
-					_sounds.playClip(Clips.ROTATE_LR);
-				}; 
-				break;
-			case LTURN:
-				if(_playfield.turnMove(-1)) {
-					_sounds.playClip(Clips.ROTATE_FAIL);
-				} else {
-					_sounds.playClip(Clips.ROTATE_LR);
-				}; 
-				break;
-			case SOFTDOWN:				
-				_playfield.moveDown();	// ignored if no move possible
-				_lastSoftDropLineCount+=1;
-				_sounds.playClip(Clips.SOFTDROP);
-				break;
-			case HARDDOWN:				
-				_lastHardDropLineCount = _playfield.drop(); 
-				setChanged();
-				notifyObservers("During FALLING after HARDOWN");
-				_sounds.playClip(Clips.HARDDROP);
-				breakFlag = true;
-				break;
-			case HOLD:
-				if (_holdAllowed) {
-					Tetrimino toField = _holdQueue == null ? _nextQueue.getNext() : _holdQueue;
-					try { // to reset start coordinates we use a new object - avoids a long switch statement :)
-						_holdQueue = _playfield.getCurrentTetrimino().getClass().newInstance();
-					} catch (InstantiationException e) {
-						e.printStackTrace();
-					} catch (IllegalAccessException e) {
-						e.printStackTrace();
-					} 
-					_playfield.spawn(toField);
-					_sounds.playClip(Clips.HOLD);
-				}
-				_holdAllowed = false; 
-				break;
-			case NONE:
-				break;
-			}
+			breakFlag = fallingInput(event);
 
-			// -- tell the view that model has changed
-			setChanged();
-			notifyObservers("During FALLING");
+			_pendingInputTime = GameSnapshot.NO_INPUT;
 
-		} while (!breakFlag && _fallingTimer.getRemainingTime() > 0);
+		} while (!breakFlag && _fallingTimer.getRemainingNanos() > 0 && !_gameStopped);
 
 		// stop the timer just t make sure
 		_fallingTimer.stop();
 
-		// time is <=0 shift Tetrimino DOWN
-		// if landed on surface then phase = LOCK
-		// else start over with FALLING
-		if (_playfield.moveDown()) { 
+		// stopped before the falling time ran out
+		if (!breakFlag && _gameStopped) return;
+
+		// after a hard drop gravity has no effect
+		if (!breakFlag) recordTick();
+		fallingDown(breakFlag ? 0 : applyGravity(ticks));
+	}
+
+	/*
+	 * Handles one control event in FALLING phase.
+	 * Returns true if the falling phase ends (HARDDOWN) 
+	 */
+	private boolean fallingInput(TetrisControlEvents event) {
+		boolean breakFlag = false;
+		boolean held = false;
+		final int before = _playfield.getCurrentPiece();
+
+		// event handling
+		switch(event) {
+		case LEFT:	
+			if(_playfield.moveSideway(-1)) {
+				playClip(Clips.TOUCH_LR);
+			} else {
+				playClip(Clips.MOVE_LR);
+			}; 
+
+			break;
+		case RIGHT:
+			if(_playfield.moveSideway(1)) {
+				playClip(Clips.TOUCH_LR);
+			} else {
+				playClip(Clips.MOVE_LR);
+			}; 
+			break;
+		case RTURN:
+			if(_playfield.turnMove(1)) {
+				playClip(Clips.ROTATE_FAIL);
+			} else {
+				playClip(Clips.ROTATE_LR);
+			}; 
+			break;
+		case LTURN:
+			if(_playfield.turnMove(-1)) {
+				playClip(Clips.ROTATE_FAIL);
+			} else {
+				playClip(Clips.ROTATE_LR);
+			}; 
+			break;
+		case SOFTDOWN:				
+			_playfield.moveDown();	// ignored if no move possible
+			_lastSoftDropLineCount+=1;
+			playClip(Clips.SOFTDROP);
+			break;
+		case HARDDOWN:				
+			_lastHardDropLineCount = _playfield.drop(); 
+			playClip(Clips.HARDDROP);
+			breakFlag = true;
+			break;
+		case HOLD:
+			if (_holdAllowed) {
+				TetriminoShape toField = _holdQueue == null ? _nextQueue.getNext() : _holdQueue;
+				// the Tetrimino goes to the hold as a shape only - it will start at the spawn position again
+				_holdQueue = Piece.shape(_playfield.getCurrentPiece());
+				_playfield.spawn(Piece.spawn(toField));
+				playClip(Clips.HOLD);
+				held = true;
+			}
+			_holdAllowed = false; 
+			break;
+		case NONE:
+			break;
+		}
+
+		// -- tell the view that model has changed
+		if (held) {
+			fire(TetrisEvent.PieceSpawned::new);
+		} else if (_playfield.getCurrentPiece() != before) {
+			fire(TetrisEvent.PieceMoved::new);
+		}
+
+		return breakFlag;
+	}
+
+	/*
+	 * End of a falling step when the falling time is over or after a hard drop.
+	 * Moves the Tetrimino down the given rows at once (up to the surface) - if it was already on the surface or 
+	 * gravity would move it further than the surface it enters the LOCK phase. 
+	 */
+	private void fallingDown(int rows) {
+		final int distance = _playfield.canMoveDown() ? _playfield.moveDown(rows) : 0;
+		if (distance == 0 || distance < rows) { 
 			// landed on surface
 			_phaseState = TetrisPhase.LOCK;
 			// -- tell the view that model has changed
-			setChanged();
-			notifyObservers("During FALLING");
-			_sounds.playClip(Clips.TOUCHDOWN);
+			firePhaseChanged();
+			playClip(Clips.TOUCHDOWN);
 		} else {
-			_sounds.playClip(Clips.FALLING);
+			fire(TetrisEvent.PieceMoved::new);
+			playClip(Clips.FALLING);
 		}
 	}
 
+	/*
+	 * Number of gravity ticks until the accumulated gravity reaches the next full row 
+	 */
+	private int ticksToNextRow(int gravity) {
+		final int missing = CELL - _gravityAccumulator;
+		return Math.max(1, (missing + gravity - 1) / gravity);
+	}
+
+	/*
+	 * Accumulates the gravity of the given ticks and returns the full rows to fall. The remaining fraction of a 
+	 * row is kept for the next step.
+	 */
+	private int applyGravity(int ticks) {
+		final long cells = _gravityAccumulator + (long) ticks * calculateGravity();
+		_gravityAccumulator = (int) (cells % CELL);
+		return (int) (cells / CELL);
+	}
+
 	/**
 	 * LOCK phase
 	 * Implements the INFINITE PLACEMENT LOCK DOWN	
@@ -431,9 +772,9 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 	private void lockPhase() {
 		//System.out.println("Enter LOCK phase");
 
-		// Start lock timer - lock time is always 500ms
+		// Start lock timer - lock time is always LOCK_TIME
 		_lockTimer.addObserver(this);
-		_lockTimer.restart();
+		restartLockTimer();
 
 		// While timer is >0 allow movements
 		// movement = inputs from keyboard (events)
@@ -443,74 +784,101 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 		do {
 			// handle movement events
 			// Take next control event or wait until available
-			TetrisControlEvents event = TetrisControlEvents.NONE;
-			try { 
-				event = _controlQueue.take();
-			} catch (InterruptedException e) { /* empty*/ }
+			final long wait = System.nanoTime();
+			TetrisControlEvents event = _controlQueue.take();
+			final boolean waited = waitIfPaused();
+			_waitNanos += System.nanoTime() - wait;
 
-			waitIfPaused();
+			startInput(event, waited);
 
-			// event handling
-			switch(event) {
-			case LEFT:	
-				if (!_playfield.moveSideway(-1)) { // if moved reset timer
-					_lockTimer.restart();
-				}
-				break;
-			case RIGHT:
-				if (!_playfield.moveSideway(1)) { // if moved reset timer
-					_lockTimer.restart();				}
-				break;
-			case RTURN:
-				if (!_playfield.turnMove(1)) { // if moved reset timer
-					_lockTimer.restart();				}
-				break;
-			case LTURN:
-				if (!_playfield.turnMove(-1)) { // if moved reset timer
-					_lockTimer.restart();				}
-				break;
-			case SOFTDOWN:		
-				// ignore in LOCK
-				break;
-			case HARDDOWN:				
-				while (!_playfield.moveDown()) {
-					// -- tell the view that model has changed
-					setChanged();
-					notifyObservers("During LOCK after HARDDOWN");
-				}
-				breakFlag = true;
-				break;
-			case HOLD:
-				// ignore in LOCK
-				break;
-			case NONE:
-				break;
-			}
-
-			// check if Tetrimino can move down
-			// if yes then go back to phase FALLING
-			if (_playfield.canMoveDown()) {
-				//System.out.println("LOCK CAN MOVE -> FALLING");
-				breakFlag = true;
-				_phaseState = TetrisPhase.FALLING;
-			}
+			breakFlag = lockInput(event);
 
-			// -- tell the view that model has changed
-			setChanged();
-			notifyObservers("During LOCK");
-			_sounds.playClip(Clips.LOCK);
+			_pendingInputTime = GameSnapshot.NO_INPUT;
 
-		} while (!breakFlag && _lockTimer.getRemainingTime() > 0);
+		} while (!breakFlag && _lockTimer.getRemainingNanos() > 0 && !_gameStopped);
 
 		// stop the timer just to make sure
 		_lockTimer.stop();
 
+		// stopped before the lock time ran out
+		if (!breakFlag && _gameStopped) return;
+
+		if (!breakFlag) recordTick();
+		lockDown();
+	}
+
+	/*
+	 * Handles one control event in LOCK phase.
+	 * Returns true if the lock phase ends (HARDDOWN or the Tetrimino can fall again) 
+	 */
+	private boolean lockInput(TetrisControlEvents event) {
+		boolean breakFlag = false;
+		final int before = _playfield.getCurrentPiece();
+
+		// event handling
+		switch(event) {
+		case LEFT:	
+			if (!_playfield.moveSideway(-1)) { // if moved reset timer
+				restartLockTimer();
+			}
+			break;
+		case RIGHT:
+			if (!_playfield.moveSideway(1)) { // if moved reset timer
+				restartLockTimer();				}
+			break;
+		case RTURN:
+			if (!_playfield.turnMove(1)) { // if moved reset timer
+				restartLockTimer();				}
+			break;
+		case LTURN:
+			if (!_playfield.turnMove(-1)) { // if moved reset timer
+				restartLockTimer();				}
+			break;
+		case SOFTDOWN:		
+			// ignore in LOCK
+			break;
+		case HARDDOWN:				
+			_playfield.drop();
+			breakFlag = true;
+			break;
+		case HOLD:
+			// ignore in LOCK
+			break;
+		case NONE:
+			break;
+		}
+
+		// check if Tetrimino can move down
+		// if yes then go back to phase FALLING
+		if (_playfield.canMoveDown()) {
+			//System.out.println("LOCK CAN MOVE -> FALLING");
+			breakFlag = true;
+			_phaseState = TetrisPhase.FALLING;
+		}
+
+		// -- tell the view that model has changed
+		if (_playfield.getCurrentPiece() != before) {
+			fire(TetrisEvent.PieceMoved::new);
+		}
+		firePhaseChanged();
+		playClip(Clips.LOCK);
+
+		return breakFlag;
+	}
+
+	/*
+	 * End of the lock phase when the lock time is over or the lock phase was left early 
+	 */
+	private void lockDown() {
 		// allow new holds
 		_holdAllowed = true;
 
 		// merge Tetrimino into background
 		if (_phaseState == TetrisPhase.LOCK) {// only merge if we are still in phase LOCK
 			_playfield.merge();
+			_pieceCount++;
+			if (_recorder != null) _recorder.piece(_playfield.getHash(), _score);
+			fire(TetrisEvent.PieceLocked::new);
 			_phaseState = TetrisPhase.PATTERN; // go to next phase
 		}
 
@@ -554,14 +922,14 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 
 		// other statistics
 		if (_lastClearedLinesCount > 0) {
-			_sounds.playClip(Clips.LINECLEAR);
 			if (_lastClearedLinesCount == 4) {
 				_tetrisesCount++;
-				// -- tell the view that model has changed
-				setChanged();
-				notifyObservers("TETRIS");
-				_sounds.playClip(Clips.TETRIS);
 			}
+			// -- tell the view that model has changed
+			final int lines = _lastClearedLinesCount;
+			_metrics.recordLinesCleared(lines);
+			fire(snapshot -> new TetrisEvent.LinesCleared(snapshot, lines));
+			playClip(lines == 4 ? Clips.TETRIS : Clips.LINECLEAR);
 		}
 
 		// reset the counters
@@ -585,7 +953,7 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 			_currentLevel = _lineCount/10 +1;
 			if (_currentLevel > 15) _currentLevel = 15;
 			if (_currentLevel > old) {
-				_sounds.playClip(Clips.LEVELUP);
+				playClip(Clips.LEVELUP);
 			}
 		}
 		_phaseState = TetrisPhase.GENERATION;
@@ -607,6 +975,15 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 		return score;
 	}
 
+	/**
+	 * @return the gravity for the current level in cells per tick (fixed point with CELL as one cell)
+	 */
+	private int calculateGravity() {
+		final long fallingTime = TimeUnit.MILLISECONDS.toNanos(calculateFallingTime());
+		final long gravity = Math.round(GRAVITY_TICK_NANOS * (double) CELL / fallingTime);
+		return (int) Math.min(MAX_GRAVITY, Math.max(1, gravity));
+	}
+
 	/**
 	 * @return the falling time for the current level
 	 */
@@ -631,12 +1008,134 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 		}
 	}
 
+	/*
+	 * Restarts the lock timer after a successful move in LOCK phase - headless games have no timers
+	 */
+	private void restartLockTimer() {
+		if (!_headless) {
+			_lockTimer.restart();
+		}
+	}
+
+	/*
+	 * Tells the readers and listeners that the model has changed. The event is created from the new snapshot 
+	 * only if there are listeners.
+	 * Headless games have no listeners and create a new snapshot only when it is asked for. 
+	 */
+	private void fire(Function<GameSnapshot, TetrisEvent> event) {
+		if (_headless) {
+			_snapshotStale = true;
+			return;
+		}
+		publishSnapshot();
+		if (_eventBus.hasListeners()) {
+			_eventBus.fire(event.apply(_snapshot));
+		}
+	}
+
+	/*
+	 * Sends PhaseChanged if the phase is different from the last one sent 
+	 */
+	private void firePhaseChanged() {
+		if (_phaseState != _lastFiredPhase) {
+			_lastFiredPhase = _phaseState;
+			fire(TetrisEvent.PhaseChanged::new);
+		}
+	}
+
+	/*
+	 * Plays a sound clip - games without sounds are silent
+	 */
+	private void playClip(Clips clip) {
+		if (_sounds != null && _soundOn) {
+			_sounds.playClip(clip);
+		}
+	}
+
+	/*
+	 * Records an accepted control event if the game is recorded
+	 */
+	private void recordInput(TetrisControlEvents event) {
+		if (_recorder != null && event != TetrisControlEvents.NONE) {
+			_recorder.input(event, getPlayTime());
+		}
+	}
+
+	/*
+	 * Records that the falling or lock time ran out if the game is recorded
+	 */
+	private void recordTick() {
+		if (_recorder != null) {
+			_recorder.tick(getPlayTime());
+		}
+	}
+
+	/*
+	 * Records the end of the game and closes the replay if the game is recorded
+	 */
+	private void recordEnd() {
+		if (_recorder != null) {
+			_recorder.end(_score, _pieceCount);
+		}
+	}
+
+	/*
+	 * Adds the result to the high score list if the game has one
+	 */
+	private void saveHighScore() {
+		if (_highScoreData != null) {
+			_highScoreData.addEntryAndSave(_playerName, _score, _currentLevel, _tetrisesCount, _lineCount, 
+					LocalDateTime.now());
+		}
+	}
+
+	/*
+	 * Creates a new snapshot of the current state and publishes it to the readers.
+	 * Only called by the thread changing the game.
+	 */
+	private void publishSnapshot() {
+		if (_pendingInputTime != GameSnapshot.NO_INPUT) {
+			// the first snapshot after an input reflects it
+			final long[] times = _inputTimes.clone();
+			times[(int) (_inputCount % GameSnapshot.INPUT_HISTORY)] = _pendingInputTime;
+			_inputTimes = times;
+			_inputCount++;
+			_pendingInputTime = GameSnapshot.NO_INPUT;
+		}
+		_snapshot = new GameSnapshot(++_snapshotSequenceNumber, this, _snapshot);
+	}
+
+	/*
+	 * Remembers when the control event was added to the queue so the snapshot showing its effect can carry the 
+	 * time. Events which had to wait for the end of a pause are not measured. 
+	 */
+	private void startInput(TetrisControlEvents event, boolean waited) {
+		recordInput(event);
+		if (event == TetrisControlEvents.NONE || waited) {
+			_pendingInputTime = GameSnapshot.NO_INPUT;
+		} else {
+			_pendingInputTime = _controlQueue.getTimestamp();
+			_metrics.recordQueueDepth(_controlQueue.size());
+		}
+	}
+
 	/**
 	 * This is called from the ui to add control events (e.g. key press) to our queue.
 	 * @param e
 	 */
 	public void controlQueueAdd(TetrisControlEvents e) {
-		_controlQueue.add(e);
+		_controlQueue.offer(e);
+	}
+
+	/**
+	 * This is called from the ui to add control events (e.g. key press) with the time they happened.
+	 * The time is used to measure the input latency. 
+	 * @param e
+	 * @param nanoTime time of the event from this game's clock
+	 * @see GameSnapshot#getInputTime()
+	 */
+	public void controlQueueAdd(TetrisControlEvents e, long nanoTime) {
+		_controlQueue.offer(e, nanoTime);
 	}
 
 	/**
@@ -645,13 +1144,14 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 	 */
 	@Override
 	public void update(Observable o, Object arg) {
-		_controlQueue.add(TetrisControlEvents.NONE);
+		_controlQueue.wakeUp();
 	}
 
 	/*
-	 * Checks if game is paused and waits until game is resumed 
+	 * Checks if game is paused and waits until game is resumed.
+	 * Returns true if it had to wait. 
 	 */
-	private void waitIfPaused() {
+	private boolean waitIfPaused() {
 		if (_isPaused) {
 			while (_isPaused && _gameStopped == false) {
 				//System.out.println("PAUSED "+LocalDateTime.now());
@@ -661,7 +1161,9 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 					}
 				} catch (InterruptedException e) { /* nothing */ }
 			}
+			return true;
 		}
+		return false;
 	}
 
 	/**
@@ -672,6 +1174,13 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 		return !_gameStopped; 
 	}
 
+	/**
+	 * @return true if the game has no thread, timers, sound and high score and is driven by the caller
+	 */
+	public boolean isHeadless() {
+		return _headless;
+	}
+
 	/**
 	 * @return the _isPaused
 	 */
@@ -683,13 +1192,42 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 	 * @param _isPaused the _isPaused to set
 	 */
 	public void setPaused(boolean _isPaused) {
+		if (_isPaused && !this._isPaused) {
+			_pauseStartTime = _clock.nanoTime();
+		} else if (!_isPaused && this._isPaused) {
+			_pausedTime += _clock.nanoTime() - _pauseStartTime;
+		}
 		this._isPaused = _isPaused;
-		synchronized (_gameThread) {
-			_gameThread.notify();
+		if (_gameThread != null) { // headless games have no thread to wake
+			synchronized (_gameThread) {
+				_gameThread.notify();
+			}
 		}
 		// -- tell the view that model has changed
-		setChanged();
-		notifyObservers("Game paused: "+_isPaused);
+		if (_eventBus.hasListeners()) {
+			_eventBus.fire(new TetrisEvent.Paused(_snapshot, _isPaused));
+		}
+	}
+
+	/**
+	 * @return the registry for listeners of this game's events
+	 */
+	public TetrisEventBus getEventBus() {
+		return _eventBus;
+	}
+
+	/**
+	 * Returns the latest consistent state of the game. Can be called from any thread without locking - the 
+	 * returned snapshot never changes.<br/>
+	 * A headless game creates its snapshot here so it must only be called from the thread driving the game.
+	 * @return the latest snapshot
+	 */
+	public GameSnapshot getSnapshot() {
+		if (_snapshotStale) {
+			_snapshotStale = false;
+			publishSnapshot();
+		}
+		return _snapshot;
 	}
 
 	/**
@@ -707,12 +1245,19 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 	}
 
 	/**
-	 * @return the Tetrimino in hold
+	 * @return the shape of the Tetrimino in hold or null
 	 */
-	public Tetrimino getHoldTetrimino() {
+	public TetriminoShape getHoldShape() {
 		return _holdQueue;
 	}
 
+	/**
+	 * @return true if hold can be used for the current Tetrimino
+	 */
+	boolean isHoldAllowed() {
+		return _holdAllowed;
+	}
+
 	/**
 	 * @return the _startLevel
 	 */
@@ -742,7 +1287,7 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 	}
 
 	/**
-	 * @return the _nextQueue
+	 * @return the high score data - null for headless games
 	 */
 	public HighScoreData getHighScoreData() {
 		return _highScoreData;
@@ -762,6 +1307,114 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 		return _tetrisesCount;
 	}
 
+	/**
+	 * Records the game to a replay. Must be called before the game is started. The game must use a randomizer 
+	 * from <code>recorder.newRandomizer()</code>.
+	 * @param recorder
+	 */
+	public void setReplayRecorder(ReplayRecorder recorder) {
+		if (_phaseState != TetrisPhase.NOTSTARTED || _gameThread != null) {
+			throw new IllegalStateException("setReplayRecorder(): Game already started.");
+		}
+		if (recorder.getStartLevel() != _startLevel || recorder.getNextQueueSize() != _nextQueue.size()) {
+			throw new IllegalArgumentException("setReplayRecorder(): Recorder has different settings.");
+		}
+		_recorder = recorder;
+	}
+
+	/**
+	 * @return the recorder of this game or null if it is not recorded
+	 */
+	public ReplayRecorder getReplayRecorder() {
+		return _recorder;
+	}
+
+	/**
+	 * Seeds the random decisions of the bots playing this game so a game can be played again the same way. Must 
+	 * be called before the bots are created.
+	 * @param seed
+	 */
+	public void setBotSeed(long seed) {
+		if (_phaseState != TetrisPhase.NOTSTARTED || _gameThread != null) {
+			throw new IllegalStateException("setBotSeed(): Game already started.");
+		}
+		_botRandom = new SplittableRandom(seed);
+	}
+
+	/**
+	 * @return a new random for a bot playing this game - split from the bot seed if the game has one
+	 */
+	public synchronized SplittableRandom newBotRandom() {
+		return _botRandom == null ? new SplittableRandom() : _botRandom.split();
+	}
+
+	/**
+	 * @return the phase timers and counters of this game
+	 */
+	public GameMetrics getMetrics() {
+		return _metrics;
+	}
+
+	/**
+	 * @return the queue of control events - for metrics only
+	 */
+	ControlQueue getControlQueue() {
+		return _controlQueue;
+	}
+
+	/**
+	 * @return the number of Tetriminos locked down since start
+	 */
+	public int getPieceCount() {
+		return _pieceCount;
+	}
+
+	/**
+	 * Number of measured control events which are reflected in the published state. Only called by the thread 
+	 * changing the game.
+	 * @return number of inputs since start
+	 */
+	long getInputCount() {
+		return _inputCount;
+	}
+
+	/**
+	 * Clock times when the latest measured control events were added to the control queue. Input n is at 
+	 * <code>n % GameSnapshot.INPUT_HISTORY</code>. The array is never changed. Only called by the thread changing 
+	 * the game.
+	 * @return clock times in ns
+	 */
+	long[] getInputTimes() {
+		return _inputTimes;
+	}
+
+	/**
+	 * Play time since the start of the game until now or the end of the game. Pauses are not counted.
+	 * @return play time in ns measured with the game's clock
+	 */
+	public long getPlayTime() {
+		if (_startTime == NOT_SET) return 0;
+		final long now = _stopTime != NOT_SET ? _stopTime : _clock.nanoTime();
+		long paused = _pausedTime;
+		if (_isPaused) paused += now - _pauseStartTime;
+		return now - _startTime - paused;
+	}
+
+	/**
+	 * @return locked Tetriminos per second of play time
+	 */
+	public double getPiecesPerSecond() {
+		final long playTime = getPlayTime();
+		return playTime <= 0 ? 0.0 : _pieceCount * 1e9 / playTime;
+	}
+
+	/**
+	 * @return the game's clock
+	 */
+	public GameClock getClock() {
+		return _clock;
+	}
+
 	/**
 	 * @return the _phaseState
 	 */
@@ -781,11 +1434,7 @@ public class TetrisGame extends Observable implements Runnable, Observer {
 	 * @param b
 	 */
 	public void setSoundOn(boolean b) {
-		if (b) {
-			_sounds.soundOn();
-		} else {
-			_sounds.soundOff();
-		}
+		_soundOn = b;
 	}
 
 }
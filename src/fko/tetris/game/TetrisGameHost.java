@@ -0,0 +1,289 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import fko.tetris.AI.Bot;
+
+/**
+ * Runs many independent bot games in one process - e.g. for bot leagues and load tests.<br/>
+ * All games are headless and are played by their bot on a small shared pool of threads instead of a game, timer 
+ * and bot thread per game. A game plays a few Tetriminos and then gives the thread to the next waiting game so 
+ * hundreds of games make progress at the same time.<br/>
+ * Each game gets its own randomizer and bot seed split from the host's seed and its own services (none by 
+ * default). So the results of a host with the same seed are reproducible no matter how the games are scheduled. 
+ * 
+ * <pre>
+ * try (TetrisGameHost host = new TetrisGameHost(42L)) {
+ *   for (int i = 0; i &lt; 500; i++) host.addGame(1, 1000, LockAheadBot::new);
+ *   host.awaitAll();
+ * }
+ * </pre>
+ */
+public class TetrisGameHost implements AutoCloseable {
+
+	// how many Tetriminos a game plays before the next game gets the thread
+	private static final int PIECES_PER_SLICE = 8;
+
+	private static final AtomicInteger NEXT_HOST = new AtomicInteger(1);
+
+	private final ExecutorService _executor;
+	private final SplittableRandom _random; // only used under the host's lock
+	private final List<HostedGame> _games = new ArrayList<>();
+	private volatile Supplier<GameServices> _services = () -> GameServices.NONE;
+	private volatile boolean _closed = false;
+
+	/**
+	 * Creates a host with one thread per processor.
+	 * @param seed seed for the randomizers of all games 
+	 */
+	public TetrisGameHost(long seed) {
+		this(Runtime.getRuntime().availableProcessors(), seed);
+	}
+
+	/**
+	 * @param threads number of threads to play all games on
+	 * @param seed seed for the randomizers of all games 
+	 */
+	public TetrisGameHost(int threads, long seed) {
+		final String name = "TetrisGameHost-" + NEXT_HOST.getAndIncrement() + "-";
+		final AtomicInteger number = new AtomicInteger(1);
+		_executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, name + number.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		});
+		_random = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Sets where the services for games added from now on come from. E.g. a silent game with its own high score
+	 * list. Default is <code>GameServices.NONE</code>.
+	 * @param services called once for each new game
+	 */
+	public void setServices(Supplier<GameServices> services) {
+		_services = services;
+	}
+
+	/**
+	 * Adds a game with a 7-bag randomizer and starts playing it.
+	 * @param startLevel
+	 * @param maxPieces the game ends after this many Tetriminos - 0 for no limit
+	 * @param bot creates the bot playing the game
+	 * @return the hosted game
+	 */
+	public HostedGame addGame(int startLevel, int maxPieces, Function<TetrisGame, Bot> bot) {
+		return addGame(Randomizer.Type.BAG7, startLevel, maxPieces, bot);
+	}
+
+	/**
+	 * Adds a game and starts playing it.
+	 * @param type the randomizer of the game - seeded from the host's seed 
+	 * @param startLevel
+	 * @param maxPieces the game ends after this many Tetriminos - 0 for no limit
+	 * @param bot creates the bot playing the game
+	 * @return the hosted game
+	 */
+	public HostedGame addGame(Randomizer.Type type, int startLevel, int maxPieces, Function<TetrisGame, Bot> bot) {
+		final HostedGame hosted;
+		synchronized (this) {
+			if (_closed) {
+				throw new IllegalStateException("addGame(): Host is closed.");
+			}
+			final Randomizer randomizer = type.create(_random.split());
+			final TetrisGame game = new TetrisGame(startLevel, randomizer, TetrisGame.NEXTQUEUE_SIZE, true, 
+					new ManualClock(), _services.get());
+			game.setBotSeed(_random.nextLong());
+			hosted = new HostedGame(_games.size() + 1, game, bot.apply(game), maxPieces);
+			_games.add(hosted);
+		}
+		hosted.schedule();
+		return hosted;
+	}
+
+	/**
+	 * @return all games added so far
+	 */
+	public synchronized List<HostedGame> getGames() {
+		return Collections.unmodifiableList(new ArrayList<>(_games));
+	}
+
+	/**
+	 * @return number of games which are not finished yet
+	 */
+	public synchronized int getActiveCount() {
+		int active = 0;
+		for (HostedGame game : _games) {
+			if (!game.isDone()) active++;
+		}
+		return active;
+	}
+
+	/**
+	 * Waits until all games added so far are finished.
+	 * @throws InterruptedException
+	 * @throws ExecutionException if a game failed
+	 */
+	public void awaitAll() throws InterruptedException, ExecutionException {
+		for (HostedGame game : getGames()) {
+			game.getResult().get();
+		}
+	}
+
+	/**
+	 * Stops all games. Games which are not finished are cancelled.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			_closed = true;
+		}
+		_executor.shutdownNow();
+		for (HostedGame game : getGames()) {
+			game._result.cancel(false);
+		}
+	}
+
+	/**
+	 * A game played on the host's threads.<br/>
+	 * Only one thread plays a game at a time. Its game must not be used by others while it is not done. 
+	 */
+	public final class HostedGame {
+
+		private final int _id;
+		private final TetrisGame _game;
+		private final Bot _bot;
+		private final int _maxPieces;
+		private final CompletableFuture<HostedGame> _result = new CompletableFuture<>();
+		private boolean _started = false; // only used by the thread playing the game
+		private GameSnapshot _finalSnapshot = null; // published by completing the result
+
+		private HostedGame(int id, TetrisGame game, Bot bot, int maxPieces) {
+			_id = id;
+			_game = game;
+			_bot = bot;
+			_maxPieces = maxPieces;
+		}
+
+		/*
+		 * Gives the next slice of this game to the executor
+		 */
+		private void schedule() {
+			try {
+				_executor.execute(this::play);
+			} catch (RejectedExecutionException e) {
+				_result.cancel(false); // host was closed
+			}
+		}
+
+		/*
+		 * Plays some Tetriminos and schedules the rest
+		 */
+		private void play() {
+			if (_result.isDone() || _closed) return;
+			try {
+				if (!_started) {
+					_started = true;
+					_game.startHeadless();
+				}
+				for (int i = 0; i < PIECES_PER_SLICE; i++) {
+					if (!_game.isRunning() || (_maxPieces > 0 && _game.getPieceCount() >= _maxPieces)) {
+						_finalSnapshot = _game.getSnapshot();
+						_result.complete(this);
+						return;
+					}
+					_bot.move(_game.getSnapshot()); // sends the moves and the hard drop
+					_game.advanceToNextPiece();
+				}
+			} catch (Throwable t) {
+				_result.completeExceptionally(t);
+				return;
+			}
+			schedule();
+		}
+
+		/**
+		 * @return the number of this game in the host - starts with 1
+		 */
+		public int getId() {
+			return _id;
+		}
+
+		/**
+		 * @return the game - only to be used when the game is done
+		 */
+		public TetrisGame getGame() {
+			return _game;
+		}
+
+		/**
+		 * @return the bot playing the game
+		 */
+		public Bot getBot() {
+			return _bot;
+		}
+
+		/**
+		 * @return true if the game is over, reached its Tetrimino limit, failed or was cancelled
+		 */
+		public boolean isDone() {
+			return _result.isDone();
+		}
+
+		/**
+		 * @return completes with this when the game is finished - cancelled if the host is closed before
+		 */
+		public CompletableFuture<HostedGame> getResult() {
+			return _result;
+		}
+
+		/**
+		 * @return the final snapshot of a finished game
+		 * @throws CancellationException if the game was cancelled
+		 */
+		public GameSnapshot getFinalSnapshot() {
+			_result.join();
+			return _finalSnapshot;
+		}
+
+		@Override
+		public String toString() {
+			return "Game " + _id + (isDone() ? " done" : " running");
+		}
+	}
+
+}
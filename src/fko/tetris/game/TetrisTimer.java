@@ -24,26 +24,43 @@ SOFTWARE.
 package fko.tetris.game;
 
 import java.util.Observable;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
  * This class implements a timer which can be set for an arbitrary time.<br/>
  * The timer can be queried for the remaining time.<br/>
  * The timer allows to be observed so Observer will be called via update() when time runs out.<br/>
+ * All timers share one scheduler thread. Stopping a timer only cancels its scheduled task so starting and 
+ * stopping timers never creates threads.<br/>
+ * Time is measured in nanoseconds with a <code>GameClock</code>. The scheduler only wakes the timer up - if the 
+ * clock says that time is left (e.g. a <code>ManualClock</code> which has not been advanced) the timer waits again.
  */
 public class TetrisTimer extends Observable {
 	
-	ScheduledExecutorService _remainingTimeTimer =
-	        Executors.newSingleThreadScheduledExecutor();
+	// one daemon thread runs the tasks of all timers - cancelled tasks are removed from its queue immediately
+	private static final ScheduledThreadPoolExecutor SCHEDULER = new ScheduledThreadPoolExecutor(1, r -> {
+		Thread t = new Thread(r, "TetrisTimer");
+		t.setDaemon(true);
+		return t;
+	});
+	static {
+		SCHEDULER.setRemoveOnCancelPolicy(true);
+	}
+	
+	private ScheduledFuture<?> _future; // the scheduled task of the running timer
+	private long _generation = 0; // incremented with each start so a task of an earlier start is ignored
 	
-	TetrisTask _task = new TetrisTask();
+	// wait at least this long before checking a clock again which has not advanced in real time
+	private static final long MIN_RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
 	
-	private long _timerTime;	// the initial time for this timer
-	private long _remaingTime;	// remaining time (e.g. after stop)
+	private final GameClock _clock; // source of time for this timer
 	
-	private long _lastSystemtime; // save the system time
+	private long _timerTime;	// the initial time for this timer in ns
+	private long _remaingTime;	// remaining time (e.g. after stop) in ns
+	
+	private long _lastClockTime; // save the clock time at start
 	
 	private boolean _isStarted = false; // flag to see if timer is running or stopped
 	
@@ -66,8 +83,18 @@ public class TetrisTimer extends Observable {
 	 * timer.addObserver() to be notified if timer runs out of time<br/>
 	 */
 	public TetrisTimer(long t) {
-		_timerTime = t;
-		_remaingTime = t;
+		this(t, GameClock.SYSTEM);
+	}
+	
+	/**
+	 * Creates a reusable timer with the specified countdown time in ms which reads the time from the given clock.
+	 * @param t
+	 * @param clock
+	 */
+	public TetrisTimer(long t, GameClock clock) {
+		_clock = clock;
+		_timerTime = TimeUnit.MILLISECONDS.toNanos(t);
+		_remaingTime = _timerTime;
 	}
 	
 	/**
@@ -77,6 +104,19 @@ public class TetrisTimer extends Observable {
 	 * @throws RuntimeException if Timer is running
 	 */
 	public void setTimer(long t) {
+		if (_isStarted) 
+			throw new RuntimeException("Resetting a running timer is not allowed!");
+		_timerTime = TimeUnit.MILLISECONDS.toNanos(t);
+		_remaingTime = _timerTime;
+	}
+	
+	/**
+	 * Sets the timer to the specified time in ns.</br>
+	 * Timer must be stopped before this is called otherwise it throws a RuntimeException. 
+	 * @param t - time delay for the timer
+	 * @throws RuntimeException if Timer is running
+	 */
+	public void setTimerNanos(long t) {
 		if (_isStarted) 
 			throw new RuntimeException("Resetting a running timer is not allowed!");
 		_timerTime = t;
@@ -90,8 +130,8 @@ public class TetrisTimer extends Observable {
 	public synchronized void start() {
 		if (_isStarted) return; // ignore
 		if (_remaingTime <= 0) return;
-		_lastSystemtime = System.currentTimeMillis();
-		_remainingTimeTimer.schedule(_task, _remaingTime, TimeUnit.MILLISECONDS);
+		_lastClockTime = _clock.nanoTime();
+		schedule(++_generation, _remaingTime);
 		_isStarted = true;
 	}
 	
@@ -101,9 +141,9 @@ public class TetrisTimer extends Observable {
 	 */
 	public synchronized void stop() {
 		if (!_isStarted) return; // ignore
-		_remaingTime -= System.currentTimeMillis() - _lastSystemtime;
-		_remainingTimeTimer.shutdownNow(); // to cancel all waiting tasks
-		_remainingTimeTimer = Executors.newSingleThreadScheduledExecutor();
+		_remaingTime -= _clock.nanoTime() - _lastClockTime;
+		_future.cancel(false);
+		_future = null;
 		_isStarted = false;
 	}
 	
@@ -129,11 +169,19 @@ public class TetrisTimer extends Observable {
 	
 	/**
 	 * Returns the remaining time of this timer.
-	 * @return remaining time
+	 * @return remaining time in ms
+	 */
+	public long getRemainingTime() {
+		return TimeUnit.NANOSECONDS.toMillis(getRemainingNanos());
+	}
+	
+	/**
+	 * Returns the remaining time of this timer.
+	 * @return remaining time in ns
 	 */
-	public synchronized long getRemainingTime() {
+	public synchronized long getRemainingNanos() {
 		if (_isStarted)
-			return _remaingTime - (System.currentTimeMillis()-_lastSystemtime);
+			return _remaingTime - (_clock.nanoTime()-_lastClockTime);
 		else
 			return _remaingTime;
 	}
@@ -146,17 +194,31 @@ public class TetrisTimer extends Observable {
 		return _isStarted; 
 	}
 
-	/**
-	 * This is the Task the Timer runs when it is started
+	/*
+	 * Schedules the wake up of the timer 
+	 */
+	private void schedule(long generation, long delay) {
+		_future = SCHEDULER.schedule(() -> timeout(generation), delay, TimeUnit.NANOSECONDS);
+	}
+
+	/*
+	 * This is the task the scheduler runs when the time of a start should have run out
 	 */
-	private final class TetrisTask implements Runnable  {
-		@Override
-		public void run() {
+	private void timeout(long generation) {
+		synchronized (this) {
+			if (!_isStarted || generation != _generation) return; // stopped or restarted meanwhile
+			final long remaining = getRemainingNanos();
+			if (remaining > 0) { // the clock is behind the scheduler
+				schedule(generation, Math.max(remaining, MIN_RECHECK_NANOS));
+				return;
+			}
 			_isStarted = false;
 			_remaingTime = 0;
-		    setChanged();
-		    notifyObservers();
+			_future = null;
+			setChanged();
 		}
+		// notify outside the lock so observers can use the timer
+		notifyObservers();
 	}
 
 }
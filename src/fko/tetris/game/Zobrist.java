@@ -0,0 +1,123 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.game;
+
+import java.util.SplittableRandom;
+
+import fko.tetris.tetriminos.Tetrimino.Facing;
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
+
+/**
+ * Random 64-bit keys for Zobrist hashing of game states.<br/>
+ * The hash of a state is the XOR of the keys of all its parts (each background Mino with its color, the current 
+ * Tetrimino at its position, the hold and each next queue position). Changing one part only needs two XORs so 
+ * the Matrix can keep its hash up to date incrementally.<br/>
+ * The keys are generated from a fixed seed so hashes are the same in every run, e.g. to compare replays.
+ */
+public final class Zobrist {
+
+	/**
+	 * Number of next queue positions which are part of the hash
+	 */
+	public static final int MAX_QUEUE_POSITIONS = 16;
+
+	private static final long SEED = 0x7E7215L;
+
+	private static final int COLORS = TetrisColor.values().length;
+	private static final int SHAPES = TetriminoShape.values().length;
+	private static final int FACINGS = Facing.values().length;
+
+	// a Tetrimino matrix can stick out of the Matrix by up to 3 cells to the left and 4 cells to the top 
+	// e.g. while being turned
+	private static final int PIECE_X_OFFSET = 3;
+	private static final int PIECE_X_RANGE = Matrix.MATRIX_WIDTH + PIECE_X_OFFSET + 1;
+	private static final int PIECE_Y_RANGE = Matrix.PLAYFIELD_HEIGHT + 5;
+
+	private static final long[] CELL_KEYS 	= new long[Matrix.PLAYFIELD_HEIGHT * Matrix.MATRIX_WIDTH * COLORS];
+	private static final long[] PIECE_KEYS 	= new long[SHAPES * FACINGS * PIECE_X_RANGE * PIECE_Y_RANGE];
+	private static final long[] HOLD_KEYS 	= new long[SHAPES];
+	private static final long[] QUEUE_KEYS 	= new long[MAX_QUEUE_POSITIONS * SHAPES];
+	private static final long HOLD_USED_KEY;
+
+	static {
+		final SplittableRandom random = new SplittableRandom(SEED);
+		for (int i = 0; i < CELL_KEYS.length; i++) {
+			// EMPTY cells do not contribute so an empty Matrix has hash 0
+			CELL_KEYS[i] = i % COLORS == TetrisColor.EMPTY.ordinal() ? 0L : random.nextLong();
+		}
+		for (int i = 0; i < PIECE_KEYS.length; i++) PIECE_KEYS[i] = random.nextLong();
+		for (int i = 0; i < HOLD_KEYS.length; i++) HOLD_KEYS[i] = random.nextLong();
+		for (int i = 0; i < QUEUE_KEYS.length; i++) QUEUE_KEYS[i] = random.nextLong();
+		HOLD_USED_KEY = random.nextLong();
+	}
+
+	private Zobrist() {}
+
+	/**
+	 * @param x - starts at 0 to width-1
+	 * @param y - starts at 0 to height-1
+	 * @param color TetrisColor ordinal
+	 * @return key of a background Mino - 0 for EMPTY
+	 */
+	public static long cell(int x, int y, int color) {
+		return CELL_KEYS[(y*Matrix.MATRIX_WIDTH + x)*COLORS + color];
+	}
+
+	/**
+	 * @param shape
+	 * @param facing
+	 * @param x column of the upper left corner of the Tetrimino matrix
+	 * @param y row above the upper left corner of the Tetrimino matrix
+	 * @return key of a Tetrimino in play
+	 */
+	public static long piece(TetriminoShape shape, Facing facing, int x, int y) {
+		return PIECE_KEYS[((shape.ordinal()*FACINGS + facing.ordinal())*PIECE_X_RANGE + x + PIECE_X_OFFSET)
+		                  *PIECE_Y_RANGE + y];
+	}
+
+	/**
+	 * @param shape shape in hold or null
+	 * @return key of the hold - 0 if the hold is empty
+	 */
+	public static long hold(TetriminoShape shape) {
+		return shape == null ? 0L : HOLD_KEYS[shape.ordinal()];
+	}
+
+	/**
+	 * @return key for the hold having been used since the last lock
+	 */
+	public static long holdUsed() {
+		return HOLD_USED_KEY;
+	}
+
+	/**
+	 * @param position position in the next queue - positions >= MAX_QUEUE_POSITIONS are not hashed
+	 * @param shape
+	 * @return key of a shape at a next queue position
+	 */
+	public static long queue(int position, TetriminoShape shape) {
+		return position < MAX_QUEUE_POSITIONS ? QUEUE_KEYS[position*SHAPES + shape.ordinal()] : 0L;
+	}
+
+}
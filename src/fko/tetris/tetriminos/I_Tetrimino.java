@@ -70,16 +70,4 @@ public class I_Tetrimino extends Tetrimino {
 		return TetriminoShape.I;
 	}
 
-	/**
-	 * @see fko.tetris.tetriminos.Tetrimino#clone()
-	 */
-	@Override
-	public Tetrimino clone() {
-		Tetrimino tnew = new I_Tetrimino();
-		// this field can be changed from public
-		tnew._currentOrientation = this._currentOrientation;
-		tnew._currentPosition = this._currentPosition.clone();
-		return tnew;
-	}
-
 }
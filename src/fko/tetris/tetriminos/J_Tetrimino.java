@@ -65,16 +65,4 @@ public class J_Tetrimino extends Tetrimino {
 	public TetriminoShape getShape() {
 		return TetriminoShape.J;
 	}
-
-	/**
-	 * @see fko.tetris.tetriminos.Tetrimino#clone()
-	 */
-	@Override
-	public Tetrimino clone() {
-		Tetrimino tnew = new J_Tetrimino();
-		// this field can be changed from public
-		tnew._currentOrientation = this._currentOrientation;
-		tnew._currentPosition = this._currentPosition.clone();
-		return tnew;
-	}
 }
@@ -62,16 +62,4 @@ public class O_Tetrimino extends Tetrimino {
 		return TetriminoShape.O;
 	}
 
-	/**
-	 * @see fko.tetris.tetriminos.Tetrimino#clone()
-	 */
-	@Override
-	public Tetrimino clone() {
-		Tetrimino tnew = new O_Tetrimino();
-		// this field can be changed from public
-		tnew._currentOrientation = this._currentOrientation;
-		tnew._currentPosition = this._currentPosition.clone();
-		return tnew;
-	}
-
 }
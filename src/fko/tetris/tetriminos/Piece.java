@@ -0,0 +1,178 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.tetriminos;
+
+import fko.tetris.tetriminos.Tetrimino.Facing;
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
+
+/**
+ * Value representation of a Tetrimino in the Matrix packed into a single int.<br/>
+ * Shape, facing and position are stored in bit fields so pieces can be passed around, compared and stored in arrays 
+ * without creating objects. <code>Tetrimino</code> objects are only views on this for the UI.<br/>
+ * 
+ * Layout of the bits:<br/>
+ * <code>
+ * 0-2   shape ordinal<br/>
+ * 3-4   facing ordinal<br/>
+ * 5-12  x + 128 (column of the upper left corner of the Tetrimino matrix)<br/>
+ * 13-20 y + 128 (row above the upper left corner of the Tetrimino matrix)<br/>
+ * </code>
+ * The position is stored with an offset so moving a piece is a simple addition.
+ */
+public final class Piece {
+
+	/**
+	 * No piece - e.g. no current Tetrimino in the Matrix 
+	 */
+	public static final int NONE = -1;
+
+	/**
+	 * Row a Tetrimino spawns in - the upper left corner of its matrix is just below this row
+	 */
+	public static final int SPAWN_Y = 22;
+
+	private static final TetriminoShape[] SHAPES = TetriminoShape.values();
+	private static final Facing[] FACINGS = Facing.values();
+
+	private static final int SHAPE_MASK = 0x7;
+	private static final int FACING_SHIFT = 3;
+	private static final int FACING_MASK = 0x3;
+	private static final int X_SHIFT = 5;
+	private static final int Y_SHIFT = 13;
+	private static final int POSITION_MASK = 0xFF;
+	private static final int POSITION_OFFSET = 128;
+
+	/*
+	 * Tetriminos that are three Minos wide spawn on the 4th cell across, the O-Tetrimino on the 5th
+	 */
+	private static final int[] SPAWN_X = new int[SHAPES.length];
+	static {
+		for (TetriminoShape shape : SHAPES) {
+			SPAWN_X[shape.ordinal()] = shape == TetriminoShape.O ? 4 : 3;
+		}
+	}
+
+	private Piece() {}
+
+	/**
+	 * @param shape
+	 * @param facing
+	 * @param x column of the upper left corner of the Tetrimino matrix
+	 * @param y row above the upper left corner of the Tetrimino matrix
+	 * @return the packed piece
+	 */
+	public static int of(TetriminoShape shape, Facing facing, int x, int y) {
+		return shape.ordinal() 
+				| facing.ordinal() << FACING_SHIFT 
+				| (x + POSITION_OFFSET) << X_SHIFT 
+				| (y + POSITION_OFFSET) << Y_SHIFT;
+	}
+
+	/**
+	 * @param shape
+	 * @return a north facing piece at the spawn position of the shape
+	 */
+	public static int spawn(TetriminoShape shape) {
+		return of(shape, Facing.NORTH, SPAWN_X[shape.ordinal()], SPAWN_Y);
+	}
+
+	/**
+	 * @param shape
+	 * @return the column a shape spawns in
+	 */
+	public static int spawnX(TetriminoShape shape) {
+		return SPAWN_X[shape.ordinal()];
+	}
+
+	/**
+	 * @param piece
+	 * @return the shape
+	 */
+	public static TetriminoShape shape(int piece) {
+		return SHAPES[piece & SHAPE_MASK];
+	}
+
+	/**
+	 * @param piece
+	 * @return the facing
+	 */
+	public static Facing facing(int piece) {
+		return FACINGS[(piece >>> FACING_SHIFT) & FACING_MASK];
+	}
+
+	/**
+	 * @param piece
+	 * @return column of the upper left corner of the Tetrimino matrix
+	 */
+	public static int x(int piece) {
+		return ((piece >>> X_SHIFT) & POSITION_MASK) - POSITION_OFFSET;
+	}
+
+	/**
+	 * @param piece
+	 * @return row above the upper left corner of the Tetrimino matrix
+	 */
+	public static int y(int piece) {
+		return ((piece >>> Y_SHIFT) & POSITION_MASK) - POSITION_OFFSET;
+	}
+
+	/**
+	 * @param piece
+	 * @return the precomputed layout for shape and facing
+	 */
+	public static TetriminoLayout layout(int piece) {
+		return TetriminoLayout.get(shape(piece), facing(piece));
+	}
+
+	/**
+	 * @param piece
+	 * @param dx
+	 * @param dy
+	 * @return the piece moved by dx columns and dy rows
+	 */
+	public static int move(int piece, int dx, int dy) {
+		return piece + (dx << X_SHIFT) + (dy << Y_SHIFT);
+	}
+
+	/**
+	 * @param piece
+	 * @param direction >0 turn right/clockwise, <0 left/counter clockwise
+	 * @return the piece turned by 90 degrees at the same position
+	 */
+	public static int turn(int piece, int direction) {
+		final int facing = (((piece >>> FACING_SHIFT) & FACING_MASK) + (direction > 0 ? 1 : direction < 0 ? 3 : 0)) 
+				& FACING_MASK;
+		return (piece & ~(FACING_MASK << FACING_SHIFT)) | facing << FACING_SHIFT;
+	}
+
+	/**
+	 * @param piece
+	 * @return readable representation e.g. T EAST (3,20)
+	 */
+	public static String toString(int piece) {
+		if (piece == NONE) return "NONE";
+		return shape(piece)+" "+facing(piece)+" ("+x(piece)+","+y(piece)+")";
+	}
+
+}
@@ -66,16 +66,4 @@ public class S_Tetrimino extends Tetrimino {
 		return TetriminoShape.S;
 	}
 
-	/**
-	 * @see fko.tetris.tetriminos.Tetrimino#clone()
-	 */
-	@Override
-	public Tetrimino clone() {
-		Tetrimino tnew = new S_Tetrimino();
-		// this field can be changed from public
-		tnew._currentOrientation = this._currentOrientation;
-		tnew._currentPosition = this._currentPosition.clone();
-		return tnew;
-	}
-
 }
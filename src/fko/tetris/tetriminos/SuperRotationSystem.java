@@ -0,0 +1,122 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.tetriminos;
+
+import fko.tetris.tetriminos.Tetrimino.Facing;
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
+
+/**
+ * Wall kick tables of the Super Rotation System (SRS).<br/>
+ * When a Tetrimino is turned the engine tests up to 5 positions - the plain rotation and 4 offsets ("kicks") 
+ * depending on shape and the facing transition. The first position without collision is used. If all positions 
+ * collide the Tetrimino is not turned.<br/>
+ * The I-Tetrimino has its own table, the O-Tetrimino never kicks and J, L, S, T, Z share one table. 
+ * The offsets are x to the right and y upwards as in the Matrix.<br/>
+ * 
+ * All offsets are precomputed into one flat array so testing a rotation only needs array lookups and 
+ * <code>Piece</code> arithmetic.
+ */
+public final class SuperRotationSystem {
+
+	/**
+	 * Maximum number of positions tested for one rotation
+	 */
+	public static final int TESTS = 5;
+
+	private static final int SHAPES = TetriminoShape.values().length;
+	private static final int FACINGS = Facing.values().length;
+
+	/*
+	 * {dx, dy} pairs for the rotations from NORTH(0), EAST(R), SOUTH(2), WEST(L) clockwise then counter clockwise 
+	 */
+	private static final int[][] JLSTZ_KICKS = {
+			{ 0, 0, -1, 0, -1, 1, 0,-2, -1,-2 }, 	// 0->R 
+			{ 0, 0,  1, 0,  1, 1, 0,-2,  1,-2 }, 	// 0->L 
+			{ 0, 0,  1, 0,  1,-1, 0, 2,  1, 2 }, 	// R->2
+			{ 0, 0,  1, 0,  1,-1, 0, 2,  1, 2 }, 	// R->0
+			{ 0, 0,  1, 0,  1, 1, 0,-2,  1,-2 }, 	// 2->L
+			{ 0, 0, -1, 0, -1, 1, 0,-2, -1,-2 }, 	// 2->R
+			{ 0, 0, -1, 0, -1,-1, 0, 2, -1, 2 }, 	// L->0
+			{ 0, 0, -1, 0, -1,-1, 0, 2, -1, 2 }, 	// L->2
+	};
+
+	private static final int[][] I_KICKS = {
+			{ 0, 0, -2, 0,  1, 0, -2,-1,  1, 2 }, 	// 0->R 
+			{ 0, 0, -1, 0,  2, 0, -1, 2,  2,-1 }, 	// 0->L 
+			{ 0, 0, -1, 0,  2, 0, -1, 2,  2,-1 }, 	// R->2
+			{ 0, 0,  2, 0, -1, 0,  2, 1, -1,-2 }, 	// R->0
+			{ 0, 0,  2, 0, -1, 0,  2, 1, -1,-2 }, 	// 2->L
+			{ 0, 0,  1, 0, -2, 0,  1,-2, -2, 1 }, 	// 2->R
+			{ 0, 0,  1, 0, -2, 0,  1,-2, -2, 1 }, 	// L->0
+			{ 0, 0, -2, 0,  1, 0, -2,-1,  1, 2 }, 	// L->2
+	};
+
+	// dx and dy of each test indexed by ((shape*FACINGS + from facing)*2 + direction)*TESTS + test 
+	private static final int[] KICK_X = new int[SHAPES*FACINGS*2*TESTS];
+	private static final int[] KICK_Y = new int[SHAPES*FACINGS*2*TESTS];
+	private static final int[] TESTS_PER_SHAPE = new int[SHAPES];
+
+	static {
+		for (TetriminoShape shape : TetriminoShape.values()) {
+			final int[][] table;
+			switch (shape) {
+			case O: table = null; break;
+			case I: table = I_KICKS; break;
+			default: table = JLSTZ_KICKS; break;
+			}
+			TESTS_PER_SHAPE[shape.ordinal()] = table == null ? 1 : TESTS;
+			for (int i = 0; i < FACINGS*2; i++) {
+				for (int test = 0; test < TESTS; test++) {
+					final int index = (shape.ordinal()*FACINGS*2 + i)*TESTS + test;
+					KICK_X[index] = table == null ? 0 : table[i][test*2];
+					KICK_Y[index] = table == null ? 0 : table[i][test*2+1];
+				}
+			}
+		}
+	}
+
+	private SuperRotationSystem() {}
+
+	/**
+	 * @param shape
+	 * @return number of positions to test when turning this shape - 1 for the O-Tetrimino, 5 for all others
+	 */
+	public static int tests(TetriminoShape shape) {
+		return TESTS_PER_SHAPE[shape.ordinal()];
+	}
+
+	/**
+	 * Returns a candidate position for turning a piece. Collision checks are done by the caller.  
+	 * @param piece
+	 * @param direction >0 turn right/clockwise, <0 left/counter clockwise
+	 * @param test number of the test from 0 (plain rotation) to <code>tests(shape)</code>-1 
+	 * @return the turned and kicked piece
+	 */
+	public static int kick(int piece, int direction, int test) {
+		final int index = ((Piece.shape(piece).ordinal()*FACINGS + Piece.facing(piece).ordinal())*2 
+				+ (direction > 0 ? 0 : 1))*TESTS + test;
+		return Piece.move(Piece.turn(piece, direction), KICK_X[index], KICK_Y[index]);
+	}
+
+}
@@ -84,6 +84,23 @@ abstract public class Tetrimino {
 		return _tMatrix[facing.ordinal()];
 	}
 	
+	/**
+	 * Retrieve the precomputed layout for the current facing
+	 * @return the layout
+	 */
+	public TetriminoLayout getLayout() {
+		return TetriminoLayout.get(getShape(), _currentOrientation);
+	}
+
+	/**
+	 * Retrieve the precomputed layout for a given facing
+	 * @param facing
+	 * @return the layout
+	 */
+	public TetriminoLayout getLayout(Facing facing) {
+		return TetriminoLayout.get(getShape(), facing);
+	}
+	
 	/**
 	 * Turns the Tetrimino in the given direction.<br/>
 	 * direction >0 turn right/clockwise, <0 left/counter clockwise
@@ -161,7 +178,48 @@ abstract public class Tetrimino {
 	 * @see java.lang.Object#clone()
 	 */
 	@Override
-	public abstract Tetrimino clone();
+	public Tetrimino clone() {
+		return of(toPiece());
+	}
+
+	/**
+	 * Packs shape, facing and position of this Tetrimino into a piece value
+	 * @return the piece 
+	 * @see Piece
+	 */
+	public int toPiece() {
+		return Piece.of(getShape(), _currentOrientation, _currentPosition.x, _currentPosition.y);
+	}
+
+	/**
+	 * Creates a Tetrimino view of a piece value - e.g. for the UI. Changing the Tetrimino does not change the piece.
+	 * @param piece
+	 * @return new Tetrimino with shape, facing and position of the piece
+	 */
+	public static Tetrimino of(int piece) {
+		final Tetrimino t = create(Piece.shape(piece));
+		t._currentOrientation = Piece.facing(piece);
+		t._currentPosition = new Coordinates(Piece.x(piece), Piece.y(piece));
+		return t;
+	}
+
+	/**
+	 * Creates a new Tetrimino at its spawn position
+	 * @param shape
+	 * @return new Tetrimino of the given shape
+	 */
+	public static Tetrimino create(TetriminoShape shape) {
+		switch (shape) {
+		case O: return new O_Tetrimino();
+		case I: return new I_Tetrimino();
+		case T: return new T_Tetrimino();
+		case L: return new L_Tetrimino();
+		case J: return new J_Tetrimino();
+		case S: return new S_Tetrimino();
+		case Z: return new Z_Tetrimino();
+		default: throw new IllegalArgumentException("create(): Unknown shape "+shape);
+		}
+	}
 
 	/**
 	 * All Tetrimino shapes
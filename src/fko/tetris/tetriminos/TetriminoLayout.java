@@ -0,0 +1,216 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.tetriminos;
+
+import java.util.Arrays;
+
+import fko.tetris.tetriminos.Tetrimino.Facing;
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
+
+/**
+ * Immutable, precomputed data of one Tetrimino shape in one facing.<br/>
+ * All layouts are built once at class load from the Tetrimino matrices so collision checks and merges can iterate 
+ * exactly the 4 Minos or the filled rows instead of scanning the whole 3x3 or 4x4 matrix.<br/>
+ * 
+ * All values are relative to the upper left corner of the Tetrimino matrix. As in the matrix xi grows to the right 
+ * and yi grows downwards. Row masks have bit xi set for each filled cell in that row.
+ */
+public final class TetriminoLayout {
+
+	/**
+	 * Number of Minos of each Tetrimino 
+	 */
+	public static final int MINOS = 4;
+
+	// all layouts by [shape.ordinal()][facing.ordinal()]
+	private static final TetriminoLayout[][] LAYOUTS = new TetriminoLayout[TetriminoShape.values().length][];
+
+	static {
+		for (TetriminoShape shape : TetriminoShape.values()) {
+			final int[][][] tMatrix = matrixOf(shape);
+			LAYOUTS[shape.ordinal()] = new TetriminoLayout[Facing.values().length];
+			for (Facing facing : Facing.values()) {
+				LAYOUTS[shape.ordinal()][facing.ordinal()] = new TetriminoLayout(tMatrix[facing.ordinal()]);
+			}
+		}
+	}
+
+	private final int _size; 		// size of the quadratic Tetrimino matrix 
+	private final int[] _rowMasks;	// bit mask per matrix row
+	private final int[] _minoX;		// xi of each Mino
+	private final int[] _minoY;		// yi of each Mino
+	private final int[] _bottom;	// per matrix column the largest (lowest) yi with a Mino or -1
+	private final int[] _left;		// per matrix row the smallest xi with a Mino or -1
+	private final int[] _right;		// per matrix row the largest xi with a Mino or -1
+	private final int _minX, _maxX, _minY, _maxY; // bounding box of the Minos
+
+	/*
+	 * Builds the layout from one facing of a Tetrimino matrix
+	 */
+	private TetriminoLayout(int[][] m) {
+		_size = m.length;
+		_rowMasks = new int[_size];
+		_minoX = new int[MINOS];
+		_minoY = new int[MINOS];
+		_bottom = new int[_size];
+		_left = new int[_size];
+		_right = new int[_size];
+		Arrays.fill(_bottom, -1);
+		Arrays.fill(_left, -1);
+		Arrays.fill(_right, -1);
+		int minX = _size, maxX = -1, minY = _size, maxY = -1;
+		int mino = 0;
+		for (int yi = 0; yi < _size; yi++) {
+			for (int xi = 0; xi < m[yi].length; xi++) {
+				if (m[yi][xi] != 1) continue;
+				_rowMasks[yi] |= 1 << xi;
+				_minoX[mino] = xi;
+				_minoY[mino] = yi;
+				mino++;
+				_bottom[xi] = yi; // rows are scanned top down so the last one wins
+				if (_left[yi] < 0) _left[yi] = xi;
+				_right[yi] = xi;
+				if (xi < minX) minX = xi;
+				if (xi > maxX) maxX = xi;
+				if (yi < minY) minY = yi;
+				if (yi > maxY) maxY = yi;
+			}
+		}
+		assert mino == MINOS;
+		_minX = minX;
+		_maxX = maxX;
+		_minY = minY;
+		_maxY = maxY;
+	}
+
+	/**
+	 * Retrieves the precomputed layout for a shape and facing.
+	 * @param shape
+	 * @param facing
+	 * @return the layout
+	 */
+	public static TetriminoLayout get(TetriminoShape shape, Facing facing) {
+		return LAYOUTS[shape.ordinal()][facing.ordinal()];
+	}
+
+	/**
+	 * @return size of the quadratic Tetrimino matrix (3 or 4, 2 for the O)
+	 */
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * @param yi matrix row
+	 * @return bit mask of the row - bit xi is set if cell xi has a Mino
+	 */
+	public int getRowMask(int yi) {
+		return _rowMasks[yi];
+	}
+
+	/**
+	 * @param i Mino index 0-3
+	 * @return column in the Tetrimino matrix of the i-th Mino
+	 */
+	public int getMinoX(int i) {
+		return _minoX[i];
+	}
+
+	/**
+	 * @param i Mino index 0-3
+	 * @return row in the Tetrimino matrix of the i-th Mino
+	 */
+	public int getMinoY(int i) {
+		return _minoY[i];
+	}
+
+	/**
+	 * @param xi matrix column
+	 * @return row of the lowest Mino in this column or -1 if the column is empty
+	 */
+	public int getBottom(int xi) {
+		return _bottom[xi];
+	}
+
+	/**
+	 * @param yi matrix row
+	 * @return column of the leftmost Mino in this row or -1 if the row is empty
+	 */
+	public int getLeft(int yi) {
+		return _left[yi];
+	}
+
+	/**
+	 * @param yi matrix row
+	 * @return column of the rightmost Mino in this row or -1 if the row is empty
+	 */
+	public int getRight(int yi) {
+		return _right[yi];
+	}
+
+	/**
+	 * @return leftmost matrix column with a Mino
+	 */
+	public int getMinX() {
+		return _minX;
+	}
+
+	/**
+	 * @return rightmost matrix column with a Mino
+	 */
+	public int getMaxX() {
+		return _maxX;
+	}
+
+	/**
+	 * @return topmost matrix row with a Mino
+	 */
+	public int getMinY() {
+		return _minY;
+	}
+
+	/**
+	 * @return lowest matrix row with a Mino
+	 */
+	public int getMaxY() {
+		return _maxY;
+	}
+
+	/*
+	 * the matrices are defined in the Tetrimino classes 
+	 */
+	private static int[][][] matrixOf(TetriminoShape shape) {
+		switch (shape) {
+		case O: return O_Tetrimino.tMatrix;
+		case I: return I_Tetrimino.tMatrix;
+		case T: return T_Tetrimino.tMatrix;
+		case L: return L_Tetrimino.tMatrix;
+		case J: return J_Tetrimino.tMatrix;
+		case S: return S_Tetrimino.tMatrix;
+		case Z: return Z_Tetrimino.tMatrix;
+		}
+		throw new IllegalArgumentException("Unknown shape: "+shape);
+	}
+
+}
@@ -65,18 +65,6 @@ public class Z_Tetrimino extends Tetrimino {
 	public TetriminoShape getShape() {
 		return TetriminoShape.Z;
 	}
-
-	/**
-	 * @see fko.tetris.tetriminos.Tetrimino#clone()
-	 */
-	@Override
-	public Tetrimino clone() {
-		Tetrimino tnew = new Z_Tetrimino();
-		// this field can be changed from public
-		tnew._currentOrientation = this._currentOrientation;
-		tnew._currentPosition = this._currentPosition.clone();
-		return tnew;
-	}
 	
 	
 
@@ -23,7 +23,10 @@ SOFTWARE.
  */
 package fko.tetris.ui;
 
-import fko.tetris.tetriminos.Tetrimino;
+import fko.tetris.game.TetrisColor;
+import fko.tetris.tetriminos.Tetrimino.Facing;
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
+import fko.tetris.tetriminos.TetriminoLayout;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
 import javafx.scene.layout.Pane;
@@ -36,7 +39,7 @@ import javafx.scene.shape.Rectangle;
 public class HoldPane extends Pane {
 	private static final Color BACKGROUND_COLOR = Color.DARKGRAY;
 	
-	private Tetrimino _holdTetrimino; // handle to Tetrimino object
+	private TetriminoShape _holdTetrimino; // shape of the Tetrimino in hold
 
 	private double _offSetY;
 	private double _minoHeight;
@@ -57,7 +60,7 @@ public class HoldPane extends Pane {
 	/**
 	 * @param _nextQueue the _nextQueue to set
 	 */
-	public void setHoldTetrimino(Tetrimino hold) {
+	public void setHoldTetrimino(TetriminoShape hold) {
 		this._holdTetrimino = hold;
 	}
 
@@ -78,7 +81,7 @@ public class HoldPane extends Pane {
 	 * @param position
 	 * @param next
 	 */
-	private void draw(Tetrimino next) {
+	private void draw(TetriminoShape next) {
 
 		// clear the node to redraw everything
 		this.getChildren().clear();
@@ -86,18 +89,18 @@ public class HoldPane extends Pane {
 		_minoHeight = (this.getWidth()/6); // height and width of cells based on pane width
 		_offSetY = _minoHeight; // start with one mino height below the top
 		
-		int[][] tMatrix = next.getMatrix(Tetrimino.Facing.NORTH); // get north facing matrix
+		TetriminoLayout layout = TetriminoLayout.get(next, Facing.NORTH); // get north facing layout
 
-		Color color = next.getColor().toColor();
+		Color color = TetrisColor.of(next).toColor();
 
 		// determine were to draw horizontally
 		double start_x;
-		switch (next.toString()) {
-		case "O": {
+		switch (next) {
+		case O: {
 			start_x = this.getWidth()/2 - _minoHeight; // 1 mino left of middle
 			break;
 		}
-		case "I": {
+		case I: {
 			start_x = this.getWidth()/2 - (2*_minoHeight); // 2 minos left of middle
 			break;
 		}
@@ -107,10 +110,10 @@ public class HoldPane extends Pane {
 		}
 		}
 		
-		for(int y=0; y<tMatrix.length;y++) {
+		for(int y=0; y<layout.size();y++) {
 			boolean hadMino = false;
-			for(int x=0; x<tMatrix[y].length;x++) {
-				if (tMatrix[y][x] == 1 && _offSetY < this.getHeight() - _minoHeight) {
+			for(int x=0; x<layout.size();x++) {
+				if ((layout.getRowMask(y) & (1 << x)) != 0 && _offSetY < this.getHeight() - _minoHeight) {
 					hadMino=true;
 					// at least one mino in this row
 					double relX = x*_minoHeight;
@@ -23,10 +23,12 @@ SOFTWARE.
  */
 package fko.tetris.ui;
 
-import java.util.ListIterator;
-
-import fko.tetris.game.NextQueue;
-import fko.tetris.tetriminos.Tetrimino;
+import fko.tetris.game.GameSnapshot;
+import fko.tetris.game.TetrisColor;
+import fko.tetris.game.TetrisGame;
+import fko.tetris.tetriminos.Tetrimino.Facing;
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
+import fko.tetris.tetriminos.TetriminoLayout;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
 import javafx.scene.layout.Pane;
@@ -40,7 +42,7 @@ import javafx.scene.shape.Rectangle;
 public class NextQueuePane extends Pane {
 	private static final Color BACKGROUND_COLOR = Color.DARKGRAY;
 
-	private NextQueue _nextQueue; // handle to NextQueue object
+	private GameSnapshot _snapshot; // snapshot of the game holding the next queue
 	private double _offSetY;
 	private double _minoHeight;
 
@@ -58,29 +60,29 @@ public class NextQueuePane extends Pane {
 	}
 
 	/**
-	 * @param _nextQueue the _nextQueue to set
+	 * @param snapshot the snapshot with the next queue to draw - null to draw nothing
 	 */
-	public void setNextQueue(NextQueue _nextQueue) {
-		this._nextQueue = _nextQueue;
+	public void setSnapshot(GameSnapshot snapshot) {
+		this._snapshot = snapshot;
 	}
 
 	/**
 	 * 
 	 */
 	public void draw() {
-		if (_nextQueue == null) {
+		if (_snapshot == null) {
 			// clear the node to redraw everything
 			this.getChildren().clear();
 			return;
 		}
-		draw(_nextQueue);
+		draw(_snapshot);
 	}
 
 	/**
-	 * Draw all Tetriminos in NextQueue
-	 * @param _nextQueue
+	 * Draw the visible Tetriminos in NextQueue
+	 * @param snapshot
 	 */
-	private void draw(NextQueue nextQueue) {
+	private void draw(GameSnapshot snapshot) {
 
 		// clear the node to redraw everything
 		this.getChildren().clear();
@@ -88,10 +90,9 @@ public class NextQueuePane extends Pane {
 		_minoHeight = (this.getWidth()/6); // height and width of cells based on pane width
 		_offSetY = _minoHeight; // start with one mino height below the top
 
-		ListIterator<Tetrimino> iterator = _nextQueue.getListIterator();
-
-		while (iterator.hasNext()) {
-			draw(iterator.next());
+		final int visible = Math.min(snapshot.getNextQueueSize(), TetrisGame.NEXTQUEUE_SIZE);
+		for (int i = 0; i < visible; i++) {
+			draw(snapshot.getNext(i));
 			_offSetY += _minoHeight;
 		}
 
@@ -101,20 +102,20 @@ public class NextQueuePane extends Pane {
 	 * Draw a single Tetrimino at specified position 
 	 * @param next
 	 */
-	private void draw(Tetrimino next) {
+	private void draw(TetriminoShape next) {
 
-		int[][] tMatrix = next.getMatrix(Tetrimino.Facing.NORTH); // get north facing matrix
+		TetriminoLayout layout = TetriminoLayout.get(next, Facing.NORTH); // get north facing layout
 
-		Color color = next.getColor().toColor();
+		Color color = TetrisColor.of(next).toColor();
 
 		// determine were to draw horizontally
 		double start_x;
-		switch (next.toString()) {
-		case "O": {
+		switch (next) {
+		case O: {
 			start_x = this.getWidth()/2 - _minoHeight; // 1 mino left of middle
 			break;
 		}
-		case "I": {
+		case I: {
 			start_x = this.getWidth()/2 - (2*_minoHeight); // 2 minos left of middle
 			break;
 		}
@@ -124,10 +125,10 @@ public class NextQueuePane extends Pane {
 		}
 		}
 		
-		for(int y=0; y<tMatrix.length;y++) {
+		for(int y=0; y<layout.size();y++) {
 			boolean hadMino = false;
-			for(int x=0; x<tMatrix[y].length;x++) {
-				if (tMatrix[y][x] == 1 && _offSetY < this.getHeight() - _minoHeight) {
+			for(int x=0; x<layout.size();x++) {
+				if ((layout.getRowMask(y) & (1 << x)) != 0 && _offSetY < this.getHeight() - _minoHeight) {
 					hadMino=true;
 					// at least one mino in this row
 					double relX = x*_minoHeight;
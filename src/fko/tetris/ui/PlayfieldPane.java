@@ -23,10 +23,10 @@ SOFTWARE.
  */
 package fko.tetris.ui;
 
+import fko.tetris.game.GameSnapshot;
 import fko.tetris.game.Matrix;
 import fko.tetris.game.TetrisColor;
-import fko.tetris.tetriminos.Tetrimino;
-import fko.tetris.util.Coordinates;
+import fko.tetris.tetriminos.TetriminoLayout;
 import javafx.scene.effect.Bloom;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
@@ -48,7 +48,7 @@ public class PlayfieldPane extends Pane {
 	private static final Color GRID_COLOR = Color.LIGHTGRAY;
 	private static final Color FRAME_COLOR = Color.LIGHTGRAY;
 
-	private Matrix _playField; // handle to the playField to draw
+	private GameSnapshot _snapshot; // the state of the game to draw
 
 	private TetrisGUI_Controller _controller; // handle to the UI controller to access options
 
@@ -98,25 +98,24 @@ public class PlayfieldPane extends Pane {
 	}
 
 	/**
-	 * @param _playField the _playField to set
+	 * @param snapshot the state of the game to draw - snapshots are immutable so no copy is needed
 	 */
-	public void setPlayField(Matrix _playField) {
-		// ToDo: Maybe a copy is needed
-		this._playField = _playField;
+	public void setSnapshot(GameSnapshot snapshot) {
+		this._snapshot = snapshot;
 	}
 
 	/**
 	 * Draws all elements in the panel. Lines and Tetriminos
 	 */
 	public void draw() {
-		if (_playField == null) _playField=new Matrix(); // draw default field if no other playField is defined
-		draw(_playField);
+		if (_snapshot == null) _snapshot = GameSnapshot.EMPTY; // draw default field if no game is defined
+		draw(_snapshot);
 	}
 
 	/**
-	 * @param _playField2
+	 * @param snapshot
 	 */
-	private void draw(Matrix playField) {
+	private void draw(GameSnapshot snapshot) {
 
 		// clear the node to redraw everything
 		this.getChildren().clear();
@@ -166,7 +165,7 @@ public class PlayfieldPane extends Pane {
 
 		for (int yi = 0; yi < Matrix.SKYLINE+1; yi++) { // we only draw the visible part therefore only to SKYLINE
 			for (int xi = 0; xi < Matrix.MATRIX_WIDTH; xi++) {
-				final TetrisColor bc = _playField.getBackgroundColor(xi,yi);
+				final TetrisColor bc = snapshot.getCell(xi,yi);
 				Color color = bc.toColor();
 				if (bc != TetrisColor.EMPTY) {
 					color = bc.toColor(); 
@@ -185,93 +184,75 @@ public class PlayfieldPane extends Pane {
 
 		// draw current Tetrimino
 		// will draw over background so collision check needs to be done in model
-		final Tetrimino t = playField.getCurrentTetrimino();
-		
-		if (t!=null) { // if no game is running there are no Tetriminos
+		if (snapshot.hasCurrentTetrimino()) { // if no game is running there are no Tetriminos
 			
+			final TetriminoLayout layout = TetriminoLayout.get(snapshot.getCurrentShape(), snapshot.getCurrentFacing());
+			final TetrisColor color = TetrisColor.of(snapshot.getCurrentShape());
+			final int x = snapshot.getCurrentX();
+
 			// set the max height we want to see Tetriminos
 			int visibleHeight = Matrix.SKYLINE+1;
 			if (!_controller.peekOption.isSelected()) {
 				visibleHeight = Matrix.SKYLINE;
 			} 
 
-			Coordinates c;
 			cr = 0;  
 
 			// draw ghost tetrimino
 			if (_controller.ghostPieceOption.isSelected()) {
-				// copy the real tetrimino as we will change the position of the ghost
-				final Tetrimino ghost = t.clone(); 
-
-				// drop the ghost as far as possible
-				while (!_playField.moveDown(ghost)) {}
-
-				final int[][] gMatrix = ghost.getMatrix(ghost.getCurrentOrientation());
-
-				c = ghost.getCurrentPosition(); // Convenience 
-
-				cr = 0; // counter for the p
-
-				// loop through the Tetrimino matrix
-				for (int yi = 0; yi < gMatrix.length; yi++) {
-					for (int xi = 0; xi < gMatrix[yi].length; xi++) {
-						if (gMatrix[yi][xi] == 1) { // only draw when 1
-							int bx = c.x + xi;
-							int by = c.y - yi;
-							// if not visible skip drawing
-							if (by > visibleHeight) break;
-							double offset_h = HEIGHT -(h*by); // height is measured top down were as our playField is buttom up 
-							double offset_w = w * bx;
-							Rectangle block = _gblock[cr++];
-							block.setFill(BACKGROUND_COLOR);
-							block.setStroke(ghost.getColor().toColor());
-							block.setStrokeType(StrokeType.OUTSIDE);
-							block.setStrokeWidth(2.0);
-							Bloom bloom = new Bloom();
-							bloom.setThreshold(0.1);
-							block.setEffect(bloom);
-							//block.setOpacity(0.5);
-							block.setArcHeight(5.0);
-							block.setArcWidth(5.0);
-							block.setX(offset_w+1); // +1 to not overdraw the lines
-							block.setY(offset_h+1);
-							block.setWidth(w-1); // -1 to not overdraw the lines
-							block.setHeight(h-1);
-							this.getChildren().add(block);
-						}
-					}
+				// the game has already dropped the ghost as far as possible
+				final int y = snapshot.getGhostY();
+
+				// loop through the Minos of the Tetrimino
+				for (int i = 0; i < TetriminoLayout.MINOS; i++) {
+					int bx = x + layout.getMinoX(i);
+					int by = y - layout.getMinoY(i);
+					// if not visible skip drawing
+					if (by > visibleHeight) continue;
+					double offset_h = HEIGHT -(h*by); // height is measured top down were as our playField is buttom up 
+					double offset_w = w * bx;
+					Rectangle block = _gblock[cr++];
+					block.setFill(BACKGROUND_COLOR);
+					block.setStroke(color.toColor());
+					block.setStrokeType(StrokeType.OUTSIDE);
+					block.setStrokeWidth(2.0);
+					Bloom bloom = new Bloom();
+					bloom.setThreshold(0.1);
+					block.setEffect(bloom);
+					//block.setOpacity(0.5);
+					block.setArcHeight(5.0);
+					block.setArcWidth(5.0);
+					block.setX(offset_w+1); // +1 to not overdraw the lines
+					block.setY(offset_h+1);
+					block.setWidth(w-1); // -1 to not overdraw the lines
+					block.setHeight(h-1);
+					this.getChildren().add(block);
 				}
 			}
 
 			cr = 0; 
 			
-			final int[][] tMatrix = t.getMatrix(t.getCurrentOrientation());
-			c = t.getCurrentPosition();
+			final int y = snapshot.getCurrentY();
 			
 			// draw the real Tetrimino
-			for (int yi = 0; yi < tMatrix.length; yi++) {
-				for (int xi = 0; xi < tMatrix[yi].length; xi++) {
-					if (tMatrix[yi][xi] == 1) { // only draw when 1
-						int bx = c.x + xi;
-						int by = c.y - yi;
-						// if not visible skip drawing
-						if (by > visibleHeight) break;
-						double offset_h = HEIGHT -(h*by); // height is measured top down were as our playField is buttom up 
-						double offset_w = w * bx;
-						Rectangle block = _tblock[cr++];
-						block.setFill(t.getColor().toColor());
-						block.setArcHeight(5.0);
-						block.setArcWidth(5.0);
-						block.setX(offset_w+1); // +1 to not overdraw the lines
-						block.setY(offset_h+1);
-						block.setWidth(w-1); // -1 to not overdraw the lines
-						block.setHeight(h-1);
-						this.getChildren().add(block);
-					}
-				}
+			for (int i = 0; i < TetriminoLayout.MINOS; i++) {
+				int bx = x + layout.getMinoX(i);
+				int by = y - layout.getMinoY(i);
+				// if not visible skip drawing
+				if (by > visibleHeight) continue;
+				double offset_h = HEIGHT -(h*by); // height is measured top down were as our playField is buttom up 
+				double offset_w = w * bx;
+				Rectangle block = _tblock[cr++];
+				block.setFill(color.toColor());
+				block.setArcHeight(5.0);
+				block.setArcWidth(5.0);
+				block.setX(offset_w+1); // +1 to not overdraw the lines
+				block.setY(offset_h+1);
+				block.setWidth(w-1); // -1 to not overdraw the lines
+				block.setHeight(h-1);
+				this.getChildren().add(block);
 			}
 
-
 		}
 	}
 }
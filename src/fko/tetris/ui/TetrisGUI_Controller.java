@@ -27,14 +27,19 @@ SOFTWARE.
 
 package fko.tetris.ui;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Observable;
-import java.util.Observer;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.SplittableRandom;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -43,11 +48,18 @@ import fko.tetris.Tetris;
 import fko.tetris.AI.Bot;
 import fko.tetris.AI.LockAheadBot;
 import fko.tetris.AI.SimpleBot;
+import fko.tetris.game.GameSnapshot;
 import fko.tetris.game.HighScoreData;
+import fko.tetris.game.Randomizer;
+import fko.tetris.game.Replay;
+import fko.tetris.game.ReplayPlayer;
+import fko.tetris.game.ReplayRecorder;
 import fko.tetris.game.TetrisControlEvents;
 import fko.tetris.game.TetrisGame;
 import fko.tetris.game.TetrisSettings;
 import fko.tetris.util.HelperTools;
+import fko.tetris.util.LatencyHistogram;
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.event.ActionEvent;
@@ -77,30 +89,54 @@ import javafx.scene.text.FontPosture;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextFlow;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 /**
  * The Controller sets up additional ui elements after the FXML loader has done its initialization. The FXML loader
  * calls the Controller's initialize() method.<br/> 
  * The Controller also receives all input and events from the user interface and the model and executes the appropriate 
- * ui updates and model actions. The UI calls the actions methods directly. The model signals via the Observer Interface 
- * that the model has changed and the UI should update its views.
+ * ui updates and model actions. The UI calls the actions methods directly. A render loop pulls the latest published 
+ * state of the model once per frame and updates the views if it has changed.
  * 
- * @see java.util.Observer#update(java.util.Observable, java.lang.Object) 
+ * @see #render() 
  * 
  * TODO: Improve Highscore List - maybe separate window? More info, Level, Tetrises, etc.
  */
-public class TetrisGUI_Controller implements Observer {
+public class TetrisGUI_Controller {
 
 	private static final WindowStateFX windowState = WindowStateFX.getInstance(); // to save and restore the last position of our window
 	private static final TetrisSettings settings = TetrisSettings.getInstance();
 
 	private Stage _primaryStage; // handle to primary stage
 	private TetrisGame _tetrisGame; // holds a running tetrisGame
+	private GameSnapshot _snapshot = GameSnapshot.EMPTY; // the last state of the game we have drawn - only used by FAT
+	private boolean _drawnRunning = false; // running state of the game when it was drawn last
+	private boolean _drawnPaused = false; // paused state of the game when it was drawn last
 	private PlayfieldPane _playfieldPane; // handle to PlayfieldPane
 	private NextQueuePane _nextQueuePane; // handle to NextQueuePane
 	private HoldPane _holdPane; // handle to NextQueuePane
 
+	// input to screen latency of the current game - only used by FAT
+	private final LatencyHistogram _inputLatency = new LatencyHistogram();
+	private long _measuredInputCount = 0; // number of inputs measured so far
+
+	// a replay played in the FAT - null if no replay is played
+	private ReplayPlayer _replayPlayer;
+	private int _replaySpeed = 1;
+	private long _replayTime = 0; // recorded play time played so far
+	private long _lastFrame = 0;
+	private String _replayStatus; // shown in the status bar during and after a replay
+
+	// pulls the game state once per frame 
+	private final AnimationTimer _renderLoop = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			playReplay(now);
+			render();
+		}
+	};
+
 	// to use for scheduled updates of ui properties - e.g. mem status label
 	private final ScheduledExecutorService _executor = Executors.newSingleThreadScheduledExecutor();
 	
@@ -126,6 +162,7 @@ public class TetrisGUI_Controller implements Observer {
 		addHowToText();
 		updateHighScoreText();
 		updateStatus();
+		_renderLoop.start(); // draw the game from now on
 
 		// change the startLevelLabel when the slider changes
 		startLevelLabel.textProperty().bind(
@@ -145,7 +182,7 @@ public class TetrisGUI_Controller implements Observer {
 	 */
 	private void initializeBot() {
 
-		if (botPlayerOption.isSelected() && _tetrisGame != null && _tetrisGame.isRunning()) {
+		if (botPlayerOption.isSelected() && _tetrisGame != null && _tetrisGame.isRunning() && _replayPlayer == null) {
 			// start selected bot
 			final Toggle selectedToggle = bots.getSelectedToggle();
 			if (_currentBot != null) _currentBot.stopBot();
@@ -179,21 +216,24 @@ public class TetrisGUI_Controller implements Observer {
 		_primaryStage.getScene().setOnKeyPressed(new EventHandler<KeyEvent>() {
 			@Override
 			public void handle(KeyEvent event) {
-				if (_tetrisGame == null || botPlayerOption.isSelected()) return; 
+				if (_tetrisGame == null || botPlayerOption.isSelected() || _replayPlayer != null) return; 
+
+				// the key press time - the input latency is measured from here to the frame showing its effect
+				final long time = _tetrisGame.getClock().nanoTime();
 
 				switch (event.getCode()) {
 				case ESCAPE: _tetrisGame.setPaused(_tetrisGame.isPaused() ? false : true); break;
-				case LEFT:	_tetrisGame.controlQueueAdd(TetrisControlEvents.LEFT); break;
-				case RIGHT:	_tetrisGame.controlQueueAdd(TetrisControlEvents.RIGHT); break;
+				case LEFT:	_tetrisGame.controlQueueAdd(TetrisControlEvents.LEFT, time); break;
+				case RIGHT:	_tetrisGame.controlQueueAdd(TetrisControlEvents.RIGHT, time); break;
 				case X:
-				case UP:	_tetrisGame.controlQueueAdd(TetrisControlEvents.RTURN); break;
+				case UP:	_tetrisGame.controlQueueAdd(TetrisControlEvents.RTURN, time); break;
 				case Y: // HACK_ in case of different keyboard layout
 				case Z:		
-				case CONTROL: _tetrisGame.controlQueueAdd(TetrisControlEvents.LTURN); break; 
-				case DOWN:	_tetrisGame.controlQueueAdd(TetrisControlEvents.SOFTDOWN); break;
-				case SPACE:	_tetrisGame.controlQueueAdd(TetrisControlEvents.HARDDOWN); break;
+				case CONTROL: _tetrisGame.controlQueueAdd(TetrisControlEvents.LTURN, time); break; 
+				case DOWN:	_tetrisGame.controlQueueAdd(TetrisControlEvents.SOFTDOWN, time); break;
+				case SPACE:	_tetrisGame.controlQueueAdd(TetrisControlEvents.HARDDOWN, time); break;
 				case SHIFT:
-				case C:		_tetrisGame.controlQueueAdd(TetrisControlEvents.HOLD); break;
+				case C:		_tetrisGame.controlQueueAdd(TetrisControlEvents.HOLD, time); break;
 				default:
 				}
 			}
@@ -266,59 +306,90 @@ public class TetrisGUI_Controller implements Observer {
 	}
 
 	/**
-	 * This is called by model explicitly whenever the model changes
-	 * @see java.util.Observer#update(java.util.Observable, java.lang.Object)
+	 * This is called by the render loop once per frame in the FAT (FX Application Thread)
 	 */
-	@Override
-	public void update(Observable o, Object arg) {
+	private void render() {
 
 		/* IMPORTANT:
-		 * This is usually called by another thread and not the FAT thread (FX Application Thread).
-		 * Other threads cannot change to UI - this would cause an exception. Therefore Platform.runLater(r) 
-		 * is used to hand over a Runnable to the FAT. Here this is encapsulated by a util-Class PlatformUtil which
-		 * adds a method platformRunAndWait(r) to wait for the UI to finish the task before is returns to the non-FAT 
-		 * thread.
-		 * If you don't need to wait for the UI use runFutureTask(r). 
-		 * 
-		 * Waiting for the UI helps when the model changes very quickly otherwise and the UI would have trouble showing 
-		 * meaningful output. It also prevents exceptions for when the UI tries to access something in the model which
-		 * has already changed again, e.g. does not exist any more.
-		 * Do not use this if you do not want calculations in the model to be slowed down.
-		 * 
-		 * The update() call from another thread quite often is the cause for deadlocks as the update of the UI in 
-		 * the FAT often uses model objects to update the UI. E.g. if a call to a model object's method in turn updates the 
-		 * model and calls update() we have a deadlock. 
+		 * The game thread never waits for the ui. It only publishes immutable snapshots of its state which we pull 
+		 * here once per frame. Frames where nothing has changed are skipped. As the snapshot never changes the ui 
+		 * never reads the model while it changes. 
 		 */
 
-		//System.out.println("update from "+o+" with args: "+arg);
-
-		if (_tetrisGame != null && _tetrisGame.isRunning()) { // game is running
-			_playfieldPane.setPlayField(_tetrisGame.getMatrix());
-			_nextQueuePane.setNextQueue(_tetrisGame.getNextQueue());
-			_holdPane.setHoldTetrimino(_tetrisGame.getHoldTetrimino());
-			PlatformUtil.platformRunAndWait(() -> setUItoGameRunning()); // setup ui
-			PlatformUtil.platformRunAndWait(() -> draw()); // draw panes
+		final GameSnapshot snapshot = _tetrisGame != null ? _tetrisGame.getSnapshot() : GameSnapshot.EMPTY;
+		final boolean running = _tetrisGame != null && _tetrisGame.isRunning();
+		final boolean paused = _tetrisGame != null && _tetrisGame.isPaused();
+		if (snapshot == _snapshot && running == _drawnRunning && paused == _drawnPaused) {
+			return; // nothing new to draw
+		}
+		_snapshot = snapshot;
+		_drawnRunning = running;
+		_drawnPaused = paused;
+
+		if (running) { // game is running
+			_playfieldPane.setSnapshot(_snapshot);
+			_nextQueuePane.setSnapshot(_snapshot);
+			_holdPane.setHoldTetrimino(_snapshot.getHold());
+			setUItoGameRunning(); // setup ui
+			draw(); // draw panes
+			measureInputLatency();
 		} else { // no game 
 			// if we just played a game continue to show the playfield after game over or game stopped
-			if (_tetrisGame != null) _playfieldPane.setPlayField(_tetrisGame.getMatrix());
-			else _playfieldPane.setPlayField(null);
-			_nextQueuePane.setNextQueue(null);
+			_playfieldPane.setSnapshot(_snapshot);
+			_nextQueuePane.setSnapshot(null);
 			_holdPane.setHoldTetrimino(null);
-			PlatformUtil.platformRunAndWait(() -> setUItoGameNotRunning()); // setup ui 
-			PlatformUtil.platformRunAndWait(() -> draw()); // draw panes
+			setUItoGameNotRunning(); // setup ui 
+			draw(); // draw panes
+		}
+	}
+
+	/*
+	 * Plays the replay up to the recorded play time of this frame. The replay's headless game is driven here in 
+	 * the FAT so it is never changed while it is drawn. 
+	 */
+	private void playReplay(long now) {
+		if (_replayPlayer == null) return;
+		if (_lastFrame != 0 && !_tetrisGame.isPaused()) {
+			_replayTime += (now - _lastFrame) * _replaySpeed;
+		}
+		_lastFrame = now;
+		if (!_tetrisGame.isRunning()) { // stopped by the user
+			_replayStatus = "Replay stopped.";
+			_replayPlayer = null;
+		} else if (!_replayPlayer.advanceTo(_replayTime)) {
+			_replayStatus = _replayPlayer.isVerified() 
+					? String.format("Replay verified (checksum %016x).", _replayPlayer.getChecksum())
+					: "Replay diverged: " + _replayPlayer.getDivergence();
+			_replayPlayer = null;
 		}
 	}
 
+	/*
+	 * Records the latency of all inputs this is the first frame showing the effect of - not only the latest as 
+	 * the older ones are the slow ones.
+	 * The frame is shown with the next pulse after this so the real latency is up to one frame longer. 
+	 */
+	private void measureInputLatency() {
+		final long count = _snapshot.getInputCount();
+		if (count == _measuredInputCount) return;
+		final long now = _tetrisGame.getClock().nanoTime();
+		// more inputs in one frame than the snapshot keeps are not measured
+		for (long n = Math.max(_measuredInputCount, count - GameSnapshot.INPUT_HISTORY); n < count; n++) {
+			_inputLatency.record(now - _snapshot.getInputTime(n));
+		}
+		_measuredInputCount = count;
+	}
+
 	/**
 	 * calls draw for all panes  
 	 */
 	private void draw() {
 		_playfieldPane.draw();
 		if (nextQueueOption.isSelected() ) {
-			_nextQueuePane.setNextQueue(_tetrisGame.getNextQueue());
+			_nextQueuePane.setSnapshot(_snapshot);
 			_nextQueuePane.draw();
 		} else {
-			_nextQueuePane.setNextQueue(null);
+			_nextQueuePane.setSnapshot(null);
 			_nextQueuePane.draw();
 		}
 		_holdPane.draw();
@@ -335,7 +406,7 @@ public class TetrisGUI_Controller implements Observer {
 			statusbar_status_text.setText("No Game started");
 			return;
 		}
-		switch (_tetrisGame.getPhaseState()) {
+		switch (_snapshot.getPhase()) {
 		case NOTSTARTED: statusbar_status_text.setText("No game started!"); break;
 		case GENERATION: statusbar_status_text.setText("Spawn Tetrimino!"); break;
 		case FALLING: statusbar_status_text.setText("Tetrimino falling!"); break;
@@ -348,6 +419,7 @@ public class TetrisGUI_Controller implements Observer {
 		case GAMEOVER: statusbar_status_text.setText("Game Over!"); break;
 		}
 		if (_tetrisGame.isPaused()) statusbar_status_text.setText("Game paused.");
+		if (_replayStatus != null) statusbar_status_text.setText(_replayStatus);
 	}
 
 	/**
@@ -361,10 +433,10 @@ public class TetrisGUI_Controller implements Observer {
 			tetrisCountLabel.setText("0");
 			startLevelLabel.setText("not yet implemented"); // this is kept in UI as a property to menu or so
 		} else {
-			scoreLabel.setText(String.format("%,d",_tetrisGame.getScore()));
-			levelLabel.setText(Integer.toString(_tetrisGame.getCurrentLevel()));
-			linecountLabel.setText(Integer.toString(_tetrisGame.getLineCount()));
-			tetrisCountLabel.setText(Integer.toString(_tetrisGame.getTetrisesCount()));
+			scoreLabel.setText(String.format("%,d",_snapshot.getScore()));
+			levelLabel.setText(Integer.toString(_snapshot.getCurrentLevel()));
+			linecountLabel.setText(Integer.toString(_snapshot.getLineCount()));
+			tetrisCountLabel.setText(Integer.toString(_snapshot.getTetrisesCount()));
 		}
 	}
 
@@ -420,6 +492,7 @@ public class TetrisGUI_Controller implements Observer {
 		newGame_button.setDisable(true);
 		stopGame_menu.setDisable(false);
 		stopGame_button.setDisable(false);
+		playReplay_menu.setDisable(true);
 		if (_tetrisGame.isPaused()) {
 			pauseGame_menu.setDisable(true);
 			pauseGame_button.setDisable(true);
@@ -445,6 +518,7 @@ public class TetrisGUI_Controller implements Observer {
 		newGame_button.setDisable(false);
 		stopGame_menu.setDisable(true);
 		stopGame_button.setDisable(true);
+		playReplay_menu.setDisable(false);
 		pauseGame_menu.setDisable(true);
 		pauseGame_button.setDisable(true);
 		resumeGame_menu.setDisable(true);
@@ -482,6 +556,7 @@ public class TetrisGUI_Controller implements Observer {
 		settings.setProperty("next_queue_list", nextQueueOption.isSelected() ? "on" : "off");
 		settings.setProperty("peek_spawn", peekOption.isSelected() ? "on" : "off");
 		settings.setProperty("ghost_piece", ghostPieceOption.isSelected() ? "on" : "off");
+		settings.setProperty("record_replay", recordReplayOption.isSelected() ? "on" : "off");
 		settings.setProperty("bot_player", botPlayerOption.isSelected() ? "on" : "off");
 		settings.setProperty("simple_bot", simpleBotOption.isSelected() ? "on" : "off");
 		settings.setProperty("lookahead_bot", lookaheadBotOption.isSelected() ? "on" : "off");
@@ -499,6 +574,7 @@ public class TetrisGUI_Controller implements Observer {
 		nextQueueOption.setSelected(settings.getProperty("next_queue_list", "on").equals("on") ? true : false);
 		peekOption.setSelected(settings.getProperty("peek_spawn", "on").equals("on") ? true : false);
 		ghostPieceOption.setSelected(settings.getProperty("ghost_piece", "on").equals("on") ? true : false);
+		recordReplayOption.setSelected(settings.getProperty("record_replay", "off").equals("on") ? true : false);
 		botPlayerOption.setSelected(settings.getProperty("bot_player", "off").equals("on") ? true : false);
 		simpleBotOption.setSelected(settings.getProperty("simple_bot", "off").equals("on") ? true : false);
 		lookaheadBotOption.setSelected(settings.getProperty("lookahead_bot", "off").equals("on") ? true : false);
@@ -536,14 +612,75 @@ public class TetrisGUI_Controller implements Observer {
 	@FXML
 	void newGame_Action(ActionEvent event) {
 		_playfieldPane.requestFocus();
-		_tetrisGame = new TetrisGame((int)startLevelSlider.getValue());
+		final int startLevel = (int)startLevelSlider.getValue();
+		final ReplayRecorder recorder = recordReplayOption.isSelected() ? createReplayRecorder(startLevel) : null;
+		if (recorder != null) {
+			_tetrisGame = new TetrisGame(startLevel, recorder.newRandomizer());
+			_tetrisGame.setReplayRecorder(recorder);
+		} else {
+			_tetrisGame = new TetrisGame(startLevel);
+		}
+		_inputLatency.reset();
+		_measuredInputCount = 0;
+		_replayStatus = null;
 		_tetrisGame.setPlayerName(playerNameField.getText());
 		_tetrisGame.setSoundOn(soundOnOption.isSelected());
-		_tetrisGame.addObserver(this);
 		_tetrisGame.startTetrisGame();
 		initializeBot();
 	}
 
+	/*
+	 * Creates a recorder for a new game in ./var/replays/ - returns null if the file can't be created 
+	 */
+	private ReplayRecorder createReplayRecorder(int startLevel) {
+		final String fileName = "replay-"
+				+ LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".trpl";
+		final Path path = FileSystems.getDefault().getPath("./var/replays/", fileName);
+		try {
+			Files.createDirectories(path.getParent());
+			return new ReplayRecorder(path, new SplittableRandom().nextLong(), Randomizer.Type.BAG7, startLevel, 
+					TetrisGame.NEXTQUEUE_SIZE);
+		} catch (IOException e) {
+			System.err.println("Could not create replay " + path + ": " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Plays a replay from ./var/replays/ at the speed in the menu item's user data 
+	 * @param event
+	 */
+	@FXML
+	void playReplay_action(ActionEvent event) {
+		final int speed = Integer.parseInt(((MenuItem) event.getSource()).getUserData().toString());
+		final FileChooser fileChooser = new FileChooser();
+		fileChooser.setTitle("Play Replay " + speed + "x");
+		fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Tetris Replays", "*.trpl"));
+		final File dir = new File("./var/replays/");
+		if (dir.isDirectory()) fileChooser.setInitialDirectory(dir);
+		final File file = fileChooser.showOpenDialog(_primaryStage);
+		if (file == null) return;
+
+		final Replay replay;
+		try {
+			replay = Replay.read(file.toPath());
+		} catch (IOException e) {
+			System.err.println("Could not read replay " + file + ": " + e);
+			statusbar_status_text.setText("Could not read replay " + file.getName());
+			return;
+		}
+		if (_currentBot != null) _currentBot.stopBot();
+		_playfieldPane.requestFocus();
+		_replayPlayer = new ReplayPlayer(replay);
+		_replaySpeed = speed;
+		_replayTime = 0;
+		_lastFrame = 0;
+		_replayStatus = "Replay " + file.getName() + " " + speed + "x";
+		_inputLatency.reset();
+		_measuredInputCount = 0;
+		_tetrisGame = _replayPlayer.getGame();
+	}
+
 	@FXML
 	void stopGame_action(ActionEvent event) {
 		_tetrisGame.stopTetrisGame();
@@ -586,6 +723,37 @@ public class TetrisGUI_Controller implements Observer {
 		}
 	}
 
+	/**
+	 * Shows the input latency of the current or last game and offers to save it to ./var/
+	 * @param event
+	 */
+	@FXML
+	void inputLatency_action(ActionEvent event) {
+		final ButtonType save = new ButtonType("Save");
+		Alert alert = new Alert(AlertType.INFORMATION, "", save, ButtonType.CLOSE);
+		alert.initOwner(_primaryStage);
+		alert.setTitle("Input Latency");
+		alert.setHeaderText("Key press to screen latency");
+		alert.setContentText(String.format("Inputs: %d%np50: %.1f ms%np99: %.1f ms%nmax: %.1f ms", 
+				_inputLatency.getCount(), 
+				_inputLatency.getValueAtPercentile(50.0) / 1e6, 
+				_inputLatency.getValueAtPercentile(99.0) / 1e6, 
+				_inputLatency.getMax() / 1e6));
+		Optional<ButtonType> result = alert.showAndWait();
+		if (result.isPresent() && result.get() == save) {
+			final String fileName = "input-latency-"
+					+ LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".hgrm";
+			final Path path = FileSystems.getDefault().getPath("./var/", fileName);
+			try {
+				Files.createDirectories(path.getParent());
+				_inputLatency.write(path);
+				statusbar_status_text.setText("Input latency saved to " + path);
+			} catch (IOException e) {
+				System.err.println("Could not write input latency to " + path + ": " + e);
+			}
+		}
+	}
+
 	@FXML
 	void botPlayerOptionAction(ActionEvent event) {
 		initializeBot();
@@ -624,6 +792,9 @@ public class TetrisGUI_Controller implements Observer {
 	@FXML // fx:id="about_menu"
 	private MenuItem about_menu; // Value injected by FXMLLoader
 
+	@FXML // fx:id="inputLatency_menu"
+	private MenuItem inputLatency_menu; // Value injected by FXMLLoader
+
 	@FXML // fx:id="scoreLabel"
 	private Label scoreLabel; // Value injected by FXMLLoader
 
@@ -693,6 +864,9 @@ public class TetrisGUI_Controller implements Observer {
 	@FXML // fx:id="ghostPieceOption"
 	protected CheckMenuItem ghostPieceOption; // Value injected by FXMLLoader
 
+	@FXML // fx:id="recordReplayOption"
+	private CheckMenuItem recordReplayOption; // Value injected by FXMLLoader
+
 	@FXML // fx:id="highScorePane"
 	private Pane highScorePane; // Value injected by FXMLLoader
 
@@ -714,6 +888,9 @@ public class TetrisGUI_Controller implements Observer {
 	@FXML // fx:id="minimaxBotOption"
 	private RadioMenuItem lookaheadBotOption; // Value injected by FXMLLoader
 
+	@FXML // fx:id="playReplay_menu"
+	private Menu playReplay_menu; // Value injected by FXMLLoader
+
 	@FXML // fx:id="bots"
 	private ToggleGroup bots; // Value injected by FXMLLoader
 
@@ -727,6 +904,7 @@ public class TetrisGUI_Controller implements Observer {
 		assert statusbar_copyright_text != null : "fx:id=\"statusbar_copyright_test\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
 		assert linecountLabel != null : "fx:id=\"linecountLabel\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
 		assert about_menu != null : "fx:id=\"about_menu\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
+		assert inputLatency_menu != null : "fx:id=\"inputLatency_menu\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
 		assert scoreLabel != null : "fx:id=\"scoreLabel\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
 		assert levelLabel != null : "fx:id=\"levelLabel\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
 		assert startLevelLabel != null : "fx:id=\"startLevelLabel\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
@@ -750,6 +928,7 @@ public class TetrisGUI_Controller implements Observer {
 		assert howtoText != null : "fx:id=\"howtoText\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
 		assert peekOption != null : "fx:id=\"peekOption\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
 		assert ghostPieceOption != null : "fx:id=\"ghostPieceOption\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
+		assert recordReplayOption != null : "fx:id=\"recordReplayOption\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
 		assert highScorePane != null : "fx:id=\"highScorePane\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
 		assert playerNameField != null : "fx:id=\"playerNameField\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
 		assert nextQueueOption != null : "fx:id=\"nextQueueOption\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
@@ -757,6 +936,7 @@ public class TetrisGUI_Controller implements Observer {
 		assert botPlayerOption != null : "fx:id=\"botPlayerOption\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
 		assert lookaheadBotOption != null : "fx:id=\"minimaxBotOption\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
 		assert simpleBotOption != null : "fx:id=\"simpleBotOption\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
+		assert playReplay_menu != null : "fx:id=\"playReplay_menu\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
 		assert bots != null : "fx:id=\"bots\" was not injected: check your FXML file 'TetrisGUI.fxml'.";
 	}
 
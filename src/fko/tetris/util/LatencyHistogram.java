@@ -0,0 +1,203 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Histogram of latencies in nanoseconds in the style of HdrHistogram.<br/>
+ * Values below 128ns are counted exactly. Above that each power of two is split into 64 linear buckets which 
+ * keeps the relative error of every reported value below 1.6% for the whole range of long. Recording is a 
+ * single array increment and never allocates.<br/>
+ * The percentile distribution can be written in the HdrHistogram text format (<code>.hgrm</code>) which the 
+ * usual plotting tools read.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 7;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;	// exact values below this
+	private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;	// linear buckets per power of two
+	private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_HALF;
+
+	private static final double NANOS_PER_MILLI = 1e6;
+
+	private final long[] _counts = new long[BUCKET_COUNT];
+	private long _totalCount = 0;
+	private long _min = Long.MAX_VALUE;
+	private long _max = 0;
+	private double _sum = 0;
+
+	/**
+	 * Records one latency. Negative values are recorded as 0.
+	 * @param nanos
+	 */
+	public synchronized void record(long nanos) {
+		final long value = Math.max(0, nanos);
+		_counts[bucketIndex(value)]++;
+		_totalCount++;
+		_sum += value;
+		if (value < _min) _min = value;
+		if (value > _max) _max = value;
+	}
+
+	/**
+	 * Removes all recorded values 
+	 */
+	public synchronized void reset() {
+		Arrays.fill(_counts, 0L);
+		_totalCount = 0;
+		_min = Long.MAX_VALUE;
+		_max = 0;
+		_sum = 0;
+	}
+
+	/**
+	 * @return number of recorded values
+	 */
+	public synchronized long getCount() {
+		return _totalCount;
+	}
+
+	/**
+	 * @return the exact smallest recorded value or 0 if there is none
+	 */
+	public synchronized long getMin() {
+		return _totalCount == 0 ? 0 : _min;
+	}
+
+	/**
+	 * @return the exact largest recorded value or 0 if there is none
+	 */
+	public synchronized long getMax() {
+		return _max;
+	}
+
+	/**
+	 * @return the exact mean of all recorded values or 0 if there is none
+	 */
+	public synchronized double getMean() {
+		return _totalCount == 0 ? 0 : _sum / _totalCount;
+	}
+
+	/**
+	 * Returns the value at the given percentile. Like HdrHistogram this is the highest value which is equivalent
+	 * to the recorded values at the percentile (but never more than the max).
+	 * @param percentile 0.0 to 100.0
+	 * @return value at the percentile or 0 if nothing has been recorded
+	 */
+	public synchronized long getValueAtPercentile(double percentile) {
+		if (_totalCount == 0) return 0;
+		final double p = Math.min(Math.max(percentile, 0.0), 100.0);
+		final long countAtPercentile = Math.max(1, (long) Math.ceil(p / 100.0 * _totalCount));
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			count += _counts[i];
+			if (count >= countAtPercentile) {
+				return Math.min(highestEquivalentValue(i), _max);
+			}
+		}
+		return _max;
+	}
+
+	/**
+	 * Writes the percentile distribution in the HdrHistogram text format with values in milliseconds. 
+	 * @param path the file to write - is replaced if it exists
+	 * @throws IOException
+	 */
+	public void write(Path path) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			write(writer);
+		}
+	}
+
+	/**
+	 * Writes the percentile distribution in the HdrHistogram text format with values in milliseconds. 
+	 * @param writer
+	 */
+	public synchronized void write(Writer writer) {
+		final PrintWriter out = new PrintWriter(writer);
+		out.format(Locale.US, "%12s %14s %10s %14s%n%n", "Value", "Percentile", "TotalCount", "1/(1-Percentile)");
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			if (_counts[i] == 0) continue;
+			count += _counts[i];
+			final double percentile = (double) count / _totalCount;
+			final long value = Math.min(highestEquivalentValue(i), _max);
+			if (count < _totalCount) {
+				out.format(Locale.US, "%12.3f %2.12f %10d %14.2f%n", 
+						value / NANOS_PER_MILLI, percentile, count, 1.0 / (1.0 - percentile));
+			} else {
+				out.format(Locale.US, "%12.3f %2.12f %10d%n", value / NANOS_PER_MILLI, percentile, count);
+			}
+		}
+		out.format(Locale.US, "#[Mean    = %12.3f, Min         = %12.3f]%n", 
+				getMean() / NANOS_PER_MILLI, getMin() / NANOS_PER_MILLI);
+		out.format(Locale.US, "#[Max     = %12.3f, Total count = %12d]%n", 
+				_max / NANOS_PER_MILLI, _totalCount);
+		out.flush();
+	}
+
+	/**
+	 * @return a one line summary with p50, p99 and max in milliseconds
+	 */
+	@Override
+	public synchronized String toString() {
+		return String.format(Locale.US, "count=%d p50=%.1fms p99=%.1fms max=%.1fms", 
+				_totalCount, 
+				getValueAtPercentile(50.0) / NANOS_PER_MILLI, 
+				getValueAtPercentile(99.0) / NANOS_PER_MILLI, 
+				_max / NANOS_PER_MILLI);
+	}
+
+	/*
+	 * Exact buckets below SUB_BUCKET_COUNT, then SUB_BUCKET_HALF buckets for each power of two  
+	 */
+	private static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) return (int) value;
+		final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		final int shift = magnitude - (SUB_BUCKET_BITS - 1);
+		return SUB_BUCKET_COUNT + (magnitude - SUB_BUCKET_BITS) * SUB_BUCKET_HALF 
+				+ (int) (value >>> shift) - SUB_BUCKET_HALF;
+	}
+
+	/*
+	 * Largest value which falls into the given bucket 
+	 */
+	private static long highestEquivalentValue(int index) {
+		if (index < SUB_BUCKET_COUNT) return index;
+		final int offset = index - SUB_BUCKET_COUNT;
+		final int shift = offset / SUB_BUCKET_HALF + 1;
+		final long lowest = (long) (SUB_BUCKET_HALF + offset % SUB_BUCKET_HALF) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+}
@@ -0,0 +1,125 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import fko.tetris.game.ControlQueue;
+import fko.tetris.game.ManualClock;
+import fko.tetris.game.TetrisControlEvents;
+
+/**
+ * 
+ */
+public class ControlQueueTest {
+
+	/**
+	 * Test method for {@link fko.tetris.game.ControlQueue#offer(TetrisControlEvents)}.
+	 */
+	@Test
+	public final void testOfferAndPoll() {
+		ManualClock clock = new ManualClock(1000L);
+		ControlQueue q = new ControlQueue(3, clock); // rounded up to 4
+		assertTrue(q.isEmpty());
+		assertNull(q.poll());
+		assertTrue(q.offer(TetrisControlEvents.LEFT));
+		clock.advance(5L);
+		assertTrue(q.offer(TetrisControlEvents.HARDDOWN));
+		assertTrue(q.offer(TetrisControlEvents.RTURN));
+		assertTrue(q.offer(TetrisControlEvents.HOLD));
+		assertFalse(q.offer(TetrisControlEvents.RIGHT)); // full
+		assertEquals(4, q.size());
+		assertEquals(1, q.getDroppedCount());
+
+		assertEquals(TetrisControlEvents.LEFT, q.take());
+		assertEquals(1000L, q.getTimestamp());
+		assertEquals(TetrisControlEvents.HARDDOWN, q.take());
+		assertEquals(1005L, q.getTimestamp());
+		assertEquals(2, q.size());
+		assertTrue(q.offer(TetrisControlEvents.SOFTDOWN, 42L)); // room again
+		q.clear();
+		assertTrue(q.isEmpty());
+
+		// wrap around many times
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(q.offer(TetrisControlEvents.LTURN, i));
+			assertEquals(TetrisControlEvents.LTURN, q.poll());
+			assertEquals(i, q.getTimestamp());
+		}
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.ControlQueue#wakeUp()}.
+	 */
+	@Test
+	public final void testWakeUp() throws InterruptedException {
+		ControlQueue q = new ControlQueue(8, new ManualClock());
+		q.wakeUp();
+		assertEquals(TetrisControlEvents.NONE, q.take());
+
+		// wake up a waiting consumer from another thread
+		Thread t = new Thread(() -> {
+			try { Thread.sleep(50); } catch (InterruptedException e) { /* empty */ }
+			q.wakeUp();
+		});
+		t.start();
+		assertEquals(TetrisControlEvents.NONE, q.take());
+		t.join();
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.ControlQueue#take()} with several producers.
+	 */
+	@Test
+	public final void testProducers() throws InterruptedException {
+		final ControlQueue q = new ControlQueue(16, new ManualClock());
+		final int producers = 4;
+		final int count = 20000;
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			final long id = p;
+			threads[p] = new Thread(() -> {
+				for (int i = 0; i < count; i++) {
+					// the time stamp encodes producer and sequence
+					while (!q.offer(TetrisControlEvents.LEFT, id * count + i)) {
+						Thread.yield();
+					}
+				}
+			});
+			threads[p].start();
+		}
+		long[] next = new long[producers];
+		for (int i = 0; i < producers * count; i++) {
+			assertEquals(TetrisControlEvents.LEFT, q.take());
+			final long time = q.getTimestamp();
+			final int p = (int) (time / count);
+			assertEquals(next[p]++, time % count); // in order per producer
+		}
+		for (Thread t : threads) t.join();
+		assertTrue(q.isEmpty());
+	}
+
+}
@@ -0,0 +1,124 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris;
+
+import static fko.tetris.GameThreadHelper.*;
+import static org.junit.Assert.*;
+
+
+import org.junit.Test;
+
+import fko.tetris.game.GameServices;
+import fko.tetris.game.GameSnapshot;
+import fko.tetris.game.ManualClock;
+import fko.tetris.game.Matrix;
+import fko.tetris.game.NextQueue;
+import fko.tetris.game.Randomizer;
+import fko.tetris.game.TetrisControlEvents;
+import fko.tetris.game.TetrisGame;
+import fko.tetris.game.TetrisPhase;
+
+/**
+ * 
+ */
+public class GameSnapshotTest {
+
+	/**
+	 * Test method for {@link fko.tetris.game.TetrisGame#getSnapshot()}.
+	 */
+	@Test
+	public final void testInitialSnapshot() {
+		TetrisGame game = new TetrisGame();
+		GameSnapshot s = game.getSnapshot();
+		assertNotNull(s);
+		assertEquals(TetrisPhase.NOTSTARTED, s.getPhase());
+		assertFalse(s.hasCurrentTetrimino());
+		assertNull(s.getHold());
+
+		NextQueue nq = game.getNextQueue();
+		assertEquals(TetrisGame.NEXTQUEUE_SIZE, s.getNextQueueSize());
+		for (int i=0; i<s.getNextQueueSize(); i++) {
+			assertEquals(nq.peek(i), s.getNext(i));
+		}
+
+		// the snapshot does not change when the game changes
+		nq.getNext();
+		assertEquals(TetrisGame.NEXTQUEUE_SIZE, s.getNextQueueSize());
+		assertSame(s, game.getSnapshot());
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.GameSnapshot#toMatrix()}.
+	 */
+	@Test
+	public final void testToMatrix() {
+		Matrix m = GameSnapshot.EMPTY.toMatrix();
+		for (int x=0; x<Matrix.MATRIX_WIDTH; x++) {
+			assertEquals(0, m.getColumnHeight(x));
+			assertFalse(GameSnapshot.EMPTY.isOccupied(x, 0));
+		}
+		assertNull(m.getCurrentTetrimino());
+		assertEquals(0, GameSnapshot.EMPTY.getInputCount());
+		assertEquals(GameSnapshot.NO_INPUT, GameSnapshot.EMPTY.getInputTime());
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.GameSnapshot#getInputTime(long)}.
+	 */
+	@Test
+	public final void testInputTimes() throws InterruptedException {
+		// the clock never advances so the Tetrimino does not fall while we move it
+		TetrisGame game = new TetrisGame(1, Randomizer.Type.BAG7.create(5L), TetrisGame.NEXTQUEUE_SIZE, false, 
+				new ManualClock(), GameServices.NONE);
+		game.startTetrisGame();
+		try {
+			waitFor(() -> game.getSnapshot().getPhase() == TetrisPhase.FALLING);
+			final GameSnapshot before = game.getSnapshot();
+			assertEquals(0, before.getInputCount());
+
+			// all inputs of a frame are kept - not only the latest
+			final int inputs = GameSnapshot.INPUT_HISTORY + 8;
+			for (int i = 0; i < inputs; i++) {
+				game.controlQueueAdd(i % 2 == 0 ? TetrisControlEvents.LEFT : TetrisControlEvents.RIGHT, 1000L + i);
+			}
+			waitFor(() -> game.getSnapshot().getInputCount() == inputs);
+			final GameSnapshot s = game.getSnapshot();
+			assertEquals(1000L + inputs - 1, s.getInputTime());
+			for (int n = 0; n < inputs - GameSnapshot.INPUT_HISTORY; n++) {
+				assertEquals(GameSnapshot.NO_INPUT, s.getInputTime(n));
+			}
+			for (int n = inputs - GameSnapshot.INPUT_HISTORY; n < inputs; n++) {
+				assertEquals(1000L + n, s.getInputTime(n));
+			}
+			assertEquals(GameSnapshot.NO_INPUT, s.getInputTime(inputs));
+
+			// older snapshots are not changed
+			assertEquals(0, before.getInputCount());
+			assertEquals(GameSnapshot.NO_INPUT, before.getInputTime());
+		} finally {
+			stop(game);
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris;
+
+import static org.junit.Assert.*;
+
+import java.util.function.BooleanSupplier;
+
+import fko.tetris.game.ManualClock;
+import fko.tetris.game.TetrisGame;
+import fko.tetris.game.TetrisPhase;
+
+/**
+ * Helpers for tests which drive a game on its game thread.
+ */
+final class GameThreadHelper {
+
+	private static final long TIMEOUT_MILLIS = 5000;
+
+	private GameThreadHelper() {
+	}
+
+	/**
+	 * Waits until the condition holds and fails after a timeout.
+	 * @param condition
+	 * @throws InterruptedException
+	 */
+	static void waitFor(BooleanSupplier condition) throws InterruptedException {
+		final long end = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (!condition.getAsBoolean()) {
+			assertTrue("timeout", System.currentTimeMillis() < end);
+			Thread.sleep(1);
+		}
+	}
+
+	/**
+	 * Waits until the snapshot of the game shows the phase.
+	 * @param game
+	 * @param phase
+	 * @throws InterruptedException
+	 */
+	static void waitForPhase(TetrisGame game, TetrisPhase phase) throws InterruptedException {
+		waitFor(() -> game.getSnapshot().getPhase() == phase);
+	}
+
+	/**
+	 * Advances the clock in small steps until the condition holds as the game thread might not have started its 
+	 * timer yet.
+	 * @param clock
+	 * @param condition
+	 * @throws InterruptedException
+	 */
+	static void advanceUntil(ManualClock clock, BooleanSupplier condition) throws InterruptedException {
+		waitFor(() -> {
+			clock.advanceMillis(10);
+			return condition.getAsBoolean();
+		});
+	}
+
+	/**
+	 * Stops the game unless its thread has already ended the game - e.g. after a failed test. 
+	 * @param game
+	 */
+	static void stop(TetrisGame game) {
+		if (game.isRunning()) {
+			game.stopTetrisGame();
+		}
+	}
+
+}
@@ -0,0 +1,221 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris;
+
+import static fko.tetris.GameThreadHelper.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import fko.tetris.game.GameMetrics;
+import fko.tetris.game.GameServices;
+import fko.tetris.game.GameSnapshot;
+import fko.tetris.game.ManualClock;
+import fko.tetris.game.Randomizer;
+import fko.tetris.game.TetrisControlEvents;
+import fko.tetris.game.TetrisGame;
+import fko.tetris.game.TetrisPhase;
+
+/**
+ * 
+ */
+public class HeadlessGameTest {
+
+	/**
+	 * Test method for {@link fko.tetris.game.TetrisGame#startHeadless()}.
+	 */
+	@Test
+	public final void testStart() {
+		TetrisGame game = new TetrisGame(1, Randomizer.Type.BAG7.create(1L), TetrisGame.NEXTQUEUE_SIZE, true);
+		assertNull(game.getHighScoreData());
+		game.startHeadless();
+		assertTrue(game.isRunning());
+		GameSnapshot s = game.getSnapshot();
+		assertEquals(TetrisPhase.FALLING, s.getPhase());
+		assertTrue(s.hasCurrentTetrimino());
+		assertSame(s, game.getSnapshot());
+
+		// the piece falls one row per tick
+		int y = s.getCurrentY();
+		game.tick();
+		assertEquals(y-1, game.getSnapshot().getCurrentY());
+
+		int x = game.getSnapshot().getCurrentX();
+		game.input(TetrisControlEvents.LEFT);
+		assertEquals(x-1, game.getSnapshot().getCurrentX());
+
+		try {
+			game.startTetrisGame();
+			fail("headless game must not start a thread");
+		} catch (IllegalStateException e) { /* expected */ }
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.TetrisGame#stepPiece()}.
+	 */
+	@Test
+	public final void testStepPiece() {
+		int[] scores = new int[2];
+		long[] hashes = new long[2];
+		int pieces = 0;
+		for (int run = 0; run < 2; run++) {
+			TetrisGame game = new TetrisGame(1, Randomizer.Type.BAG7.create(99L), TetrisGame.NEXTQUEUE_SIZE, true);
+			game.startHeadless();
+			int count = 0;
+			do {
+				// spread the pieces over the matrix so some lines are cleared
+				switch (count % 4) {
+				case 0: 
+					for (int i = 0; i < 5; i++) game.input(TetrisControlEvents.LEFT);
+					break;
+				case 1: 
+					for (int i = 0; i < 5; i++) game.input(TetrisControlEvents.RIGHT);
+					break;
+				case 2: 
+					game.input(TetrisControlEvents.RTURN);
+					break;
+				default:
+					break;
+				}
+				hashes[run] = 31 * hashes[run] + game.getSnapshot().getHash();
+				count++;
+			} while (game.stepPiece());
+			assertFalse(game.isRunning());
+			assertEquals(TetrisPhase.GAMEOVER, game.getPhaseState());
+			assertEquals(count, game.getPieceCount());
+			// logical play time - at least one lock time per piece
+			assertTrue(game.getPlayTime() >= game.getPieceCount() * 500_000_000L);
+			assertEquals(game.getPlayTime(), ((ManualClock) game.getClock()).nanoTime());
+			scores[run] = game.getScore();
+			pieces = count;
+		}
+		assertTrue(pieces > 10);
+		assertEquals(scores[0], scores[1]);
+		assertEquals(hashes[0], hashes[1]);
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.TetrisGame#advanceToNextPiece()}.
+	 */
+	@Test
+	public final void testAdvanceToNextPiece() {
+		TetrisGame game = new TetrisGame(1, Randomizer.Type.BAG7.create(8L), TetrisGame.NEXTQUEUE_SIZE, true);
+		game.startHeadless();
+		// a bot's hard drop lands the Tetrimino - advancing locks it without another input
+		game.input(TetrisControlEvents.HARDDOWN);
+		assertEquals(TetrisPhase.LOCK, game.getPhaseState());
+		assertTrue(game.advanceToNextPiece());
+		assertEquals(1, game.getPieceCount());
+		assertEquals(TetrisPhase.FALLING, game.getPhaseState());
+		// without any input the Tetrimino falls and locks by gravity
+		final long time = game.getPlayTime();
+		assertTrue(game.advanceToNextPiece());
+		assertEquals(2, game.getPieceCount());
+		assertTrue(game.getPlayTime() - time > 10 * 500_000_000L);
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.TetrisGame#tick()} with high gravity.
+	 */
+	@Test
+	public final void testGravity() {
+		TetrisGame game = new TetrisGame(15, Randomizer.Type.BAG7.create(5L), TetrisGame.NEXTQUEUE_SIZE, true);
+		game.startHeadless();
+		ManualClock clock = (ManualClock) game.getClock();
+		// 7ms per row - more than 2 rows per tick
+		int y = game.getSnapshot().getCurrentY();
+		long time = clock.nanoTime();
+		game.tick();
+		assertEquals(TetrisGame.GRAVITY_TICK_NANOS, clock.nanoTime() - time);
+		int rows = y - game.getSnapshot().getCurrentY();
+		assertTrue(rows == 2 || rows == 3);
+		// lands on the surface within a few ticks and locks
+		int ticks = 0;
+		while (game.getPhaseState() == TetrisPhase.FALLING) {
+			game.tick();
+			ticks++;
+		}
+		assertTrue(ticks <= 10);
+		assertEquals(TetrisPhase.LOCK, game.getPhaseState());
+		assertEquals(game.getSnapshot().getGhostY(), game.getSnapshot().getCurrentY());
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.TetrisGame#getMetrics()}.
+	 */
+	@Test
+	public final void testMetrics() {
+		TetrisGame game = new TetrisGame(1, Randomizer.Type.BAG7.create(3L), TetrisGame.NEXTQUEUE_SIZE, true);
+		GameMetrics metrics = game.getMetrics();
+		game.startHeadless();
+		for (int i = 0; i < 5; i++) {
+			assertTrue(game.stepPiece());
+		}
+		// one generation, lock and pattern per piece - the first Tetrimino was generated by startHeadless()
+		assertEquals(6, metrics.getPhaseCount(TetrisPhase.GENERATION));
+		assertEquals(5, metrics.getPhaseCount(TetrisPhase.LOCK));
+		assertEquals(5, metrics.getPhaseCount(TetrisPhase.PATTERN));
+		assertEquals(5, metrics.getPieceCount());
+		assertTrue(metrics.getPhaseNanos(TetrisPhase.GENERATION) >= metrics.getPhaseMaxNanos(TetrisPhase.GENERATION));
+		assertEquals(Long.valueOf(5), metrics.getPhaseCounts().get("LOCK"));
+		assertFalse(metrics.getPhaseCounts().containsKey("GAMEOVER"));
+		assertTrue(metrics.getPiecesPerSecond() > 0.0);
+		assertEquals(0, metrics.getControlQueueDepth());
+		assertNull(metrics.getObjectName()); // headless games are not registered
+
+		metrics.reset();
+		assertEquals(0, metrics.getPhaseCount(TetrisPhase.GENERATION));
+	}
+
+	/**
+	 * The phase times of a game thread must not contain the time it waits for input.
+	 * Test method for {@link fko.tetris.game.GameMetrics#getPhaseMaxNanos(TetrisPhase)}.
+	 */
+	@Test
+	public final void testMetricsWithGameThread() throws InterruptedException {
+		// the clock never advances so the Tetrimino only falls when dropped
+		TetrisGame game = new TetrisGame(1, Randomizer.Type.BAG7.create(3L), TetrisGame.NEXTQUEUE_SIZE, false, 
+				new ManualClock(), GameServices.NONE);
+		GameMetrics metrics = game.getMetrics();
+		game.startTetrisGame();
+		try {
+			for (int i = 1; i <= 3; i++) {
+				// the hard drop lands the Tetrimino - the second one locks it
+				for (TetrisPhase phase : new TetrisPhase[] { TetrisPhase.FALLING, TetrisPhase.LOCK }) {
+					waitForPhase(game, phase);
+					Thread.sleep(100); // waiting for input 
+					game.controlQueueAdd(TetrisControlEvents.HARDDOWN);
+				}
+				waitForPhase(game, TetrisPhase.FALLING);
+				assertEquals(i, game.getPieceCount());
+			}
+			assertEquals(3, metrics.getPhaseCount(TetrisPhase.LOCK));
+			assertTrue(metrics.getPhaseMaxNanos(TetrisPhase.FALLING) < 50_000_000L);
+			assertTrue(metrics.getPhaseMaxNanos(TetrisPhase.LOCK) < 50_000_000L);
+		} finally {
+			stop(game);
+		}
+	}
+
+}
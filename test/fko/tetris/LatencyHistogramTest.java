@@ -0,0 +1,96 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris;
+
+import static org.junit.Assert.*;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import fko.tetris.util.LatencyHistogram;
+
+/**
+ * 
+ */
+public class LatencyHistogramTest {
+
+	/**
+	 * Test method for {@link fko.tetris.util.LatencyHistogram#getValueAtPercentile(double)}.
+	 */
+	@Test
+	public final void testPercentiles() {
+		LatencyHistogram h = new LatencyHistogram();
+		assertEquals(0, h.getCount());
+		assertEquals(0, h.getValueAtPercentile(50.0));
+
+		// 1ms to 100ms
+		for (int i = 1; i <= 100; i++) {
+			h.record(i * 1_000_000L);
+		}
+		assertEquals(100, h.getCount());
+		assertEquals(1_000_000L, h.getMin());
+		assertEquals(100_000_000L, h.getMax());
+		assertEquals(50_500_000.0, h.getMean(), 0.1);
+		assertEquals(50_000_000.0, h.getValueAtPercentile(50.0), 50_000_000.0 * 0.016);
+		assertEquals(99_000_000.0, h.getValueAtPercentile(99.0), 99_000_000.0 * 0.016);
+		assertEquals(100_000_000L, h.getValueAtPercentile(100.0));
+		assertTrue(h.getValueAtPercentile(50.0) >= 50_000_000L); // highest equivalent value
+
+		// small values are exact
+		h.reset();
+		assertEquals(0, h.getCount());
+		h.record(-5);
+		h.record(7);
+		h.record(127);
+		assertEquals(0, h.getMin());
+		assertEquals(7, h.getValueAtPercentile(50.0));
+		assertEquals(127, h.getValueAtPercentile(99.0));
+
+		// whole range
+		h.record(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, h.getValueAtPercentile(100.0));
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.util.LatencyHistogram#write(java.io.Writer)}.
+	 */
+	@Test
+	public final void testWrite() {
+		LatencyHistogram h = new LatencyHistogram();
+		h.record(2_000_000L);
+		h.record(2_000_000L);
+		h.record(8_000_000L);
+		StringWriter out = new StringWriter();
+		h.write(out);
+		String[] lines = out.toString().split("\\r?\\n");
+		assertTrue(lines[0].contains("Percentile"));
+		assertTrue(lines[2].trim().startsWith("2.0"));
+		assertTrue(lines[2].contains(" 2 "));
+		assertTrue(lines[3].trim().startsWith("8.000"));
+		assertTrue(lines[3].trim().endsWith(" 3"));
+		assertTrue(lines[lines.length-1].contains("Total count =            3"));
+	}
+
+}
@@ -0,0 +1,400 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import fko.tetris.game.Matrix;
+import fko.tetris.game.TetrisColor;
+import fko.tetris.tetriminos.I_Tetrimino;
+import fko.tetris.tetriminos.O_Tetrimino;
+import fko.tetris.tetriminos.Piece;
+import fko.tetris.tetriminos.T_Tetrimino;
+import fko.tetris.tetriminos.Tetrimino;
+import fko.tetris.tetriminos.Tetrimino.Facing;
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
+
+/**
+ * 
+ */
+public class MatrixTest {
+
+	/**
+	 * Test method for {@link fko.tetris.game.Matrix#spawn(Tetrimino)}.
+	 */
+	@Test
+	public final void testSpawn() {
+		Matrix m = new Matrix();
+		assertFalse(m.spawn(new T_Tetrimino()));
+		assertTrue(m.getCurrentTetrimino() != null);
+		// fill the spawn row and spawning must collide
+		m = new Matrix();
+		fillRow(m, Matrix.PLAYFIELD_HEIGHT-2, -1);
+		assertTrue(m.spawn(new T_Tetrimino()));
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.Matrix#moveSideway(int)}.
+	 */
+	@Test
+	public final void testMoveSideway() {
+		Matrix m = new Matrix();
+		m.spawn(new T_Tetrimino());
+		int moves = 0;
+		while (!m.moveSideway(-1)) moves++;
+		assertEquals(3, moves);
+		assertEquals(0, m.getCurrentTetrimino().getCurrentPosition().x);
+		moves = 0;
+		while (!m.moveSideway(1)) moves++;
+		assertEquals(7, moves);
+		// the vertical I may go beyond the matrix with its empty columns 
+		m = new Matrix();
+		m.spawn(new I_Tetrimino());
+		m.turnMove(-1);
+		while (!m.moveSideway(-1)) {}
+		assertEquals(-1, m.getCurrentTetrimino().getCurrentPosition().x);
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.Matrix#drop()}.
+	 */
+	@Test
+	public final void testDropAndMerge() {
+		Matrix m = new Matrix();
+		m.spawn(new O_Tetrimino());
+		assertEquals(20, m.drop());
+		m.merge();
+		assertEquals(TetrisColor.YELLOW, m.getCell(4, 0));
+		assertEquals(TetrisColor.YELLOW, m.getCell(5, 1));
+		assertEquals(TetrisColor.EMPTY, m.getCell(6, 0));
+		assertTrue(m.isOccupied(4, 1));
+		assertEquals(0b110000, m.getRowMask(0));
+		// second O lands on the first
+		m.spawn(new O_Tetrimino());
+		assertEquals(18, m.drop());
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.Matrix#clearMarkedLines()}.
+	 */
+	@Test
+	public final void testClearLines() {
+		Matrix m = new Matrix();
+		fillRow(m, 0, -1);
+		fillRow(m, 1, 3);
+		fillRow(m, 2, -1);
+		fillRow(m, 3, 5);
+		assertEquals(2, m.markLinesToBeCleared());
+		assertEquals(2, m.clearMarkedLines());
+		assertEquals(Matrix.FULL_ROW & ~(1 << 3), m.getRowMask(0));
+		assertEquals(Matrix.FULL_ROW & ~(1 << 5), m.getRowMask(1));
+		assertEquals(0, m.getRowMask(2));
+		assertEquals(TetrisColor.EMPTY, m.getCell(3, 0));
+		assertEquals(TetrisColor.LBLUE, m.getCell(4, 0));
+		assertEquals(TetrisColor.EMPTY, m.getCell(5, 1));
+		assertEquals(0, m.markLinesToBeCleared());
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.Matrix#getColumnHeight(int)} and 
+	 * {@link fko.tetris.game.Matrix#getRowFillCount(int)}.
+	 */
+	@Test
+	public final void testHeightsAndFillCounts() {
+		Matrix m = new Matrix();
+		m.spawn(new T_Tetrimino());
+		m.drop();
+		m.merge();
+		assertEquals(1, m.getColumnHeight(3));
+		assertEquals(2, m.getColumnHeight(4));
+		assertEquals(1, m.getColumnHeight(5));
+		assertEquals(0, m.getColumnHeight(6));
+		assertEquals(3, m.getRowFillCount(0));
+		assertEquals(1, m.getRowFillCount(1));
+		// a hole below the top Mino keeps the height
+		m.setCell(0, 3, TetrisColor.RED);
+		assertEquals(4, m.getColumnHeight(0));
+		m.setCell(0, 3, TetrisColor.EMPTY);
+		assertEquals(0, m.getColumnHeight(0));
+		// clearing a line whose row is the top of a column
+		fillRow(m, 0, -1);
+		m.setCell(9, 5, TetrisColor.RED);
+		assertEquals(1, m.markLinesToBeCleared());
+		m.clearMarkedLines();
+		assertEquals(0, m.getColumnHeight(0));
+		assertEquals(1, m.getColumnHeight(4));
+		assertEquals(5, m.getColumnHeight(9));
+		assertEquals(1, m.getRowFillCount(0));
+		assertEquals(1, m.getRowFillCount(4));
+	}
+
+	/**
+	 * Drop under an overhang must not use the column heights 
+	 */
+	@Test
+	public final void testDropUnderOverhang() {
+		Matrix m = new Matrix();
+		m.setCell(0, 10, TetrisColor.RED);
+		m.setCell(1, 10, TetrisColor.RED);
+		Tetrimino o = new O_Tetrimino();
+		o.getCurrentPosition().x = 0;
+		o.getCurrentPosition().y = 10; // rows 9 and 8 - below the overhang 
+		m.spawn(o);
+		assertEquals(8, m.drop());
+		assertEquals(2, Piece.y(m.getCurrentPiece()));
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.Matrix#turnMove(int)}.
+	 */
+	@Test
+	public final void testTurnWithKicks() {
+		Matrix m = new Matrix();
+
+		// I against the left wall - plain rotation is outside, first kick 2 to the right
+		m.spawn(Piece.of(TetriminoShape.I, Facing.EAST, -2, 10));
+		assertFalse(m.turnMove(-1));
+		assertEquals(Piece.of(TetriminoShape.I, Facing.NORTH, 0, 10), m.getCurrentPiece());
+
+		// T on the floor turning from NORTH to EAST - plain rotation is below the floor
+		// 0->R kicks: (-1,0) still below the floor, (-1,1) fits
+		m = new Matrix();
+		m.spawn(Piece.of(TetriminoShape.T, Facing.NORTH, 4, 2));
+		assertTrue(m.moveDown());
+		assertFalse(m.turnMove(1));
+		assertEquals(Piece.of(TetriminoShape.T, Facing.EAST, 3, 3), m.getCurrentPiece());
+
+		// all positions blocked - no turn
+		m = new Matrix();
+		for (int y = 0; y < Matrix.PLAYFIELD_HEIGHT; y++) {
+			for (int x = 0; x < Matrix.MATRIX_WIDTH; x++) {
+				if (x != 4 && x != 5) m.setCell(x, y, TetrisColor.RED);
+			}
+		}
+		m.spawn(Piece.of(TetriminoShape.O, Facing.NORTH, 4, 10));
+		assertFalse(m.turnMove(1)); // O always turns in place
+		m.spawn(Piece.of(TetriminoShape.I, Facing.EAST, 2, 10)); // vertical in column 4
+		int before = m.getCurrentPiece();
+		assertTrue(m.turnMove(1));
+		assertEquals(before, m.getCurrentPiece());
+		assertEquals(Piece.NONE, m.turn(before, -1));
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.Matrix#dropDistance(int)}.
+	 */
+	@Test
+	public final void testDropDistance() {
+		Matrix m = new Matrix();
+		m.spawn(Piece.spawn(TetriminoShape.O)); // rows 21 and 20 at spawn
+		assertEquals(20, m.dropDistance(m.getCurrentPiece()));
+		assertEquals(20, m.dropDistance(m.getCurrentPiece())); // cached
+
+		// background changes
+		m.setCell(4, 5, TetrisColor.RED);
+		assertEquals(14, m.dropDistance(m.getCurrentPiece()));
+
+		// Tetrimino changes
+		m.moveSideway(-1);
+		assertEquals(14, m.dropDistance(m.getCurrentPiece()));
+		m.moveSideway(-1);
+		assertEquals(20, m.dropDistance(m.getCurrentPiece()));
+		m.moveDown();
+		assertEquals(19, m.dropDistance(m.getCurrentPiece()));
+		assertTrue(m.canMoveDown());
+		assertEquals(19, m.drop());
+		assertFalse(m.canMoveDown());
+
+		// several rows at once but not below the surface
+		m.spawn(Piece.spawn(TetriminoShape.O));
+		assertEquals(3, m.moveDown(3));
+		assertEquals(11, m.moveDown(20));
+		assertEquals(0, m.moveDown(1));
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.Matrix#place(TetriminoShape, Facing, int)} and 
+	 * {@link fko.tetris.game.Matrix#undo()}.
+	 */
+	@Test
+	public final void testPlaceAndUndo() {
+		Matrix m = new Matrix();
+		fillRow(m, 0, 0);
+		fillRow(m, 1, 0);
+		fillRow(m, 2, 0);
+		m.setCell(4, 3, TetrisColor.RED);
+		final String before = m.toString();
+		// vertical I into the well clears 3 lines 
+		assertEquals(3, m.place(TetriminoShape.I, Facing.WEST, -1));
+		assertEquals(1 | 1 << 4, m.getRowMask(0));
+		assertEquals(TetrisColor.LBLUE, m.getCell(0, 0));
+		assertEquals(TetrisColor.RED, m.getCell(4, 0));
+		assertEquals(1, m.getColumnHeight(0));
+		assertEquals(0, m.getColumnHeight(1));
+		// O on top 
+		assertEquals(0, m.place(TetriminoShape.O, Facing.NORTH, 4));
+		assertEquals(3, m.getColumnHeight(4));
+		m.undo();
+		m.undo();
+		assertEquals(before, m.toString());
+		assertEquals(3, m.getColumnHeight(1));
+		assertEquals(0, m.getColumnHeight(0));
+		assertEquals(4, m.getColumnHeight(4));
+		assertEquals(9, m.getRowFillCount(0));
+		// outside of the walls 
+		assertEquals(-1, m.place(TetriminoShape.T, Facing.NORTH, 8));
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.Matrix#place(int)}.
+	 */
+	@Test
+	public final void testPlacePiece() {
+		Matrix m = new Matrix();
+		m.setCell(0, 10, TetrisColor.RED);
+		m.setCell(1, 10, TetrisColor.RED);
+		final String before = m.toString();
+		// from the top the O lands on the overhang - from below it it falls to the floor  
+		int piece = Piece.of(TetriminoShape.O, Facing.NORTH, 0, 10);
+		assertTrue(m.fits(piece));
+		assertEquals(0, m.place(piece));
+		assertEquals(TetrisColor.YELLOW, m.getCell(0, 0));
+		assertFalse(m.isOccupied(0, 11));
+		m.undo();
+		assertEquals(0, m.place(TetriminoShape.O, Facing.NORTH, 0));
+		assertTrue(m.isOccupied(0, 11));
+		m.undo();
+		assertEquals(before, m.toString());
+		// inside of the overhang 
+		assertFalse(m.fits(Piece.of(TetriminoShape.O, Facing.NORTH, 0, 11)));
+		assertEquals(-1, m.place(Piece.of(TetriminoShape.O, Facing.NORTH, 0, 11)));
+	}
+
+		/**
+	 * Deep place/undo sequences must restore the Matrix exactly 
+	 */
+	@Test
+	public final void testPlaceAndUndoRandom() {
+		Random rand = new Random(4711);
+		for (int n = 0; n < 200; n++) {
+			Matrix m = new Matrix();
+			int depth = 0;
+			String[] states = new String[40];
+			int[] heights = new int[40];
+			while (depth < 40) {
+				states[depth] = m.toString();
+				heights[depth] = m.getColumnHeight(rand.nextInt(Matrix.MATRIX_WIDTH));
+				TetriminoShape shape = TetriminoShape.values()[rand.nextInt(7)];
+				Facing facing = Facing.values()[rand.nextInt(4)];
+				if (m.place(shape, facing, rand.nextInt(Matrix.MATRIX_WIDTH+2)-2) < 0) break;
+				depth++;
+			}
+			while (depth > 0) {
+				m.undo();
+				depth--;
+				assertEquals(states[depth], m.toString());
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.Matrix#getBackgroundHash()}.
+	 */
+	@Test
+	public final void testHash() {
+		Matrix m = new Matrix();
+		assertEquals(0L, m.getBackgroundHash());
+
+		// same background in a different order has the same hash
+		Matrix a = new Matrix();
+		Matrix b = new Matrix();
+		a.setCell(0, 0, TetrisColor.RED);
+		a.setCell(5, 3, TetrisColor.BLUE);
+		b.setCell(5, 3, TetrisColor.BLUE);
+		b.setCell(0, 0, TetrisColor.RED);
+		assertEquals(a.getBackgroundHash(), b.getBackgroundHash());
+		b.setCell(5, 3, TetrisColor.GREEN);
+		assertNotEquals(a.getBackgroundHash(), b.getBackgroundHash());
+		b.setCell(5, 3, TetrisColor.EMPTY);
+		b.setCell(0, 0, TetrisColor.EMPTY);
+		assertEquals(0L, b.getBackgroundHash());
+
+		// incremental hash after placements and line clears is the same as the hash of a rebuilt background
+		Random rand = new Random(815);
+		for (int n = 0; n < 200; n++) {
+			m = new Matrix();
+			long[] hashes = new long[40];
+			int depth = 0;
+			while (depth < 40) {
+				hashes[depth] = m.getBackgroundHash();
+				TetriminoShape shape = TetriminoShape.values()[rand.nextInt(7)];
+				Facing facing = Facing.values()[rand.nextInt(4)];
+				if (m.place(shape, facing, rand.nextInt(Matrix.MATRIX_WIDTH+2)-2) < 0) break;
+				depth++;
+				Matrix rebuilt = new Matrix();
+				for (int y = 0; y < Matrix.PLAYFIELD_HEIGHT; y++) {
+					for (int x = 0; x < Matrix.MATRIX_WIDTH; x++) {
+						if (m.isOccupied(x, y)) rebuilt.setCell(x, y, m.getCell(x, y));
+					}
+				}
+				assertEquals(rebuilt.getBackgroundHash(), m.getBackgroundHash());
+			}
+			while (depth > 0) {
+				m.undo();
+				depth--;
+				assertEquals(hashes[depth], m.getBackgroundHash());
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.Matrix#clone()}.
+	 */
+	@Test
+	public final void testClone() {
+		Matrix m = new Matrix();
+		fillRow(m, 0, 2);
+		Matrix c = m.clone();
+		assertEquals(m.toString(), c.toString());
+		fillRow(c, 1, -1);
+		assertEquals(0, m.getRowMask(1));
+	}
+
+	/*
+	 * fills a row except for the given hole column (-1 for none)
+	 */
+	private static void fillRow(Matrix m, int y, int hole) {
+		for (int x = 0; x < Matrix.MATRIX_WIDTH; x++) {
+			if (x != hole) m.setCell(x, y, TetrisColor.LBLUE);
+		}
+	}
+
+}
@@ -23,13 +23,14 @@ SOFTWARE.
  */
 package fko.tetris;
 
-import java.util.ListIterator;
+import static org.junit.Assert.assertEquals;
 
 import org.junit.Test;
 
 import fko.tetris.game.Bag;
 import fko.tetris.game.NextQueue;
-import fko.tetris.tetriminos.Tetrimino;
+import fko.tetris.game.Randomizer;
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
 
 /**
  * 
@@ -52,21 +53,41 @@ public class NextQueueTest {
 	}
 
 	/**
-	 * Test method for {@link fko.tetris.NextQueue#getListIterator()}.
+	 * Test method for {@link fko.tetris.game.NextQueue#peek(int)}.
 	 */
 	@Test
-	public final void testGetListIterator() {
+	public final void testPeek() {
 		Bag bag = new Bag();
 		NextQueue nq = new NextQueue(bag, 3);
 		
 		for (int i=0; i<100; i++) {
-			ListIterator<Tetrimino> li = nq.getListIterator();
-			while(li.hasNext()) {
-				System.out.print(li.next().toString()+" ");
+			for (int j=0; j<nq.size(); j++) {
+				System.out.print(nq.peek(j)+" ");
 			}
 			System.out.println();
+			TetriminoShape second = nq.peek(1);
+			TetriminoShape third = nq.peek(2);
 			System.out.println(nq.getNext() + " <-- " + nq + " <-- " + bag);
+			assertEquals(second, nq.peek(0));
+			assertEquals(third, nq.peek(1));
 		}
 	}
 
+	/**
+	 * Test method for {@link fko.tetris.game.NextQueue#snapshot(int[])}.
+	 */
+	@Test
+	public final void testSnapshot() {
+		NextQueue nq = new NextQueue(new Bag(Randomizer.Type.BAG7.create(3L)), 50);
+		int[] dst = new int[60];
+		for (int i=0; i<200; i++) {
+			assertEquals(50, nq.snapshot(dst));
+			for (int j=0; j<nq.size(); j++) {
+				assertEquals(nq.peek(j).ordinal(), dst[j]);
+			}
+			nq.getNext();
+		}
+		assertEquals(5, nq.snapshot(new int[5]));
+	}
+
 }
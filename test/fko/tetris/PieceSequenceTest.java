@@ -0,0 +1,124 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import fko.tetris.game.Bag;
+import fko.tetris.game.PieceSequence;
+import fko.tetris.game.Randomizer;
+
+/**
+ * 
+ */
+public class PieceSequenceTest {
+
+	/**
+	 * Test method for {@link fko.tetris.game.PieceSequence#generate(Randomizer, int)}.
+	 */
+	@Test
+	public final void testGenerate() {
+		PieceSequence seq = PieceSequence.generate(Randomizer.Type.BAG7.create(42L), 100_000);
+		Randomizer r = Randomizer.Type.BAG7.create(42L);
+		assertEquals(100_000, seq.size());
+		for (int i = 0; i < seq.size(); i++) {
+			assertEquals(r.next(), seq.get(i));
+		}
+		Bag bag = new Bag(seq.randomizer(10));
+		for (int i = 10; i < 20; i++) {
+			assertEquals(seq.getShape(i), bag.getNextShape());
+		}
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.Randomizer#split()} of a sequence.
+	 */
+	@Test
+	public final void testSplit() {
+		PieceSequence seq = PieceSequence.generate(Randomizer.Type.RANDOM.create(3L), 100);
+		Randomizer r = seq.randomizer(0);
+		for (int i = 0; i < 10; i++) r.next();
+		Randomizer split = r.split();
+		// both read the shared sequence from position 10 on independently
+		for (int i = 10; i < 20; i++) {
+			assertEquals(seq.get(i), r.next());
+		}
+		for (int i = 10; i < 100; i++) {
+			assertEquals(seq.get(i), split.next());
+		}
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.PieceSequence#write(Path, Randomizer, int)} and 
+	 * {@link fko.tetris.game.PieceSequence#map(Path)}.
+	 * @throws IOException 
+	 */
+	@Test
+	public final void testWriteAndMap() throws IOException {
+		Path file = Files.createTempFile("tetris", ".seq");
+		try {
+			final int count = 200_000; // more than one chunk
+			PieceSequence.write(file, Randomizer.Type.HISTORY.create(7L), count);
+			PieceSequence mapped = PieceSequence.map(file);
+			PieceSequence generated = PieceSequence.generate(Randomizer.Type.HISTORY.create(7L), count);
+			assertEquals(count, mapped.size());
+			for (int i = 0; i < count; i++) {
+				assertEquals(generated.get(i), mapped.get(i));
+			}
+
+			generated.write(file);
+			mapped = PieceSequence.map(file);
+			byte[] shapes = new byte[count];
+			mapped.randomizer(0).fill(shapes, 0, count);
+			for (int i = 0; i < count; i++) {
+				assertEquals(generated.get(i), shapes[i]);
+			}
+
+			// corrupt shape id 
+			byte[] bytes = Files.readAllBytes(file);
+			bytes[bytes.length-1] = 7;
+			Files.write(file, bytes);
+			try {
+				PieceSequence.map(file);
+				fail("unknown shape id");
+			} catch (IOException e) { /* expected */ }
+
+			Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 });
+			try {
+				PieceSequence.map(file);
+				fail("not a sequence file");
+			} catch (IOException e) { /* expected */ }
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+}
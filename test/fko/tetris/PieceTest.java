@@ -0,0 +1,103 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+import fko.tetris.tetriminos.Piece;
+import fko.tetris.tetriminos.Tetrimino;
+import fko.tetris.tetriminos.Tetrimino.Facing;
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
+
+/**
+ * 
+ */
+public class PieceTest {
+
+	/**
+	 * Test method for {@link fko.tetris.tetriminos.Piece#of(TetriminoShape, Facing, int, int)}.
+	 */
+	@Test
+	public final void testPacking() {
+		for (TetriminoShape shape : TetriminoShape.values()) {
+			for (Facing facing : Facing.values()) {
+				for (int x = -3; x <= 10; x++) {
+					for (int y = 0; y <= 26; y++) {
+						int p = Piece.of(shape, facing, x, y);
+						assertNotEquals(Piece.NONE, p);
+						assertEquals(shape, Piece.shape(p));
+						assertEquals(facing, Piece.facing(p));
+						assertEquals(x, Piece.x(p));
+						assertEquals(y, Piece.y(p));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.tetriminos.Piece#move(int, int, int)} and 
+	 * {@link fko.tetris.tetriminos.Piece#turn(int, int)}.
+	 */
+	@Test
+	public final void testMoveAndTurn() {
+		int p = Piece.spawn(TetriminoShape.T);
+		assertEquals(3, Piece.x(p));
+		assertEquals(22, Piece.y(p));
+
+		p = Piece.move(p, -4, -1);
+		assertEquals(-1, Piece.x(p));
+		assertEquals(21, Piece.y(p));
+		p = Piece.move(p, 1, 0);
+		assertEquals(0, Piece.x(p));
+
+		p = Piece.turn(p, -1);
+		assertEquals(Facing.WEST, Piece.facing(p));
+		p = Piece.turn(Piece.turn(p, 1), 1);
+		assertEquals(Facing.EAST, Piece.facing(p));
+		assertEquals(TetriminoShape.T, Piece.shape(p));
+		assertEquals(0, Piece.x(p));
+		assertEquals(21, Piece.y(p));
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.tetriminos.Tetrimino#of(int)}.
+	 */
+	@Test
+	public final void testTetriminoView() {
+		for (TetriminoShape shape : TetriminoShape.values()) {
+			Tetrimino t = Tetrimino.create(shape);
+			assertEquals(shape, t.getShape());
+			assertEquals(Piece.spawn(shape), t.toPiece());
+			t.turn(1);
+			t.getCurrentPosition().x = 5;
+			assertEquals(t.toPiece(), Tetrimino.of(t.toPiece()).toPiece());
+			assertEquals(t.toPiece(), t.clone().toPiece());
+		}
+	}
+
+}
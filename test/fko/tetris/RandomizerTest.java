@@ -0,0 +1,109 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import fko.tetris.game.Randomizer;
+import fko.tetris.tetriminos.Tetrimino.TetriminoShape;
+
+/**
+ * 
+ */
+public class RandomizerTest {
+
+	/**
+	 * Test method for {@link fko.tetris.game.Randomizer.Type#create(long)}.
+	 */
+	@Test
+	public final void testSeed() {
+		for (Randomizer.Type type : Randomizer.Type.values()) {
+			Randomizer r1 = type.create(42L);
+			Randomizer r2 = type.create(42L);
+			for (int i = 0; i < 1000; i++) {
+				assertEquals(type.toString(), r1.next(), r2.next());
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.BagRandomizer#next()}.
+	 */
+	@Test
+	public final void testBags() {
+		for (int copies = 1; copies <= 2; copies++) {
+			Randomizer r = (copies == 1 ? Randomizer.Type.BAG7 : Randomizer.Type.BAG14).create(7L);
+			for (int bag = 0; bag < 100; bag++) {
+				int[] count = new int[TetriminoShape.values().length];
+				for (int i = 0; i < count.length*copies; i++) {
+					count[r.next()]++;
+				}
+				for (int c : count) {
+					assertEquals(copies, c);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.HistoryRandomizer#next()}.
+	 */
+	@Test
+	public final void testHistory() {
+		for (long seed = 0; seed < 100; seed++) {
+			TetriminoShape first = Randomizer.Type.HISTORY.create(seed).nextShape();
+			assertNotEquals(TetriminoShape.S, first);
+			assertNotEquals(TetriminoShape.Z, first);
+			assertNotEquals(TetriminoShape.O, first);
+		}
+		// all shapes are generated
+		Randomizer r = Randomizer.Type.HISTORY.create(1L);
+		int[] count = new int[TetriminoShape.values().length];
+		for (int i = 0; i < 7000; i++) {
+			count[r.next()]++;
+		}
+		for (int c : count) {
+			assertTrue(c > 0);
+		}
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.Randomizer#split()}.
+	 */
+	@Test
+	public final void testSplit() {
+		for (Randomizer.Type type : Randomizer.Type.values()) {
+			Randomizer s1 = type.create(42L).split();
+			Randomizer s2 = type.create(42L).split();
+			for (int i = 0; i < 1000; i++) {
+				assertEquals(type.toString(), s1.next(), s2.next());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,188 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import fko.tetris.game.ManualClock;
+import fko.tetris.game.Randomizer;
+import fko.tetris.game.Replay;
+import fko.tetris.game.ReplayPlayer;
+import fko.tetris.game.ReplayRecorder;
+import fko.tetris.game.TetrisControlEvents;
+import fko.tetris.game.TetrisGame;
+
+/**
+ * 
+ */
+public class ReplayPlayerTest {
+
+	/**
+	 * Test method for {@link fko.tetris.game.ReplayPlayer#verify(Path)}.
+	 */
+	@Test
+	public final void testVerify() throws Exception {
+		Path path = Files.createTempFile("tetris", ".trpl");
+		try {
+			TetrisGame game = record(path, 11L);
+			Replay replay = Replay.read(path);
+			assertTrue(replay.isComplete());
+			assertEquals(11L, replay.getSeed());
+			assertTrue(replay.getDuration() > 0 && replay.getDuration() <= game.getPlayTime());
+
+			ReplayPlayer.Result result = ReplayPlayer.verify(path);
+			assertTrue(result.toString(), result.isVerified());
+			assertNull(result.getDivergence());
+			assertEquals(game.getPieceCount(), result.getPieceCount());
+			assertEquals(game.getScore(), result.getScore());
+			
+			// same game - same checksum
+			List<ReplayPlayer.Result> results = ReplayPlayer.verifyAll(Arrays.asList(path, path), 2);
+			assertEquals(result.getChecksum(), results.get(0).getChecksum());
+			assertEquals(result.getChecksum(), results.get(1).getChecksum());
+
+			// a cut off replay plays until the cut
+			byte[] bytes = Files.readAllBytes(path);
+			Files.write(path, Arrays.copyOf(bytes, bytes.length / 2));
+			result = ReplayPlayer.verify(path);
+			assertTrue(result.toString(), result.isVerified());
+			assertFalse(result.isComplete());
+			assertTrue(result.getPieceCount() < game.getPieceCount());
+		} finally {
+			Files.deleteIfExists(path);
+		}
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.ReplayPlayer#getDivergence()}.
+	 */
+	@Test
+	public final void testDivergence() throws Exception {
+		Path path = Files.createTempFile("tetris", ".trpl");
+		try {
+			record(path, 12L);
+			Replay replay = Replay.read(path);
+			// change the Matrix hash of the 5th Tetrimino
+			int pieces = 0;
+			int position = ReplayRecorder.HEADER_SIZE;
+			for (int i = 0; pieces < 5; i++) {
+				switch (replay.getType(i)) {
+				case INPUT:
+				case TICK:
+					long delta = replay.getTime(i) - (i == 0 ? 0 : lastTime(replay, i));
+					position += 1 + varLongSize(delta);
+					break;
+				case PIECE:
+					pieces++;
+					if (pieces == 5) break;
+					position += 13;
+					break;
+				default:
+					fail();
+				}
+			}
+			ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+			assertEquals(ReplayRecorder.TAG_PIECE, bytes.get(position));
+			bytes.putLong(position + 1, bytes.getLong(position + 1) ^ 1L);
+			Files.write(path, bytes.array());
+
+			ReplayPlayer player = new ReplayPlayer(Replay.read(path));
+			assertFalse(player.playToEnd());
+			assertFalse(player.isVerified());
+			assertEquals(5, player.getPieceCount());
+			assertTrue(player.getDivergence(), player.getDivergence().contains("Matrix"));
+			assertFalse(player.getGame().isRunning());
+		} finally {
+			Files.deleteIfExists(path);
+		}
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.ReplayPlayer#advanceTo(long)}.
+	 */
+	@Test
+	public final void testAdvanceTo() throws Exception {
+		Path path = Files.createTempFile("tetris", ".trpl");
+		try {
+			TetrisGame game = record(path, 13L);
+			ReplayPlayer player = new ReplayPlayer(Replay.read(path));
+			assertTrue(player.advanceTo(0));
+			assertEquals(0, player.getPieceCount());
+			long half = game.getPlayTime() / 2;
+			assertTrue(player.advanceTo(half));
+			assertTrue(player.getPieceCount() > 0 && player.getPieceCount() < game.getPieceCount());
+			assertTrue(player.getGame().isRunning());
+			assertFalse(player.advanceTo(Long.MAX_VALUE));
+			assertTrue(player.isVerified());
+			assertEquals(game.getPieceCount(), player.getPieceCount());
+		} finally {
+			Files.deleteIfExists(path);
+		}
+	}
+
+	/*
+	 * Records a headless game with moves, turns, holds and drops until it is over
+	 */
+	private static TetrisGame record(Path path, long seed) throws Exception {
+		ReplayRecorder recorder = new ReplayRecorder(path, seed, Randomizer.Type.BAG7, 1, TetrisGame.NEXTQUEUE_SIZE);
+		TetrisGame game = new TetrisGame(1, recorder.newRandomizer(), TetrisGame.NEXTQUEUE_SIZE, true);
+		game.setReplayRecorder(recorder);
+		game.startHeadless();
+		ManualClock clock = (ManualClock) game.getClock();
+		TetrisControlEvents[] events = TetrisControlEvents.values();
+		int n = 0;
+		while (game.isRunning()) {
+			clock.advance(3_000_000L);
+			game.input(events[n++ % events.length]);
+			if (n % 3 == 0) game.tick();
+			if (n % 11 == 0) game.stepPiece();
+		}
+		assertTrue(recorder.awaitClosed(5, TimeUnit.SECONDS));
+		assertFalse(recorder.isFailed());
+		return game;
+	}
+
+	private static long lastTime(Replay replay, int i) {
+		for (int j = i - 1; j >= 0; j--) {
+			if (replay.getType(j) != Replay.RecordType.PIECE) return replay.getTime(j);
+		}
+		return 0;
+	}
+
+	private static int varLongSize(long value) {
+		int size = 1;
+		while ((value >>>= 7) != 0) size++;
+		return size;
+	}
+
+}
@@ -0,0 +1,210 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris;
+
+import static fko.tetris.GameThreadHelper.*;
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import fko.tetris.game.GameServices;
+import fko.tetris.game.ManualClock;
+import fko.tetris.game.Randomizer;
+import fko.tetris.game.ReplayPlayer;
+import fko.tetris.game.ReplayRecorder;
+import fko.tetris.game.TetrisControlEvents;
+import fko.tetris.game.TetrisGame;
+import fko.tetris.game.TetrisPhase;
+
+/**
+ * 
+ */
+public class ReplayRecorderTest {
+
+	/**
+	 * Test method for {@link fko.tetris.game.ReplayRecorder#ReplayRecorder(Path, long, Randomizer.Type, int, int)}.
+	 */
+	@Test
+	public final void testRecord() throws Exception {
+		Path path = Files.createTempFile("tetris", ".trpl");
+		try {
+			ReplayRecorder recorder = new ReplayRecorder(path, 77L, Randomizer.Type.BAG7, 3, TetrisGame.NEXTQUEUE_SIZE);
+			TetrisGame game = new TetrisGame(3, recorder.newRandomizer(), TetrisGame.NEXTQUEUE_SIZE, true);
+			game.setReplayRecorder(recorder);
+			game.startHeadless();
+			ManualClock clock = (ManualClock) game.getClock();
+			int inputs = 0;
+			int ticks = 0;
+			while (game.isRunning()) {
+				clock.advance(1_000_000L); // not a tick - only changes the time of the input
+				game.input(TetrisControlEvents.LEFT); inputs++;
+				game.input(TetrisControlEvents.NONE); // not recorded
+				game.tick(); ticks++; // falls one row or locks
+				if (game.getPieceCount() % 3 == 0) {
+					game.input(TetrisControlEvents.HARDDOWN); inputs++;
+				}
+				game.stepPiece(); inputs++; ticks++; // hard drop and lock
+			}
+			assertTrue(recorder.awaitClosed(5, TimeUnit.SECONDS));
+			assertFalse(recorder.isFailed());
+
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+			assertEquals(ReplayRecorder.MAGIC, buffer.getInt());
+			assertEquals(ReplayRecorder.VERSION, buffer.getShort());
+			assertEquals(Randomizer.Type.BAG7.ordinal(), buffer.get());
+			buffer.get();
+			assertEquals(77L, buffer.getLong());
+			assertEquals(3, buffer.getInt());
+			assertEquals(TetrisGame.NEXTQUEUE_SIZE, buffer.getInt());
+			buffer.getLong(); // start time
+			assertEquals(ReplayRecorder.HEADER_SIZE, buffer.position());
+
+			int recordedInputs = 0;
+			int recordedTicks = 0;
+			int pieces = 0;
+			long time = 0;
+			boolean end = false;
+			while (buffer.hasRemaining()) {
+				assertFalse(end);
+				int tag = buffer.get() & 0xFF;
+				switch (tag & 0xF0) {
+				case ReplayRecorder.TAG_INPUT:
+					assertNotEquals(TetrisControlEvents.NONE.ordinal(), tag & 0x0F);
+					recordedInputs++; 
+					time += readVarLong(buffer); 
+					break;
+				case ReplayRecorder.TAG_TICK: 
+					recordedTicks++; 
+					time += readVarLong(buffer); 
+					break;
+				case ReplayRecorder.TAG_PIECE: 
+					pieces++; 
+					buffer.getLong(); 
+					buffer.getInt(); 
+					break;
+				case ReplayRecorder.TAG_END: 
+					end = true;
+					assertEquals(game.getScore(), buffer.getInt());
+					assertEquals(game.getPieceCount(), buffer.getInt());
+					break;
+				default: 
+					fail("unknown tag " + tag);
+				}
+			}
+			assertTrue(end);
+			assertEquals(game.getPieceCount(), pieces);
+			// inputs and ticks outside of FALLING and LOCK are not engine steps
+			assertTrue(recordedInputs > 0 && recordedInputs <= inputs);
+			assertTrue(recordedTicks > 0 && recordedTicks <= ticks);
+			assertEquals(game.getPlayTime(), time);
+			// a few bytes per step
+			assertTrue(buffer.capacity() < ReplayRecorder.HEADER_SIZE + 5 * (recordedInputs + recordedTicks) + 13 * (pieces + 1));
+		} finally {
+			Files.deleteIfExists(path);
+		}
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.TetrisGame#setReplayRecorder(ReplayRecorder)}.
+	 */
+	@Test
+	public final void testSettings() throws Exception {
+		Path path = Files.createTempFile("tetris", ".trpl");
+		try (ReplayRecorder recorder = new ReplayRecorder(path, 1L, Randomizer.Type.BAG7, 5, TetrisGame.NEXTQUEUE_SIZE)) {
+			TetrisGame game = new TetrisGame(1, recorder.newRandomizer(), TetrisGame.NEXTQUEUE_SIZE, true);
+			try {
+				game.setReplayRecorder(recorder);
+				fail("start level is different");
+			} catch (IllegalArgumentException e) { /* expected */ }
+		} finally {
+			Files.deleteIfExists(path);
+		}
+	}
+
+	/**
+	 * Records a game played by its game thread and verifies it with a player.
+	 * Test method for {@link fko.tetris.game.ReplayRecorder#ReplayRecorder(Path, long, Randomizer.Type, int, int)}.
+	 */
+	@Test
+	public final void testRecordWithGameThread() throws Exception {
+		Path path = Files.createTempFile("tetris", ".trpl");
+		try {
+			ReplayRecorder recorder = new ReplayRecorder(path, 21L, Randomizer.Type.BAG7, 1, TetrisGame.NEXTQUEUE_SIZE);
+			// the timers only run out when the test advances the clock
+			ManualClock clock = new ManualClock();
+			TetrisGame game = new TetrisGame(1, recorder.newRandomizer(), TetrisGame.NEXTQUEUE_SIZE, false, clock, 
+					GameServices.NONE);
+			game.setReplayRecorder(recorder);
+			game.startTetrisGame();
+			try {
+				for (int i = 1; i <= 6; i++) {
+					waitForPhase(game, TetrisPhase.FALLING);
+					game.controlQueueAdd(i % 2 == 0 ? TetrisControlEvents.LEFT : TetrisControlEvents.RTURN, 
+							clock.nanoTime());
+					// the falling timer runs out - the Tetrimino falls by gravity
+					final int y = game.getSnapshot().getCurrentY();
+					advanceUntil(clock, () -> game.getSnapshot().getCurrentY() != y);
+					game.controlQueueAdd(TetrisControlEvents.HARDDOWN, clock.nanoTime());
+					waitForPhase(game, TetrisPhase.LOCK);
+					// the lock timer runs out 
+					final int pieces = i;
+					advanceUntil(clock, () -> game.getPieceCount() == pieces);
+				}
+				// stopped while the Tetrimino is locking
+				waitForPhase(game, TetrisPhase.FALLING);
+				game.controlQueueAdd(TetrisControlEvents.HARDDOWN, clock.nanoTime());
+				waitForPhase(game, TetrisPhase.LOCK);
+			} finally {
+				stop(game);
+			}
+			assertTrue(recorder.awaitClosed(5, TimeUnit.SECONDS));
+			assertFalse(recorder.isFailed());
+
+			ReplayPlayer.Result result = ReplayPlayer.verify(path);
+			assertTrue(result.toString(), result.isVerified());
+			assertTrue(result.isComplete());
+			assertEquals(6, result.getPieceCount());
+		} finally {
+			Files.deleteIfExists(path);
+		}
+	}
+
+	private static long readVarLong(ByteBuffer buffer) {
+		long value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+}
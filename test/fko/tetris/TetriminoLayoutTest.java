@@ -0,0 +1,97 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import fko.tetris.tetriminos.I_Tetrimino;
+import fko.tetris.tetriminos.J_Tetrimino;
+import fko.tetris.tetriminos.L_Tetrimino;
+import fko.tetris.tetriminos.O_Tetrimino;
+import fko.tetris.tetriminos.S_Tetrimino;
+import fko.tetris.tetriminos.T_Tetrimino;
+import fko.tetris.tetriminos.Tetrimino;
+import fko.tetris.tetriminos.Tetrimino.Facing;
+import fko.tetris.tetriminos.TetriminoLayout;
+import fko.tetris.tetriminos.Z_Tetrimino;
+
+/**
+ * 
+ */
+public class TetriminoLayoutTest {
+
+	/**
+	 * Compares all precomputed layouts with the Tetrimino matrices
+	 */
+	@Test
+	public final void testLayoutsMatchMatrices() {
+		Tetrimino[] all = { new O_Tetrimino(), new I_Tetrimino(), new T_Tetrimino(), new L_Tetrimino(), 
+				new J_Tetrimino(), new S_Tetrimino(), new Z_Tetrimino() };
+		for (Tetrimino t : all) {
+			for (Facing f : Facing.values()) {
+				final int[][] m = t.getMatrix(f);
+				final TetriminoLayout l = t.getLayout(f);
+				assertEquals(m.length, l.size());
+				int minos = 0;
+				for (int yi = 0; yi < m.length; yi++) {
+					for (int xi = 0; xi < m[yi].length; xi++) {
+						final boolean filled = m[yi][xi] == 1;
+						assertEquals(filled, (l.getRowMask(yi) & (1 << xi)) != 0);
+						if (filled) {
+							minos++;
+							assertTrue(xi >= l.getMinX() && xi <= l.getMaxX());
+							assertTrue(yi >= l.getMinY() && yi <= l.getMaxY());
+							assertTrue(yi <= l.getBottom(xi));
+							assertTrue(xi >= l.getLeft(yi) && xi <= l.getRight(yi));
+						}
+					}
+				}
+				assertEquals(TetriminoLayout.MINOS, minos);
+				for (int i = 0; i < TetriminoLayout.MINOS; i++) {
+					assertEquals(1, m[l.getMinoY(i)][l.getMinoX(i)]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Spot check of the T facing north
+	 */
+	@Test
+	public final void testT() {
+		TetriminoLayout l = new T_Tetrimino().getLayout();
+		assertEquals(0b010, l.getRowMask(0));
+		assertEquals(0b111, l.getRowMask(1));
+		assertEquals(0, l.getRowMask(2));
+		assertEquals(1, l.getBottom(0));
+		assertEquals(1, l.getBottom(1));
+		assertEquals(-1, l.getLeft(2));
+		assertEquals(0, l.getMinY());
+		assertEquals(1, l.getMaxY());
+	}
+
+}
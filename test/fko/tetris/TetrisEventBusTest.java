@@ -0,0 +1,98 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import fko.tetris.game.GameSnapshot;
+import fko.tetris.game.TetrisEvent;
+import fko.tetris.game.TetrisEventBus;
+
+/**
+ * 
+ */
+public class TetrisEventBusTest {
+
+	/**
+	 * Test method for {@link fko.tetris.game.TetrisEventBus#addListener(fko.tetris.game.TetrisEventListener)}.
+	 */
+	@Test
+	public final void testSyncListener() {
+		TetrisEventBus bus = new TetrisEventBus();
+		assertFalse(bus.hasListeners());
+		List<TetrisEvent> received = new ArrayList<>();
+		bus.addListener(received::add);
+		assertTrue(bus.hasListeners());
+		for (int i = 0; i < 5; i++) {
+			bus.fire(new TetrisEvent.PieceMoved(GameSnapshot.EMPTY));
+		}
+		assertEquals(5, received.size());
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.TetrisEventBus#addAsyncListener(fko.tetris.game.TetrisEventListener, java.util.concurrent.Executor)}.
+	 */
+	@Test
+	public final void testAsyncCoalescing() {
+		TetrisEventBus bus = new TetrisEventBus();
+		List<Runnable> tasks = new ArrayList<>();
+		List<TetrisEvent> received = new ArrayList<>();
+		bus.addAsyncListener(received::add, tasks::add);
+
+		// a burst of moves while the listener is busy
+		TetrisEvent last = null;
+		for (int i = 0; i < 10; i++) {
+			last = new TetrisEvent.PieceMoved(GameSnapshot.EMPTY);
+			bus.fire(last);
+		}
+		TetrisEvent locked = new TetrisEvent.PieceLocked(GameSnapshot.EMPTY);
+		bus.fire(locked);
+		bus.fire(new TetrisEvent.LinesCleared(GameSnapshot.EMPTY, 4));
+		bus.fire(new TetrisEvent.LinesCleared(GameSnapshot.EMPTY, 1));
+
+		// only one task waits in the executor
+		assertEquals(1, tasks.size());
+		assertTrue(received.isEmpty());
+		tasks.remove(0).run();
+
+		// the moves are coalesced into the last one - all other events are delivered in order
+		assertEquals(4, received.size());
+		assertSame(last, received.get(0));
+		assertSame(locked, received.get(1));
+		assertTrue(((TetrisEvent.LinesCleared) received.get(2)).isTetris());
+		assertEquals(1, ((TetrisEvent.LinesCleared) received.get(3)).getLines());
+
+		// the next event schedules a new task
+		bus.fire(new TetrisEvent.PieceMoved(GameSnapshot.EMPTY));
+		assertEquals(1, tasks.size());
+		bus.removeListener(received::add); // a different instance - not removed
+		assertTrue(bus.hasListeners());
+	}
+
+}
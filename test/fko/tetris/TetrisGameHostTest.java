@@ -0,0 +1,116 @@
+/**
+MIT License
+
+Copyright (c) 2017 Frank Kopp
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package fko.tetris;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import fko.tetris.AI.LockAheadBot;
+import fko.tetris.AI.SimpleBot;
+import fko.tetris.game.GameSnapshot;
+import fko.tetris.game.TetrisGameHost;
+import fko.tetris.game.TetrisGameHost.HostedGame;
+
+/**
+ * 
+ */
+public class TetrisGameHostTest {
+
+	/**
+	 * Test method for {@link fko.tetris.game.TetrisGameHost#addGame(int, int, java.util.function.Function)}.
+	 */
+	@Test
+	public final void testManyGames() throws Exception {
+		final int games = 50;
+		long[] hashes = new long[games];
+		for (int run = 0; run < 2; run++) {
+			// same seed on a different number of threads gives the same games
+			try (TetrisGameHost host = new TetrisGameHost(run == 0 ? 2 : 4, 42L)) {
+				for (int i = 0; i < games; i++) {
+					host.addGame(1, 20, LockAheadBot::new);
+				}
+				host.awaitAll();
+				assertEquals(0, host.getActiveCount());
+				List<HostedGame> hosted = host.getGames();
+				assertEquals(games, hosted.size());
+				for (int i = 0; i < games; i++) {
+					GameSnapshot snapshot = hosted.get(i).getFinalSnapshot();
+					assertEquals(20, hosted.get(i).getGame().getPieceCount());
+					if (run == 0) {
+						hashes[i] = snapshot.getHash();
+					} else {
+						assertEquals(hashes[i], snapshot.getHash());
+					}
+				}
+				// the games have their own randomizers
+				assertNotEquals(hashes[0], hashes[1]);
+			}
+		}
+	}
+
+	/**
+	 * A bot with random moves plays the same games with the same seed.
+	 * Test method for {@link fko.tetris.game.TetrisGame#newBotRandom()}.
+	 */
+	@Test
+	public final void testSeededBot() throws Exception {
+		final int games = 10;
+		long[] hashes = new long[games];
+		for (int run = 0; run < 2; run++) {
+			try (TetrisGameHost host = new TetrisGameHost(2, 7L)) {
+				for (int i = 0; i < games; i++) {
+					host.addGame(1, 10, SimpleBot::new);
+				}
+				host.awaitAll();
+				List<HostedGame> hosted = host.getGames();
+				for (int i = 0; i < games; i++) {
+					if (run == 0) {
+						hashes[i] = hosted.get(i).getFinalSnapshot().getHash();
+					} else {
+						assertEquals(hashes[i], hosted.get(i).getFinalSnapshot().getHash());
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.TetrisGameHost#close()}.
+	 */
+	@Test
+	public final void testClose() {
+		TetrisGameHost host = new TetrisGameHost(1, 1L);
+		HostedGame game = host.addGame(1, 0, LockAheadBot::new); // no limit - plays until game over 
+		host.close();
+		assertTrue(game.getResult().isDone());
+		try {
+			host.addGame(1, 1, LockAheadBot::new);
+			fail("closed host must not accept games");
+		} catch (IllegalStateException e) { /* expected */ }
+	}
+
+}
@@ -23,13 +23,18 @@ SOFTWARE.
  */
 package fko.tetris;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import fko.tetris.game.ManualClock;
 import fko.tetris.game.TetrisTimer;
 
 /**
@@ -138,4 +143,44 @@ public class TetrisTimerTest {
 
 	}
 
+	/**
+	 * Test method for {@link fko.tetris.game.TetrisTimer#restart()}.
+	 */
+	@Test
+	public final void testRestartAndTimeout() throws InterruptedException {
+		final CountDownLatch latch = new CountDownLatch(1);
+		TetrisTimer timer = new TetrisTimer(50);
+		timer.addObserver((o, arg) -> latch.countDown());
+		int threads = Thread.activeCount();
+		for (int i = 0; i < 10000; i++) {
+			timer.restart();
+		}
+		assertTrue(Thread.activeCount() <= threads + 1);
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		assertFalse(timer.isRunning());
+		assertTrue(timer.getRemainingTime() == 0);
+	}
+
+	/**
+	 * Test method for {@link fko.tetris.game.TetrisTimer#TetrisTimer(long, fko.tetris.game.GameClock)}.
+	 */
+	@Test
+	public final void testManualClock() throws InterruptedException {
+		ManualClock clock = new ManualClock();
+		TetrisTimer timer = new TetrisTimer(7, clock);
+		final CountDownLatch latch = new CountDownLatch(1);
+		timer.addObserver((o, arg) -> latch.countDown());
+		timer.start();
+		assertEquals(7_000_000L, timer.getRemainingNanos());
+		clock.advance(6_500_000L);
+		assertEquals(500_000L, timer.getRemainingNanos());
+		assertEquals(0L, timer.getRemainingTime());
+		// the clock has not run out so the timer does not either
+		assertFalse(latch.await(50, TimeUnit.MILLISECONDS));
+		assertTrue(timer.isRunning());
+		clock.advance(500_000L);
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		assertFalse(timer.isRunning());
+	}
+
 }